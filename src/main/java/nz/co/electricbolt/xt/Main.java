@@ -13,6 +13,8 @@ public class Main {
     private boolean traceCPU = false;
     private boolean traceInterrupt = false;
     private String traceFile = "";
+    private boolean translate = false;
+    private String codeCacheDir = "";
     String emulatedProgramPath = "";
     String emulatedProgramArgs = "";
     String hostWorkingDir = "";
@@ -42,11 +44,14 @@ public class Main {
 
     private void haltSyntaxRun(final String message) {
         printAppVersion();
-        System.out.println("Syntax:        xt run [-tc -ti file] [-c dir] program [program-args]");
+        System.out.println("Syntax:        xt run [-tc -ti file] [-c dir] [-x] [-a dir] program [program-args]");
         System.out.println("               Run a .EXE or .COM command line MS-DOS app on your host system.");
         System.out.println("-tc -ti file = Trace CPU and/or interrupts to the tracing host file specified.");
         System.out.println("-c dir       = The host directory that will be the root of the emulated C: drive");
         System.out.println("               If not specified then the current working directory will be used.");
+        System.out.println("-x           = Translate frequently executed code to JVM bytecode.");
+        System.out.println("-a dir       = The host directory in which to cache the program's decoded and");
+        System.out.println("               translated code, so that later runs start with it.");
         System.out.println("program      = The .EXE or .COM command line MS-DOS app you want to run. You can");
         System.out.println("               optionally prefix with emulated path.");
         System.out.println("program-args = Optional arguments for the MS-DOS app, max 127 characters.");
@@ -79,7 +84,7 @@ public class Main {
         }
 
         final ProgramRunner runner = new ProgramRunner(emulatedProgramPath, emulatedProgramArgs, hostWorkingDir,
-                traceCPU, traceInterrupt, traceFile);
+                traceCPU, traceInterrupt, traceFile, translate, codeCacheDir);
         runner.loadAndExecute();
     }
 
@@ -138,6 +143,18 @@ public class Main {
         }
     }
 
+    private void parseCodeCacheDirectory() {
+        commandLine.next(); // skip over -a argument.
+        String argument = commandLine.next();
+        if (argument == null) {
+            haltSyntaxRun("expecting code cache host directory argument");
+        } else if (argument.startsWith("-")) {
+            haltSyntaxRun("expecting code cache host directory argument");
+        } else {
+            codeCacheDir = argument;
+        }
+    }
+
     private void parseRun() {
         if (!commandLine.hasNext()) {
             haltSyntaxRun("expecting program argument");
@@ -162,6 +179,25 @@ public class Main {
             haltSyntaxRun("expecting program argument");
         }
 
+        argument = commandLine.peek();
+        if (argument.equals("-x")) {
+            commandLine.next();
+            translate = true;
+        }
+
+        if (!commandLine.hasNext()) {
+            haltSyntaxRun("expecting program argument");
+        }
+
+        argument = commandLine.peek();
+        if (argument.equals("-a")) {
+            parseCodeCacheDirectory();
+        }
+
+        if (!commandLine.hasNext()) {
+            haltSyntaxRun("expecting program argument");
+        }
+
         // Program (mandatory).
         argument = commandLine.next();
         if (argument.startsWith("-")) {
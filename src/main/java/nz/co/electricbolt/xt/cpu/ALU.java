@@ -5,7 +5,8 @@ package nz.co.electricbolt.xt.cpu;
 
 /**
  * Arithmetic logic unit performs arithmetic (addition, subtraction, multiplication, division) and logical operations
- * (and, or, not, xor).
+ * (and, or, not, xor). Addition, subtraction and the logical operations record their operands and result in
+ * {@link Flags}, which evaluates the arithmetic flags only when read.
  */
 
 public class ALU {
@@ -18,51 +19,61 @@ public class ALU {
 
     public byte add8(final byte a, final byte b, final boolean carry) {
         final int result = (a & 0xFF) + (b & 0xFF) + (carry ? 1 : 0);
-        // The overflow flag is set when the most significant bit is changed by adding two numbers with the same sign.
-        flags.setOverflow(((a & 0x80) == (b & 0x80)) && (result & 0x80) != (a & 0x80));
-        flags.setSignNegative((result & 0x80) == 0x80);
-        flags.setZero((result & 0xFF) == 0);
-        flags.setAuxiliaryCarry((a & 0xF) + (b & 0xF) + (carry ? 1 : 0) > 0xF);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(result > 0xFF);
+        flags.lazy(Flags.ADD, 0x80, a & 0xFF, b & 0xFF, result);
         return (byte) result;
     }
 
     public short add16(final short a, final short b, final boolean carry) {
         final int result = (a & 0xFFFF) + (b & 0xFFFF) + (carry ? 1 : 0);
-        // The overflow flag is set when the most significant bit is changed by adding two numbers with the same sign.
-        flags.setOverflow(((a & 0x8000) == (b & 0x8000)) && (result & 0x8000) != (a & 0x8000));
-        flags.setSignNegative((result & 0x8000) == 0x8000);
-        flags.setZero((result & 0xFFFF) == 0);
-        flags.setAuxiliaryCarry((a & 0xF) + (b & 0xF) + (carry ? 1 : 0) > 0xF);
-        flags.setParityEven(Parity8.isEven(result & 0xFF));
-        flags.setCarry((result & 0xFFFFF) > 0xFFFF);
+        flags.lazy(Flags.ADD, 0x8000, a & 0xFFFF, b & 0xFFFF, result);
         return (short) result;
     }
 
     public byte sub8(final byte a, final byte b, final boolean carry) {
         final int result = (a & 0xFF) - (b & 0xFF) - (carry ? 1 : 0);
-        // The overflow flag is set when the most significant bit is changed by subtracting two numbers with different
-        // signs.
-        flags.setOverflow(((a & 0x80) != (b & 0x80)) && (result & 0x80) != (a & 0x80));
-        flags.setSignNegative((result & 0x80) == 0x80);
-        flags.setZero((result & 0xFF) == 0);
-        flags.setAuxiliaryCarry((a & 0xF) - (b & 0xF) - (carry ? 1 : 0) < 0);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry((result & 0xFFF) > 0xFF);
+        flags.lazy(Flags.SUB, 0x80, a & 0xFF, b & 0xFF, result);
         return (byte) result;
     }
 
     public short sub16(final short a, final short b, final boolean carry) {
         final int result = (a & 0xFFFF) - (b & 0xFFFF) - (carry ? 1 : 0);
-        // The overflow flag is set when the most significant bit is changed by subtracting two numbers with different
-        // signs.
-        flags.setOverflow(((a & 0x8000) != (b & 0x8000)) && (result & 0x8000) != (a & 0x8000));
-        flags.setSignNegative((result & 0x8000) == 0x8000);
-        flags.setZero((result & 0xFFFF) == 0);
-        flags.setAuxiliaryCarry((a & 0xF) - (b & 0xF) - (carry ? 1 : 0) < 0);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry((result & 0xFFFFF) > 0xFFFF);
+        flags.lazy(Flags.SUB, 0x8000, a & 0xFFFF, b & 0xFFFF, result);
+        return (short) result;
+    }
+
+    /**
+     * INC - add 1, leaving the carry flag unchanged.
+     */
+    public byte inc8(final byte a) {
+        final int result = (a & 0xFF) + 1;
+        flags.lazy(Flags.INC, 0x80, a & 0xFF, 1, result);
+        return (byte) result;
+    }
+
+    /**
+     * INC - add 1, leaving the carry flag unchanged.
+     */
+    public short inc16(final short a) {
+        final int result = (a & 0xFFFF) + 1;
+        flags.lazy(Flags.INC, 0x8000, a & 0xFFFF, 1, result);
+        return (short) result;
+    }
+
+    /**
+     * DEC - subtract 1, leaving the carry flag unchanged.
+     */
+    public byte dec8(final byte a) {
+        final int result = (a & 0xFF) - 1;
+        flags.lazy(Flags.DEC, 0x80, a & 0xFF, 1, result);
+        return (byte) result;
+    }
+
+    /**
+     * DEC - subtract 1, leaving the carry flag unchanged.
+     */
+    public short dec16(final short a) {
+        final int result = (a & 0xFFFF) - 1;
+        flags.lazy(Flags.DEC, 0x8000, a & 0xFFFF, 1, result);
         return (short) result;
     }
 
@@ -223,67 +234,37 @@ public class ALU {
 
     public byte or8(final short a, final short b) {
         final int result = (a & 0xFF) | (b & 0xFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x80) == 0x80);
-        flags.setZero((result & 0xFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x80, 0, 0, result);
         return (byte) result;
     }
 
     public short or16(final short a, final short b) {
         final int result = (a & 0xFFFF) | (b & 0xFFFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x8000) == 0x8000);
-        flags.setZero((result & 0xFFFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x8000, 0, 0, result);
         return (short) result;
     }
 
     public byte and8(final short a, final short b) {
         final int result = (a & 0xFF) & (b & 0xFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x80) == 0x80);
-        flags.setZero((result & 0xFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x80, 0, 0, result);
         return (byte) result;
     }
 
     public short and16(final short a, final short b) {
         final int result = (a & 0xFFFF) & (b & 0xFFFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x8000) == 0x8000);
-        flags.setZero((result & 0xFFFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x8000, 0, 0, result);
         return (short) result;
     }
 
     public byte xor8(final short a, final short b) {
         final int result = (a & 0xFF) ^ (b & 0xFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x80) == 0x80);
-        flags.setZero((result & 0xFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x80, 0, 0, result);
         return (byte) result;
     }
 
     public short xor16(final short a, final short b) {
         final int result = (a & 0xFFFF) ^ (b & 0xFFFF);
-        flags.setOverflow(false);
-        flags.setSignNegative((result & 0x8000) == 0x8000);
-        flags.setZero((result & 0xFFFF) == 0);
-        flags.setAuxiliaryCarry(false);
-        flags.setParityEven(Parity8.isEven(result));
-        flags.setCarry(false);
+        flags.lazy(Flags.LOGIC, 0x8000, 0, 0, result);
         return (short) result;
     }
 }
@@ -0,0 +1,307 @@
+// ArithmeticInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * ADD/ADC/SUB/SBB/CMP, the logical AND/OR/XOR/TEST instructions, register INC/DEC and CBW/CWD. Opcodes which differ
+ * only by direction (bit 1 - r/m,reg or reg,r/m) or by carry share a handler.
+ */
+public class ArithmeticInstructions {
+
+    private final CPU cpu;
+
+    ArithmeticInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    // region ADD/ADC.
+
+    /**
+     * ADD/ADC r/m8,r8 (0x00, 0x10) and ADD/ADC r8,r/m8 (0x02, 0x12).
+     */
+    void add8(final int opcode) {
+        final boolean carry = (opcode & 0x10) != 0 && cpu.reg.flags.isCarry();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final byte result = cpu.alu.add8(regRM.readRM8(), regRM.readReg8(), carry);
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg8(result);
+        } else {
+            regRM.writeRM8(result);
+        }
+    }
+
+    /**
+     * ADD/ADC r/m16,r16 (0x01, 0x11) and ADD/ADC r16,r/m16 (0x03, 0x13).
+     */
+    void add16(final int opcode) {
+        final boolean carry = (opcode & 0x10) != 0 && cpu.reg.flags.isCarry();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final short result = cpu.alu.add16(regRM.readRM16(), regRM.readReg16(), carry);
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg16(result);
+        } else {
+            regRM.writeRM16(result);
+        }
+    }
+
+    /**
+     * ADD/ADC AL,imm8 (0x04, 0x14).
+     */
+    void addALImm8(final int opcode) {
+        final boolean carry = opcode == 0x14 && cpu.reg.flags.isCarry();
+        cpu.reg.AL.setValue(cpu.alu.add8(cpu.fetch8(), cpu.reg.AL.getValue(), carry));
+    }
+
+    /**
+     * ADD/ADC AX,imm16 (0x05, 0x15).
+     */
+    void addAXImm16(final int opcode) {
+        final boolean carry = opcode == 0x15 && cpu.reg.flags.isCarry();
+        cpu.reg.AX.setValue(cpu.alu.add16(cpu.fetch16(), cpu.reg.AX.getValue(), carry));
+    }
+
+    // endregion
+
+    // region SUB/SBB.
+
+    /**
+     * SUB/SBB r/m8,r8 (0x28, 0x18) and SUB/SBB r8,r/m8 (0x2A, 0x1A).
+     */
+    void sub8(final int opcode) {
+        final boolean carry = (opcode & 0xF0) == 0x10 && cpu.reg.flags.isCarry();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg8(cpu.alu.sub8(regRM.readReg8(), regRM.readRM8(), carry));
+        } else {
+            regRM.writeRM8(cpu.alu.sub8(regRM.readRM8(), regRM.readReg8(), carry));
+        }
+    }
+
+    /**
+     * SUB/SBB r/m16,r16 (0x29, 0x19) and SUB/SBB r16,r/m16 (0x2B, 0x1B).
+     */
+    void sub16(final int opcode) {
+        final boolean carry = (opcode & 0xF0) == 0x10 && cpu.reg.flags.isCarry();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg16(cpu.alu.sub16(regRM.readReg16(), regRM.readRM16(), carry));
+        } else {
+            regRM.writeRM16(cpu.alu.sub16(regRM.readRM16(), regRM.readReg16(), carry));
+        }
+    }
+
+    /**
+     * SUB/SBB AL,imm8 (0x2C, 0x1C).
+     */
+    void subALImm8(final int opcode) {
+        final boolean carry = opcode == 0x1C && cpu.reg.flags.isCarry();
+        cpu.reg.AL.setValue(cpu.alu.sub8(cpu.reg.AL.getValue(), cpu.fetch8(), carry));
+    }
+
+    /**
+     * SUB/SBB AX,imm16 (0x2D, 0x1D).
+     */
+    void subAXImm16(final int opcode) {
+        final boolean carry = opcode == 0x1D && cpu.reg.flags.isCarry();
+        cpu.reg.AX.setValue(cpu.alu.sub16(cpu.reg.AX.getValue(), cpu.fetch16(), carry));
+    }
+
+    // endregion
+
+    // region CMP.
+
+    /**
+     * CMP r/m8,r8 (0x38) and CMP r8,r/m8 (0x3A).
+     */
+    void cmp8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if ((opcode & 0x02) != 0) {
+            cpu.alu.sub8(regRM.readReg8(), regRM.readRM8(), false);
+        } else {
+            cpu.alu.sub8(regRM.readRM8(), regRM.readReg8(), false);
+        }
+    }
+
+    /**
+     * CMP r/m16,r16 (0x39) and CMP r16,r/m16 (0x3B).
+     */
+    void cmp16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if ((opcode & 0x02) != 0) {
+            cpu.alu.sub16(regRM.readReg16(), regRM.readRM16(), false);
+        } else {
+            cpu.alu.sub16(regRM.readRM16(), regRM.readReg16(), false);
+        }
+    }
+
+    /**
+     * CMP AL,imm8 - Compare immediate byte to AL.
+     */
+    void cmpALImm8(final int opcode) {
+        cpu.alu.sub8(cpu.reg.AL.getValue(), cpu.fetch8(), false);
+    }
+
+    /**
+     * CMP AX,imm16 - Compare immediate word to AX.
+     */
+    void cmpAXImm16(final int opcode) {
+        cpu.alu.sub16(cpu.reg.AX.getValue(), cpu.fetch16(), false);
+    }
+
+    // endregion
+
+    // region AND/OR/XOR.
+
+    /**
+     * AND r/m8,r8 (0x20), OR r/m8,r8 (0x08), XOR r/m8,r8 (0x30) and the r8,r/m8 forms (0x22, 0x0A, 0x32).
+     */
+    void logic8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final byte a = regRM.readRM8();
+        final byte b = regRM.readReg8();
+        final byte result = switch (opcode & 0xF8) {
+            case 0x08 -> cpu.alu.or8(a, b);
+            case 0x20 -> cpu.alu.and8(a, b);
+            default -> cpu.alu.xor8(a, b);
+        };
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg8(result);
+        } else {
+            regRM.writeRM8(result);
+        }
+    }
+
+    /**
+     * AND r/m16,r16 (0x21), OR r/m16,r16 (0x09), XOR r/m16,r16 (0x31) and the r16,r/m16 forms (0x23, 0x0B, 0x33).
+     */
+    void logic16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final short a = regRM.readRM16();
+        final short b = regRM.readReg16();
+        final short result = switch (opcode & 0xF8) {
+            case 0x08 -> cpu.alu.or16(a, b);
+            case 0x20 -> cpu.alu.and16(a, b);
+            default -> cpu.alu.xor16(a, b);
+        };
+        if ((opcode & 0x02) != 0) {
+            regRM.writeReg16(result);
+        } else {
+            regRM.writeRM16(result);
+        }
+    }
+
+    /**
+     * AND AL,imm8 (0x24), OR AL,imm8 (0x0C) and XOR AL,imm8 (0x34).
+     */
+    void logicALImm8(final int opcode) {
+        final byte imm8 = cpu.fetch8();
+        final byte al = cpu.reg.AL.getValue();
+        cpu.reg.AL.setValue(switch (opcode) {
+            case 0x0C -> cpu.alu.or8(imm8, al);
+            case 0x24 -> cpu.alu.and8(imm8, al);
+            default -> cpu.alu.xor8(imm8, al);
+        });
+    }
+
+    /**
+     * AND AX,imm16 (0x25), OR AX,imm16 (0x0D) and XOR AX,imm16 (0x35).
+     */
+    void logicAXImm16(final int opcode) {
+        final short imm16 = cpu.fetch16();
+        final short ax = cpu.reg.AX.getValue();
+        cpu.reg.AX.setValue(switch (opcode) {
+            case 0x0D -> cpu.alu.or16(imm16, ax);
+            case 0x25 -> cpu.alu.and16(imm16, ax);
+            default -> cpu.alu.xor16(imm16, ax);
+        });
+    }
+
+    // endregion
+
+    // region TEST.
+
+    /**
+     * TEST r/m8,r8 - AND byte register with r/m byte.
+     */
+    void test8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        cpu.alu.and8(regRM.readRM8(), regRM.readReg8());
+    }
+
+    /**
+     * TEST r/m16,r16 - AND word register with r/m word.
+     */
+    void test16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        cpu.alu.and16(regRM.readRM16(), regRM.readReg16());
+    }
+
+    /**
+     * TEST AL,imm8 - AND immediate byte with AL.
+     */
+    void testALImm8(final int opcode) {
+        final byte imm8 = cpu.fetch8();
+        cpu.alu.and8(cpu.reg.AL.getValue(), imm8);
+    }
+
+    /**
+     * TEST AX,imm16 - AND immediate word with AX.
+     */
+    void testAXImm16(final int opcode) {
+        final short imm16 = cpu.fetch16();
+        cpu.alu.and16(cpu.reg.AX.getValue(), imm16);
+    }
+
+    // endregion
+
+    // region INC/DEC.
+
+    /**
+     * INC r16 (0x40 - 0x47) - Increment word register by 1.
+     */
+    void inc16(final int opcode) {
+        cpu.reg.set16(opcode & 0x7, cpu.alu.inc16((short) cpu.reg.get16(opcode & 0x7)));
+    }
+
+    /**
+     * DEC r16 (0x48 - 0x4F) - Decrement word register by 1.
+     */
+    void dec16(final int opcode) {
+        cpu.reg.set16(opcode & 0x7, cpu.alu.dec16((short) cpu.reg.get16(opcode & 0x7)));
+    }
+
+    // endregion
+
+    // region CBW/CWD.
+
+    /**
+     * CBW - AX sign extend of AL.
+     */
+    void cbw(final int opcode) {
+        cpu.reg.AX.setValue(cpu.reg.AL.getValue());
+    }
+
+    /**
+     * CWD - DX:AX sign-extend of AX.
+     */
+    void cwd(final int opcode) {
+        if ((cpu.reg.AX.getValue() & 0x8000) == 0x8000) {
+            cpu.reg.DX.setValue((short) 0xFFFF);
+        } else {
+            cpu.reg.DX.setValue((short) 0);
+        }
+    }
+
+    // endregion
+}
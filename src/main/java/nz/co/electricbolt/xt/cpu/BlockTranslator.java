@@ -0,0 +1,523 @@
+// BlockTranslator.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static nz.co.electricbolt.xt.cpu.ClassFileWriter.ACC_FINAL;
+import static nz.co.electricbolt.xt.cpu.ClassFileWriter.ACC_STATIC;
+import static nz.co.electricbolt.xt.cpu.ClassFileWriter.ACC_SUPER;
+
+/**
+ * Second tier of execution. When an instruction in the {@code InstructionCache} has been executed {@code threshold}
+ * times, the basic block starting at that instruction - the cached instructions up to and including the next control
+ * transfer - is translated into a hidden class.
+ * <p>
+ * Register moves, register arithmetic and logic, register INC/DEC, XCHG AX and the carry/direction flag instructions
+ * are translated into bytecode that operates directly on the register file. All other instructions are translated into
+ * a call to their opcode handler, held in a static final field so that the JIT can inline it, followed by a check that
+ * CS:IP reached the next instruction and no code was modified; otherwise the block returns to the interpreter.
+ * <p>
+ * A backward flag liveness pass finds the directly translated instructions whose arithmetic flags are all overwritten
+ * before anything reads them. Those instructions only compute their result. Flags are treated as live at the end of
+ * the block and before any instruction that calls its opcode handler, since that may leave the block, interrupt or
+ * read the flags (e.g. PUSHF).
+ * <p>
+ * Blocks translated while there is no {@code FetchListener} don't fetch the bytes of the directly translated
+ * instructions; each run of them just advances IP and the instruction count once, before the next opcode handler call
+ * or the end of the block.
+ */
+final class BlockTranslator {
+
+    static final int THRESHOLD = 256;
+    static final int MAX_STEPS = 64;
+
+    private static final String PACKAGE = "nz/co/electricbolt/xt/cpu/";
+    private static final String CPU_CLASS = PACKAGE + "CPU";
+    private static final String REG_SET_CLASS = PACKAGE + "RegSet";
+    private static final String FLAGS_CLASS = PACKAGE + "Flags";
+    private static final String ALU_CLASS = PACKAGE + "ALU";
+    private static final String HANDLER_CLASS = PACKAGE + "OpcodeHandler";
+    private static final String INSTRUCTION_CLASS = PACKAGE + "DecodedInstruction";
+    private static final String BLOCK_CLASS = PACKAGE + "TranslatedBlock";
+    private static final String INSTRUCTION = "L" + INSTRUCTION_CLASS + ";";
+    private static final String HANDLER = "L" + HANDLER_CLASS + ";";
+
+    static final int ARITHMETIC_FLAGS = Flags.OVERFLOW | Flags.SIGN | Flags.ZERO | Flags.AUX_CARRY | Flags.PARITY
+            | Flags.CARRY;
+
+    // Arithmetic and logic operations, in the order of bits 3 - 5 of opcodes 0x00 - 0x3D.
+    private static final int ADD = 0;
+    private static final int ADC = 2;
+    private static final int SBB = 3;
+    private static final int SUB = 5;
+    private static final int CMP = 7;
+    private static final String[] ALU_METHODS = {"add", "or", "add", "sub", "and", "sub", "xor", "sub"};
+    private static final int[] ALU_OPCODES = {ClassFileWriter.Code.IADD, ClassFileWriter.Code.IOR, 0, 0,
+            ClassFileWriter.Code.IAND, ClassFileWriter.Code.ISUB, ClassFileWriter.Code.IXOR, 0};
+
+    private final CPU cpu;
+    final int threshold;
+
+    BlockTranslator(final CPU cpu) {
+        this(cpu, THRESHOLD);
+    }
+
+    BlockTranslator(final CPU cpu, final int threshold) {
+        this.cpu = cpu;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Translates the basic block starting at linear address 0x00000 - 0xFFFFF, reusing the class file loaded from the
+     * {@code CodeCache} for its first instruction, if any, unless it can't be defined.
+     * @return the translated block, or null if there are fewer than two instructions to translate.
+     */
+    TranslatedBlock translate(final int address) {
+        final DecodedInstruction first = cpu.memory.instructionCache.get(address);
+        final CodeCache.Translation translation = first.translation;
+        first.translation = null;
+        final List<DecodedInstruction> instructions = instructions(address);
+        if (instructions.size() < 2) {
+            return null;
+        }
+        if (translation != null && translation.steps == instructions.size()) {
+            try {
+                return define(translation.classFile, instructions);
+            } catch (IllegalStateException e) {
+                // The cache file is corrupt; the block is translated again.
+            }
+        }
+        return define(classFile(instructions), instructions);
+    }
+
+    /**
+     * Finds the basic block starting at linear address 0x00000 - 0xFFFFF. The block ends at the first control
+     * transfer, at the first instruction not yet cached, or before an instruction that would extend the block beyond
+     * the page following the first instruction's page (so that a write to either page discards the first instruction,
+     * and with it the block).
+     */
+    List<DecodedInstruction> instructions(final int address) {
+        final List<DecodedInstruction> instructions = new ArrayList<>();
+        final int limit = Math.min(((address >> InstructionCache.PAGE_SHIFT) + 2) << InstructionCache.PAGE_SHIFT,
+                Memory.MEMORY_SIZE);
+        int length = 0;
+        while (instructions.size() < MAX_STEPS && address + length < limit) {
+            final DecodedInstruction instruction = cpu.memory.instructionCache.get(address + length);
+            if (instruction == null || address + length + instruction.length > limit) {
+                break;
+            }
+            instructions.add(instruction);
+            length += instruction.length;
+            if (endsBlock(instruction)) {
+                break;
+            }
+        }
+        return instructions;
+    }
+
+    static boolean endsBlock(final DecodedInstruction instruction) {
+        final int opcode = instruction.opcode;
+        return (opcode >= 0x70 && opcode <= 0x7F)                  // Jcc.
+                || opcode == 0x9A                                  // CALL ptr16:16.
+                || (opcode >= 0xC2 && opcode <= 0xC3)              // RET.
+                || (opcode >= 0xCA && opcode <= 0xCF)              // RETF, INT, INTO, IRET.
+                || (opcode >= 0xE0 && opcode <= 0xE3)              // LOOP, JCXZ.
+                || (opcode >= 0xE8 && opcode <= 0xEB)              // CALL, JMP.
+                || opcode == 0xF4                                  // HLT.
+                || opcode == 0xFF;                                 // Group 5 CALL/JMP.
+    }
+
+    /**
+     * @return the class file of the hidden class translating a block of two or more instructions.
+     */
+    byte[] classFile(final List<DecodedInstruction> instructions) {
+        final ClassFileWriter writer = new ClassFileWriter(ACC_FINAL | ACC_SUPER, PACKAGE + "Block", BLOCK_CLASS);
+        for (int i = 0; i < instructions.size(); i++) {
+            writer.field(ACC_STATIC | ACC_FINAL, "I" + i, INSTRUCTION);
+            writer.field(ACC_STATIC | ACC_FINAL, "H" + i, HANDLER);
+        }
+        writer.method(ACC_STATIC, "<clinit>", "()V", classInitializer(writer, instructions.size()));
+        writer.method(0, "<init>", "()V", writer.code(1, 1)
+                .aload(0)
+                .op(ClassFileWriter.Code.INVOKESPECIAL, writer.methodRef(BLOCK_CLASS, "<init>", "()V"))
+                .op(ClassFileWriter.Code.RETURN));
+        final int[] live = cpu.flagLiveness ? liveFlags(instructions) : null;
+        writer.method(0, "run", "(L" + CPU_CLASS + ";)I", run(writer, instructions, live));
+        return writer.toByteArray();
+    }
+
+    /**
+     * Defines the hidden class translating a block, with the instructions and their handlers as its class data.
+     */
+    private TranslatedBlock define(final byte[] classFile, final List<DecodedInstruction> instructions) {
+        final Object[] classData = new Object[instructions.size() * 2];
+        int length = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            classData[i * 2] = instructions.get(i);
+            classData[i * 2 + 1] = instructions.get(i).handler;
+            length += instructions.get(i).length;
+        }
+        final TranslatedBlock block;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup()
+                    .defineHiddenClassWithClassData(classFile, classData, true);
+            block = (TranslatedBlock) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to define translated block", e);
+        }
+        block.steps = instructions.size();
+        block.length = length;
+        return block;
+    }
+
+    /**
+     * Static initializer which copies the instructions and their handlers from the class data into static final
+     * fields.
+     */
+    private ClassFileWriter.Code classInitializer(final ClassFileWriter writer, final int count) {
+        final ClassFileWriter.Code code = writer.code(3, 1)
+                .op(ClassFileWriter.Code.INVOKESTATIC, writer.methodRef("java/lang/invoke/MethodHandles", "lookup",
+                        "()Ljava/lang/invoke/MethodHandles$Lookup;"))
+                .ldc(writer.string("_"))
+                .ldc(writer.classRef("[Ljava/lang/Object;"))
+                .op(ClassFileWriter.Code.INVOKESTATIC, writer.methodRef("java/lang/invoke/MethodHandles", "classData",
+                        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)"
+                                + "Ljava/lang/Object;"))
+                .op(ClassFileWriter.Code.CHECKCAST, writer.classRef("[Ljava/lang/Object;"))
+                .astore(0);
+        for (int i = 0; i < count; i++) {
+            code.aload(0).iconst(i * 2).op(ClassFileWriter.Code.AALOAD)
+                    .op(ClassFileWriter.Code.CHECKCAST, writer.classRef(INSTRUCTION_CLASS))
+                    .op(ClassFileWriter.Code.PUTSTATIC, writer.fieldRef(writer.thisName(), "I" + i, INSTRUCTION));
+            code.aload(0).iconst(i * 2 + 1).op(ClassFileWriter.Code.AALOAD)
+                    .op(ClassFileWriter.Code.CHECKCAST, writer.classRef(HANDLER_CLASS))
+                    .op(ClassFileWriter.Code.PUTSTATIC, writer.fieldRef(writer.thisName(), "H" + i, HANDLER));
+        }
+        return code.op(ClassFileWriter.Code.RETURN);
+    }
+
+    // region Flag liveness.
+
+    /**
+     * Backward flag liveness pass over a block.
+     * @return for each instruction, the arithmetic flags that may be read after it before being overwritten.
+     */
+    static int[] liveFlags(final List<DecodedInstruction> instructions) {
+        final int[] live = new int[instructions.size()];
+        int flags = ARITHMETIC_FLAGS;                          // Live at the end of the block.
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            live[i] = flags;
+            final DecodedInstruction instruction = instructions.get(i);
+            flags = (flags & ~flagsWritten(instruction)) | flagsRead(instruction);
+        }
+        return live;
+    }
+
+    /**
+     * @return the arithmetic flags an instruction overwrites, if it is translated directly.
+     */
+    private static int flagsWritten(final DecodedInstruction instruction) {
+        if (!isDirect(instruction)) {
+            return 0;
+        }
+        final int opcode = instruction.opcode;
+        if (opcode < 0x40) {
+            return ARITHMETIC_FLAGS;
+        }
+        if (opcode < 0x50) {
+            return ARITHMETIC_FLAGS & ~Flags.CARRY;            // INC/DEC leave CF unchanged.
+        }
+        return opcode == 0xF5 || opcode == 0xF8 || opcode == 0xF9 ? Flags.CARRY : 0;
+    }
+
+    /**
+     * @return the arithmetic flags an instruction may read. All of them, unless it is translated directly.
+     */
+    private static int flagsRead(final DecodedInstruction instruction) {
+        if (!isDirect(instruction)) {
+            return ARITHMETIC_FLAGS;
+        }
+        final int opcode = instruction.opcode;
+        final int op = (opcode >> 3) & 0x7;
+        return (opcode < 0x40 && (op == ADC || op == SBB)) || opcode == 0xF5 ? Flags.CARRY : 0;
+    }
+
+    // endregion
+
+    /**
+     * int run(CPU cpu). Local 1 is the CPU.
+     * @param live flags live after each instruction, or null if all flags are live.
+     */
+    private ClassFileWriter.Code run(final ClassFileWriter writer, final List<DecodedInstruction> instructions,
+                                     final int[] live) {
+        final ClassFileWriter.Code code = writer.code(8, 2);
+        final boolean fetch = cpu.fetchListener != null;
+        int offset = 0;
+        int skippedLength = 0;                                 // Instructions not fetched since the last handler call.
+        int skipped = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            final DecodedInstruction instruction = instructions.get(i);
+            offset += instruction.length;
+            final int field = writer.fieldRef(writer.thisName(), "I" + i, INSTRUCTION);
+            if (isDirect(instruction)) {
+                if (fetch) {
+                    code.aload(1)
+                            .op(ClassFileWriter.Code.GETSTATIC, field)
+                            .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "fetchTranslated",
+                                    "(" + INSTRUCTION + ")V"));
+                } else {
+                    skippedLength += instruction.length;
+                    skipped++;
+                }
+                final boolean flagsLive = live == null || (live[i] & flagsWritten(instruction)) != 0;
+                direct(writer, code, instruction, flagsLive);
+                continue;
+            }
+            skip(writer, code, skippedLength, skipped);
+            skippedLength = 0;
+            skipped = 0;
+            code.aload(1)
+                    .op(ClassFileWriter.Code.GETSTATIC, field)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "enterTranslated",
+                            "(" + INSTRUCTION + ")V"))
+                    .op(ClassFileWriter.Code.GETSTATIC, writer.fieldRef(writer.thisName(), "H" + i, HANDLER))
+                    .iconst(instruction.opcode)
+                    .invokeinterface(writer.interfaceMethodRef(HANDLER_CLASS, "execute", "(I)V"), 1);
+            if (i < instructions.size() - 1) {
+                code.aload(1)
+                        .iconst(offset)
+                        .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "continueTranslated",
+                                "(I)Z"));
+                final int next = code.branch(ClassFileWriter.Code.IFNE);
+                code.iconst(i + 1).op(ClassFileWriter.Code.IRETURN);
+                code.bind(next);
+            }
+        }
+        skip(writer, code, skippedLength, skipped);
+        return code.iconst(instructions.size()).op(ClassFileWriter.Code.IRETURN);
+    }
+
+    /**
+     * Advances IP and the instruction count past a run of directly translated instructions that were not fetched.
+     */
+    private void skip(final ClassFileWriter writer, final ClassFileWriter.Code code, final int length,
+                      final int count) {
+        if (count > 0) {
+            code.aload(1)
+                    .iconst(length)
+                    .iconst(count)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(CPU_CLASS, "skipTranslated", "(II)V"));
+        }
+    }
+
+    /**
+     * @return true if the instruction has no prefixes, and only operates on registers and flags in a way that is
+     * translated directly into bytecode.
+     */
+    static boolean isDirect(final DecodedInstruction instruction) {
+        if (instruction.prefixCount != 0) {
+            return false;
+        }
+        final int opcode = instruction.opcode;
+        final boolean register = instruction.length > 1 && (instruction.bytes[1] & 0xC0) == 0xC0;
+        return switch (opcode) {
+            case 0x00, 0x01, 0x02, 0x03, 0x08, 0x09, 0x0A, 0x0B, 0x10, 0x11, 0x12, 0x13, 0x18, 0x19, 0x1A, 0x1B,
+                 0x20, 0x21, 0x22, 0x23, 0x28, 0x29, 0x2A, 0x2B, 0x30, 0x31, 0x32, 0x33, 0x38, 0x39, 0x3A, 0x3B,
+                 0x88, 0x89, 0x8A, 0x8B -> register;
+            case 0x04, 0x05, 0x0C, 0x0D, 0x14, 0x15, 0x1C, 0x1D, 0x24, 0x25, 0x2C, 0x2D, 0x34, 0x35, 0x3C, 0x3D,
+                 0x40, 0x41, 0x42, 0x43, 0x44, 0x45, 0x46, 0x47, 0x48, 0x49, 0x4A, 0x4B, 0x4C, 0x4D, 0x4E, 0x4F,
+                 0x90, 0x91, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97,
+                 0xB0, 0xB1, 0xB2, 0xB3, 0xB4, 0xB5, 0xB6, 0xB7, 0xB8, 0xB9, 0xBA, 0xBB, 0xBC, 0xBD, 0xBE, 0xBF,
+                 0xF5, 0xF8, 0xF9, 0xFC, 0xFD -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * Translates an instruction for which {@code isDirect} is true into bytecode operating directly on the register
+     * file. The instruction bytes have already been fetched (from the cache), if there is a fetch listener, so that IP,
+     * the instruction count and the listener are as if interpreted.
+     * @param flagsLive false if none of the flags written by the instruction are live, so only its result is computed.
+     */
+    private void direct(final ClassFileWriter writer, final ClassFileWriter.Code code,
+                        final DecodedInstruction instruction, final boolean flagsLive) {
+        final int opcode = instruction.opcode;
+        final int modRegRM = instruction.length > 1 ? instruction.bytes[1] & 0xFF : 0;
+        final int reg = (modRegRM >> 3) & 0x7;
+        final int rm = modRegRM & 0x7;
+        if (opcode < 0x40) {
+            arithmetic(writer, code, instruction, flagsLive);
+            return;
+        }
+        switch (opcode) {
+            case 0x40, 0x41, 0x42, 0x43, 0x44, 0x45, 0x46, 0x47 ->
+                    incDec16(writer, code, opcode & 0x7, "inc16", flagsLive);
+            case 0x48, 0x49, 0x4A, 0x4B, 0x4C, 0x4D, 0x4E, 0x4F ->
+                    incDec16(writer, code, opcode & 0x7, "dec16", flagsLive);
+            case 0x90 -> {
+                // NOP.
+            }
+            case 0x91, 0x92, 0x93, 0x94, 0x95, 0x96, 0x97 -> {
+                // file[r] = file[AX], file[AX] = file[r].
+                file(writer, code).iconst(opcode & 0x7);
+                file(writer, code).iconst(RegSet.AX_INDEX).op(ClassFileWriter.Code.IALOAD);
+                file(writer, code).iconst(RegSet.AX_INDEX);
+                file(writer, code).iconst(opcode & 0x7).op(ClassFileWriter.Code.IALOAD);
+                code.op(ClassFileWriter.Code.IASTORE).op(ClassFileWriter.Code.IASTORE);
+            }
+            case 0xB0, 0xB1, 0xB2, 0xB3, 0xB4, 0xB5, 0xB6, 0xB7 -> {
+                regSet(writer, code).iconst(opcode & 0x7).iconst(instruction.bytes[1] & 0xFF);
+                code.op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "set8", "(II)V"));
+            }
+            case 0xB8, 0xB9, 0xBA, 0xBB, 0xBC, 0xBD, 0xBE, 0xBF -> {
+                final int value = (instruction.bytes[1] & 0xFF) | (instruction.bytes[2] & 0xFF) << 8;
+                file(writer, code).iconst(opcode & 0x7).iconst(value).op(ClassFileWriter.Code.IASTORE);
+            }
+            case 0x88, 0x8A -> {
+                regSet(writer, code).iconst(opcode == 0x88 ? rm : reg);
+                regSet(writer, code).iconst(opcode == 0x88 ? reg : rm)
+                        .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "get8", "(I)I"))
+                        .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "set8", "(II)V"));
+            }
+            case 0x89, 0x8B -> {
+                file(writer, code).iconst(opcode == 0x89 ? rm : reg);
+                file(writer, code).iconst(opcode == 0x89 ? reg : rm).op(ClassFileWriter.Code.IALOAD);
+                code.op(ClassFileWriter.Code.IASTORE);
+            }
+            case 0xF5 -> {
+                flags(writer, code);
+                flags(writer, code)
+                        .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "isCarry", "()Z"))
+                        .iconst(1)
+                        .op(ClassFileWriter.Code.IXOR)
+                        .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "setCarry", "(Z)V"));
+            }
+            case 0xF8, 0xF9 -> flags(writer, code).iconst(opcode & 0x1)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "setCarry", "(Z)V"));
+            default -> flags(writer, code).iconst(opcode & 0x1)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "setDirectionDown", "(Z)V"));
+        }
+    }
+
+    /**
+     * reg.set16(r, alu.inc16/dec16((short) reg.get16(r))), or reg.set16(r, reg.get16(r) +/- 1) if the flags are dead.
+     */
+    private void incDec16(final ClassFileWriter writer, final ClassFileWriter.Code code, final int r,
+                          final String method, final boolean flagsLive) {
+        regSet(writer, code).iconst(r);
+        if (flagsLive) {
+            alu(writer, code);
+        }
+        regSet(writer, code).iconst(r)
+                .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "get16", "(I)I"));
+        if (flagsLive) {
+            code.op(ClassFileWriter.Code.I2S)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(ALU_CLASS, method, "(S)S"));
+        } else {
+            code.iconst(1).op(method.equals("inc16") ? ClassFileWriter.Code.IADD : ClassFileWriter.Code.ISUB);
+        }
+        code.op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "set16", "(II)V"));
+    }
+
+    /**
+     * ADD, OR, ADC, SBB, AND, SUB, XOR and CMP with register operands (0x00 - 0x3B), or AL/AX and an immediate operand
+     * (0x04 - 0x3D): reg.set8/set16(dst, alu.op8/op16(a, b[, carry])). With dead flags ADD, OR, AND, SUB and XOR are
+     * computed with the equivalent bytecode, and CMP does nothing.
+     */
+    private void arithmetic(final ClassFileWriter writer, final ClassFileWriter.Code code,
+                            final DecodedInstruction instruction, final boolean flagsLive) {
+        final int opcode = instruction.opcode;
+        final int op = (opcode >> 3) & 0x7;
+        final boolean word = (opcode & 0x1) != 0;
+        final boolean immediate = (opcode & 0x4) != 0;
+        final int modRegRM = instruction.bytes[1] & 0xFF;
+        final int reg = (modRegRM >> 3) & 0x7;
+        final int rm = modRegRM & 0x7;
+        final int dst = immediate ? RegSet.AX_INDEX : (opcode & 0x2) != 0 ? reg : rm;
+        final boolean alu = flagsLive || op == ADC || op == SBB;
+        if (!alu && op == CMP) {
+            return;
+        }
+        final String size = word ? "16" : "8";
+        if (op != CMP) {
+            regSet(writer, code).iconst(dst);
+        }
+        if (alu) {
+            alu(writer, code);
+        }
+        regSet(writer, code).iconst(dst)
+                .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "get" + size, "(I)I"));
+        if (alu) {
+            code.op(word ? ClassFileWriter.Code.I2S : ClassFileWriter.Code.I2B);
+        }
+        if (immediate) {
+            code.iconst(word ? (short) ((instruction.bytes[1] & 0xFF) | instruction.bytes[2] << 8)
+                    : instruction.bytes[1]);
+        } else {
+            regSet(writer, code).iconst((opcode & 0x2) != 0 ? rm : reg)
+                    .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "get" + size, "(I)I"));
+            if (alu) {
+                code.op(word ? ClassFileWriter.Code.I2S : ClassFileWriter.Code.I2B);
+            }
+        }
+        if (alu) {
+            final String method = ALU_METHODS[op] + size;
+            final String operand = word ? "S" : "B";
+            if (op == ADD || op == ADC || op == SBB || op == SUB || op == CMP) {
+                if (op == ADC || op == SBB) {
+                    flags(writer, code)
+                            .op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(FLAGS_CLASS, "isCarry", "()Z"));
+                } else {
+                    code.iconst(0);
+                }
+                code.op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(ALU_CLASS, method,
+                        "(" + operand + operand + "Z)" + operand));
+            } else {
+                code.op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(ALU_CLASS, method, "(SS)" + operand));
+            }
+        } else {
+            code.op(ALU_OPCODES[op]);
+        }
+        if (op == CMP) {
+            code.op(ClassFileWriter.Code.POP);
+        } else {
+            code.op(ClassFileWriter.Code.INVOKEVIRTUAL, writer.methodRef(REG_SET_CLASS, "set" + size, "(II)V"));
+        }
+    }
+
+    /**
+     * Pushes cpu.alu.
+     */
+    private void alu(final ClassFileWriter writer, final ClassFileWriter.Code code) {
+        code.aload(1).op(ClassFileWriter.Code.GETFIELD, writer.fieldRef(CPU_CLASS, "alu", "L" + ALU_CLASS + ";"));
+    }
+
+    /**
+     * Pushes cpu.reg.
+     */
+    private ClassFileWriter.Code regSet(final ClassFileWriter writer, final ClassFileWriter.Code code) {
+        return code.aload(1).op(ClassFileWriter.Code.GETFIELD, writer.fieldRef(CPU_CLASS, "reg",
+                "L" + REG_SET_CLASS + ";"));
+    }
+
+    /**
+     * Pushes cpu.reg.file.
+     */
+    private ClassFileWriter.Code file(final ClassFileWriter writer, final ClassFileWriter.Code code) {
+        return regSet(writer, code).op(ClassFileWriter.Code.GETFIELD, writer.fieldRef(REG_SET_CLASS, "file", "[I"));
+    }
+
+    /**
+     * Pushes cpu.reg.flags.
+     */
+    private ClassFileWriter.Code flags(final ClassFileWriter writer, final ClassFileWriter.Code code) {
+        return regSet(writer, code).op(ClassFileWriter.Code.GETFIELD, writer.fieldRef(REG_SET_CLASS, "flags",
+                "L" + FLAGS_CLASS + ";"));
+    }
+}
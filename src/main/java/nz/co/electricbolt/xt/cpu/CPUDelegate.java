@@ -6,18 +6,9 @@ package nz.co.electricbolt.xt.cpu;
 public interface CPUDelegate {
 
     /**
-     * Invoked when a byte has been fetched from memory for use in instruction decoding and execution.
-     */
-     void fetched8(final byte value, final long instructionCount);
-
-    /**
-     * Invoked when a word was fetched from memory for use in instruction decoding and execution.
-     */
-    void fetched16(final short value, final long instructionCount);
-
-    /**
-     * Invoked when an interrupt occurs due to 'software' INT, INT3, INTO instructions or as a result of 'hardware'
-     * error e.g. divide by zero, quotient overflow or AAM with base 0. Flags, CS:IP have been pushed onto the stack
+     * Invoked when an interrupt occurs due to 'software' INT, INT3, INTO instructions, as a result of 'hardware'
+     * error e.g. divide by zero, quotient overflow or AAM with base 0, or when a hardware interrupt request is delivered
+     * (see {@code CPU.requestInterrupt}). Flags, CS:IP have been pushed onto the stack
      * and CS:IP was updated to the interrupt vector. If the delegate wants to return from the interrupt, it must call
      * {@code cpu.iret()} method or pop the stack manually.
      *
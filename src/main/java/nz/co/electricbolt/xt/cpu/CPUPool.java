@@ -0,0 +1,49 @@
+// CPUPool.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Thread safe pool of CPUs, for running many programs in one JVM without constructing a CPU and its memory for each.
+ * A released CPU is reset to its power-on state and default options before it is acquired again.
+ */
+public final class CPUPool {
+
+    private final boolean memoryProtection;
+    private final ConcurrentLinkedDeque<CPU> cpus = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param memoryProtection false for CPUs with {@code UnprotectedMemory}, which never checks memory permissions.
+     */
+    public CPUPool(final boolean memoryProtection) {
+        this.memoryProtection = memoryProtection;
+    }
+
+    /**
+     * @return a CPU in its power-on state with default options, constructed if the pool is empty.
+     */
+    public CPU acquire(final CPUDelegate delegate) {
+        final CPU cpu = cpus.pollFirst();
+        if (cpu == null) {
+            return new CPU(delegate, memoryProtection);
+        }
+        cpu.delegate = delegate;
+        return cpu;
+    }
+
+    /**
+     * Returns a CPU acquired from this pool, which must no longer be used.
+     */
+    public void release(final CPU cpu) {
+        cpu.reset();
+        cpu.delegate = null;
+        cpu.setFetchListener(null);
+        cpu.setTranslation(false);
+        cpu.setFlagLiveness(true);
+        cpu.setSuperinstructions(true);
+        cpu.setDelayLoops(true);
+        cpus.addFirst(cpu);
+    }
+}
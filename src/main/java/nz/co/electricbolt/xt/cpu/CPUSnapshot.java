@@ -0,0 +1,34 @@
+// CPUSnapshot.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Immutable state of a CPU and its memory, taken by {@code CPU.snapshot()} and restored by {@code CPU.restore()}. The
+ * snapshot shares the memory frames of the CPU it was taken from, and of every CPU it is restored into, until they
+ * write to them, so it costs a table of frame references rather than a copy of memory. A snapshot may be restored any
+ * number of times, into any CPU, from any thread.
+ */
+public final class CPUSnapshot {
+
+    final int[] registers;
+    final short flags;
+    final long instructionCount;
+    final int pendingInterrupts;
+    final long timerInterval;
+    final long timerDeadline;
+    final byte[][] frames;                                  // Never written.
+    final byte[] permissions;
+
+    CPUSnapshot(final int[] registers, final short flags, final long instructionCount, final int pendingInterrupts,
+                final long timerInterval, final long timerDeadline, final byte[][] frames, final byte[] permissions) {
+        this.registers = registers;
+        this.flags = flags;
+        this.instructionCount = instructionCount;
+        this.pendingInterrupts = pendingInterrupts;
+        this.timerInterval = timerInterval;
+        this.timerDeadline = timerDeadline;
+        this.frames = frames;
+        this.permissions = permissions;
+    }
+}
@@ -0,0 +1,386 @@
+// ClassFileWriter.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Java 17 class file writer used by the {@code BlockTranslator}. Supports the constant pool entries, fields and
+ * straight line methods with forward branches that translated blocks need. Every branch target has the same locals as
+ * the method entry and an empty operand stack, so the stack map frames are all same_frame.
+ */
+final class ClassFileWriter {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_FINAL = 0x0010;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CLASS_FILE_VERSION = 61;          // Java 17.
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private int poolCount = 1;
+
+    private final ByteArrayOutputStream memberBytes = new ByteArrayOutputStream();
+    private final DataOutputStream fields = new DataOutputStream(memberBytes);
+    private int fieldCount;
+    private final List<byte[]> methods = new ArrayList<>();
+
+    private final String name;
+    private final int thisClass;
+    private final int superClass;
+    private final int access;
+
+    ClassFileWriter(final int access, final String name, final String superName) {
+        this.access = access;
+        this.name = name;
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+    }
+
+    String thisName() {
+        return name;
+    }
+
+    // region Constant pool.
+
+    private int constant(final String key, final ConstantWriter writer) {
+        final Integer index = poolIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndexes.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private interface ConstantWriter {
+        void write() throws IOException;
+    }
+
+    int utf8(final String value) {
+        return constant("U" + value, () -> {
+            pool.writeByte(1);
+            pool.writeUTF(value);
+        });
+    }
+
+    int integer(final int value) {
+        return constant("I" + value, () -> {
+            pool.writeByte(3);
+            pool.writeInt(value);
+        });
+    }
+
+    int classRef(final String internalName) {
+        final int name = utf8(internalName);
+        return constant("C" + internalName, () -> {
+            pool.writeByte(7);
+            pool.writeShort(name);
+        });
+    }
+
+    int string(final String value) {
+        final int utf8 = utf8(value);
+        return constant("S" + value, () -> {
+            pool.writeByte(8);
+            pool.writeShort(utf8);
+        });
+    }
+
+    private int nameAndType(final String name, final String descriptor) {
+        final int nameIndex = utf8(name);
+        final int descriptorIndex = utf8(descriptor);
+        return constant("N" + name + ":" + descriptor, () -> {
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberRef(final int tag, final String owner, final String name, final String descriptor) {
+        final int ownerIndex = classRef(owner);
+        final int nameAndTypeIndex = nameAndType(name, descriptor);
+        return constant(tag + owner + "." + name + ":" + descriptor, () -> {
+            pool.writeByte(tag);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    int fieldRef(final String owner, final String name, final String descriptor) {
+        return memberRef(9, owner, name, descriptor);
+    }
+
+    int methodRef(final String owner, final String name, final String descriptor) {
+        return memberRef(10, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(final String owner, final String name, final String descriptor) {
+        return memberRef(11, owner, name, descriptor);
+    }
+
+    // endregion
+
+    /**
+     * @return a new method body, to be added with {@code method}.
+     */
+    Code code(final int maxStack, final int maxLocals) {
+        return new Code(maxStack, maxLocals);
+    }
+
+    void field(final int access, final String name, final String descriptor) {
+        try {
+            fields.writeShort(access);
+            fields.writeShort(utf8(name));
+            fields.writeShort(utf8(descriptor));
+            fields.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fieldCount++;
+    }
+
+    void method(final int access, final String name, final String descriptor, final Code code) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1);
+            final byte[] stackMap = code.stackMapTable();
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + code.length() + (stackMap == null ? 0 : 6 + stackMap.length));
+            out.writeShort(code.maxStack);
+            out.writeShort(code.maxLocals);
+            out.writeInt(code.length());
+            out.write(code.bytes, 0, code.length());
+            out.writeShort(0);                                   // Exception table.
+            if (stackMap == null) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                out.writeShort(utf8("StackMapTable"));
+                out.writeInt(stackMap.length);
+                out.write(stackMap);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    byte[] toByteArray() {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+            out.writeShort(poolCount);
+            poolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);                                   // Interfaces.
+            out.writeShort(fieldCount);
+            memberBytes.writeTo(out);
+            out.writeShort(methods.size());
+            for (final byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);                                   // Attributes.
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Bytecode of a single method.
+     */
+    final class Code {
+
+        static final int ALOAD = 0x19;
+        static final int ASTORE = 0x3A;
+        static final int IALOAD = 0x2E;
+        static final int AALOAD = 0x32;
+        static final int IASTORE = 0x4F;
+        static final int POP = 0x57;
+        static final int DUP = 0x59;
+        static final int IADD = 0x60;
+        static final int ISUB = 0x64;
+        static final int IAND = 0x7E;
+        static final int IOR = 0x80;
+        static final int IXOR = 0x82;
+        static final int I2B = 0x91;
+        static final int I2S = 0x93;
+        static final int IFNE = 0x9A;
+        static final int IRETURN = 0xAC;
+        static final int RETURN = 0xB1;
+        static final int GETSTATIC = 0xB2;
+        static final int PUTSTATIC = 0xB3;
+        static final int GETFIELD = 0xB4;
+        static final int INVOKEVIRTUAL = 0xB6;
+        static final int INVOKESPECIAL = 0xB7;
+        static final int INVOKESTATIC = 0xB8;
+        static final int INVOKEINTERFACE = 0xB9;
+        static final int CHECKCAST = 0xC0;
+
+        private byte[] bytes = new byte[256];
+        private int length;
+        private final List<Integer> frames = new ArrayList<>();
+        final int maxStack;
+        final int maxLocals;
+
+        private Code(final int maxStack, final int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        int length() {
+            return length;
+        }
+
+        Code op(final int opcode) {
+            u1(opcode);
+            return this;
+        }
+
+        Code aload(final int local) {
+            if (local <= 3) {
+                u1(0x2A + local);                                // aload_<n>.
+            } else {
+                u1(ALOAD);
+                u1(local);
+            }
+            return this;
+        }
+
+        Code astore(final int local) {
+            if (local <= 3) {
+                u1(0x4B + local);                                // astore_<n>.
+            } else {
+                u1(ASTORE);
+                u1(local);
+            }
+            return this;
+        }
+
+        Code iconst(final int value) {
+            if (value >= -1 && value <= 5) {
+                u1(0x03 + value);                                // iconst_<n>.
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(0x10);                                        // bipush.
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(0x11);                                        // sipush.
+                u2(value);
+            } else {
+                ldc(integer(value));
+            }
+            return this;
+        }
+
+        Code ldc(final int constant) {
+            if (constant < 256) {
+                u1(0x12);                                        // ldc.
+                u1(constant);
+            } else {
+                u1(0x13);                                        // ldc_w.
+                u2(constant);
+            }
+            return this;
+        }
+
+        /**
+         * Field, method and class instructions taking a constant pool index.
+         */
+        Code op(final int opcode, final int constant) {
+            u1(opcode);
+            u2(constant);
+            return this;
+        }
+
+        Code invokeinterface(final int constant, final int argumentSlots) {
+            u1(INVOKEINTERFACE);
+            u2(constant);
+            u1(argumentSlots + 1);
+            u1(0);
+            return this;
+        }
+
+        /**
+         * Emits a forward branch.
+         * @return the branch position, to be passed to {@code bind}.
+         */
+        int branch(final int opcode) {
+            final int position = length;
+            u1(opcode);
+            u2(0);
+            return position;
+        }
+
+        /**
+         * Binds a forward branch to the current position.
+         */
+        void bind(final int branch) {
+            final int offset = length - branch;
+            bytes[branch + 1] = (byte) (offset >> 8);
+            bytes[branch + 2] = (byte) offset;
+            if (frames.isEmpty() || frames.get(frames.size() - 1) != length) {
+                frames.add(length);
+            }
+        }
+
+        private byte[] stackMapTable() {
+            if (frames.isEmpty()) {
+                return null;
+            }
+            final ByteArrayOutputStream table = new ByteArrayOutputStream();
+            table.write(frames.size() >> 8);
+            table.write(frames.size());
+            int previous = -1;
+            for (final int frame : frames) {
+                final int delta = frame - previous - 1;
+                if (delta < 64) {
+                    table.write(delta);                          // same_frame.
+                } else {
+                    table.write(251);                            // same_frame_extended.
+                    table.write(delta >> 8);
+                    table.write(delta);
+                }
+                previous = frame;
+            }
+            return table.toByteArray();
+        }
+
+        private void u1(final int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        private void u2(final int value) {
+            u1(value >> 8);
+            u1(value);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+// CodeCache.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the code of a program image, keyed by a hash of the image after relocation. When a program exits,
+ * the instructions cached from its image are saved, together with the class files of the basic blocks found by
+ * recursive traversal from the entry point and the branch targets observed while it ran. When the same image is next
+ * loaded, the instructions are put in the {@code InstructionCache} before execution starts.
+ * <p>
+ * Each block also records whether it was hot, i.e. translated during the run that saved it. Hot blocks are translated
+ * from their class files as soon as the image is loaded, so a short run reaches full speed without first executing
+ * each block {@code BlockTranslator.THRESHOLD} times. Other blocks keep their class files until they become hot. Code
+ * not covered by the cache is decoded and translated as usual.
+ * <p>
+ * The cache file records a hash of the emulator's class files, so a cache saved by a different build, whose class
+ * files may not define or may not match its handlers, is ignored.
+ */
+public final class CodeCache {
+
+    private static final int MAGIC = 0x58544343;                 // "XTCC".
+    private static final int VERSION = 4;
+    static final int BUILD_LENGTH = 32;                          // SHA-256.
+    private static final byte[] BUILD = build();                 // Null if the build can't be identified.
+
+    /**
+     * Class file of a translated block loaded from the cache.
+     */
+    static final class Translation {
+
+        final byte[] classFile;
+        final int steps;                                        // Number of instructions in the block.
+
+        Translation(final byte[] classFile, final int steps) {
+            this.classFile = classFile;
+            this.steps = steps;
+        }
+    }
+
+    private final CPU cpu;
+    private final Path directory;
+    private final Set<Integer> entries = new HashSet<>();       // Block entries loaded from the cache.
+    private Path file;
+    private int from;
+    private int to;
+    private int entryPoint;
+    private int loadedInstructions;
+    private int loadedBlocks;
+    private int loadedHotBlocks;
+
+    /**
+     * @param directory host directory holding the cache files.
+     */
+    public CodeCache(final CPU cpu, final Path directory) {
+        this.cpu = cpu;
+        this.directory = directory;
+    }
+
+    /**
+     * Invoked once the program image has been loaded into linear addresses from (inclusive) - to (exclusive) and
+     * relocated, and CS:IP set to its entry point. Loads the cached instructions and blocks of the image, if any. A
+     * missing, outdated or unreadable cache file is ignored.
+     */
+    public void load(final int from, final int to) {
+        this.from = from;
+        this.to = to;
+        this.entryPoint = (cpu.reg.getSegBase(RegSet.CS_SEGMENT) + cpu.reg.getIP()) % Memory.MEMORY_SIZE;
+        file = directory.resolve(hash() + ".xtc");
+        if (BUILD == null || !Files.isReadable(file)) {
+            return;
+        }
+        final List<Integer> addresses = new ArrayList<>();
+        final List<DecodedInstruction> instructions = new ArrayList<>();
+        final List<Integer> blockAddresses = new ArrayList<>();
+        final List<Translation> translations = new ArrayList<>();
+        final List<Boolean> hot = new ArrayList<>();
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return;
+            }
+            final byte[] build = new byte[BUILD_LENGTH];
+            in.readFully(build);
+            if (!Arrays.equals(build, BUILD) || in.readInt() != from || in.readInt() != to) {
+                return;
+            }
+            final int options = in.readInt();
+            for (int i = in.readInt(); i > 0; i--) {
+                final int address = in.readInt();
+                final byte[] bytes = new byte[in.readUnsignedByte()];
+                in.readFully(bytes);
+                final int wordFetches = in.readInt();
+                final int prefixCount = in.readUnsignedByte();
+                final int opcode = in.readUnsignedByte();
+                final int segmentOverride = in.readByte();
+                final int repeatFlag = in.readByte();               // -1 none, 0 REPNE, 1 REPE.
+                if (address < from || address + bytes.length > to || bytes.length > DecodedInstruction.MAX_LENGTH) {
+                    return;
+                }
+                addresses.add(address);
+                instructions.add(new DecodedInstruction(bytes, wordFetches, prefixCount, opcode, cpu.opcodes[opcode],
+                        segmentOverride, repeatFlag != -1, repeatFlag == -1 ? null : repeatFlag == 1));
+            }
+            for (int i = in.readInt(); i > 0; i--) {
+                blockAddresses.add(in.readInt());
+                final int steps = in.readUnsignedByte();
+                hot.add(in.readBoolean());
+                final byte[] classFile = new byte[in.readInt()];
+                in.readFully(classFile);
+                // Blocks translated with different options are translated again.
+                translations.add(options == options() ? new Translation(classFile, steps) : null);
+            }
+        } catch (IOException e) {
+            return;
+        }
+        final InstructionCache instructionCache = cpu.memory.instructionCache;
+        for (int i = 0; i < instructions.size(); i++) {
+            final DecodedInstruction instruction = instructions.get(i);
+            // The hash should ensure the code is unchanged, but instructions must never disagree with memory.
+            if (cpu.memory.isExecutable(addresses.get(i), instruction.bytes, instruction.length)) {
+                instructionCache.put(addresses.get(i), instruction);
+                loadedInstructions++;
+            }
+        }
+        if (cpu.translator != null) {
+            for (int i = 0; i < translations.size(); i++) {
+                final DecodedInstruction instruction = instructionCache.get(blockAddresses.get(i));
+                if (instruction != null) {
+                    instruction.translation = translations.get(i);
+                    if (hot.get(i)) {
+                        instruction.block = cpu.translator.translate(blockAddresses.get(i));
+                        loadedHotBlocks++;
+                    }
+                    entries.add(blockAddresses.get(i));
+                    loadedBlocks++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Invoked when the program exits. Saves the instructions cached from the image, and the translations of the
+     * blocks found from them and which of those are hot if translation is enabled, unless that adds nothing to what was
+     * loaded. The file is
+     * written to a temporary file which then replaces the cache file, so concurrent runs never read a partial file.
+     */
+    public void save() {
+        if (file == null || BUILD == null) {
+            return;
+        }
+        final InstructionCache instructionCache = cpu.memory.instructionCache;
+        final List<Integer> addresses = new ArrayList<>();
+        for (int address = from; address < to; address++) {
+            final DecodedInstruction instruction = instructionCache.get(address);
+            if (instruction != null && address + instruction.length <= to) {
+                addresses.add(address);
+            }
+        }
+        final List<Integer> blockAddresses = new ArrayList<>();
+        final List<List<DecodedInstruction>> blockInstructions = new ArrayList<>();
+        if (cpu.translator != null) {
+            for (final int address : blocks()) {
+                final List<DecodedInstruction> instructions = cpu.translator.instructions(address);
+                if (instructions.size() >= 2) {
+                    blockAddresses.add(address);
+                    blockInstructions.add(instructions);
+                }
+            }
+        }
+        int hotBlocks = 0;
+        for (final int address : blockAddresses) {
+            if (instructionCache.get(address).block != null) {
+                hotBlocks++;
+            }
+        }
+        if (addresses.size() <= loadedInstructions && blockAddresses.size() <= loadedBlocks
+                && hotBlocks <= loadedHotBlocks) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, "xtc", ".tmp");
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.write(BUILD);
+                out.writeInt(from);
+                out.writeInt(to);
+                out.writeInt(options());
+                out.writeInt(addresses.size());
+                for (final int address : addresses) {
+                    final DecodedInstruction instruction = instructionCache.get(address);
+                    out.writeInt(address);
+                    out.writeByte(instruction.length);
+                    out.write(instruction.bytes);
+                    out.writeInt(instruction.wordFetches);
+                    out.writeByte(instruction.prefixCount);
+                    out.writeByte(instruction.opcode);
+                    out.writeByte(instruction.segmentOverride);
+                    out.writeByte(instruction.repeatFlag == null ? -1 : instruction.repeatFlag ? 1 : 0);
+                }
+                out.writeInt(blockAddresses.size());
+                for (int i = 0; i < blockAddresses.size(); i++) {
+                    final byte[] classFile = cpu.translator.classFile(blockInstructions.get(i));
+                    out.writeInt(blockAddresses.get(i));
+                    out.writeByte(blockInstructions.get(i).size());
+                    out.writeBoolean(instructionCache.get(blockAddresses.get(i)).block != null);
+                    out.writeInt(classFile.length);
+                    out.write(classFile);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ignored) {
+            // The cache is only an optimization.
+        }
+    }
+
+    /**
+     * Recursive traversal of the cached instructions of the image, from the entry point, the block entries loaded
+     * from the cache and the branch targets observed while the program ran. Direct branch targets, and the
+     * instructions following conditional branches, calls and the end of each block, are followed.
+     * @return the linear addresses of the basic blocks found.
+     */
+    private Set<Integer> blocks() {
+        final InstructionCache instructionCache = cpu.memory.instructionCache;
+        final Deque<Integer> pending = new ArrayDeque<>(entries);
+        pending.add(entryPoint);
+        for (int address = from; address < to; address++) {
+            final DecodedInstruction instruction = instructionCache.get(address);
+            if (instruction != null && (instruction.executions > 0 || instruction.block != null)) {
+                pending.add(address);
+            }
+        }
+        final Set<Integer> blocks = new TreeSet<>();
+        while (!pending.isEmpty()) {
+            final int address = pending.poll();
+            if (address < from || address >= to || instructionCache.get(address) == null || !blocks.add(address)) {
+                continue;
+            }
+            final List<DecodedInstruction> instructions = cpu.translator.instructions(address);
+            int next = address;
+            for (final DecodedInstruction instruction : instructions) {
+                next += instruction.length;
+                final int opcode = instruction.opcode;
+                if (instruction.prefixCount == 0 && ((opcode >= 0x70 && opcode <= 0x7F)
+                        || (opcode >= 0xE0 && opcode <= 0xE3) || opcode == 0xEB)) {
+                    // Jcc, LOOP, JCXZ, JMP short.
+                    pending.add(next + instruction.bytes[1]);
+                } else if (instruction.prefixCount == 0 && (opcode == 0xE8 || opcode == 0xE9)) {
+                    // CALL, JMP near.
+                    pending.add(next + (short) ((instruction.bytes[1] & 0xFF) | instruction.bytes[2] << 8));
+                }
+            }
+            if (fallsThrough(instructions.get(instructions.size() - 1))) {
+                pending.add(next);
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the options that translated blocks are specialized for.
+     */
+    private int options() {
+        return (cpu.flagLiveness ? 1 : 0) | (cpu.fetchListener != null ? 2 : 0);
+    }
+
+    /**
+     * @return true if execution may continue with the following instruction, including on return from a call or
+     * interrupt.
+     */
+    private static boolean fallsThrough(final DecodedInstruction instruction) {
+        return switch (instruction.opcode) {
+            case 0xC2, 0xC3, 0xCA, 0xCB, 0xCF, 0xE9, 0xEA, 0xEB, 0xF4 -> false;     // RET, RETF, IRET, JMP, HLT.
+            case 0xFF -> {
+                final int reg = (instruction.bytes[instruction.prefixCount + 1] >> 3) & 0x7;
+                yield reg != 4 && reg != 5;                                     // JMP r/m16, JMP m16:16.
+            }
+            default -> true;
+        };
+    }
+
+    /**
+     * @return the SHA-256 hash of the class files of the emulator, i.e. of its jar file or of every file in its
+     * classes directory, or null if they can't be read.
+     */
+    private static byte[] build() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final CodeSource source = CodeCache.class.getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return null;
+            }
+            final Path location = Path.of(source.getLocation().toURI());
+            if (Files.isDirectory(location)) {
+                try (final Stream<Path> paths = Files.walk(location)) {
+                    for (final Path path : paths.filter(Files::isRegularFile).sorted().toList()) {
+                        digest.update(location.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(path));
+                    }
+                }
+            } else {
+                digest.update(Files.readAllBytes(location));
+            }
+            return digest.digest();
+        } catch (IOException | URISyntaxException | IllegalArgumentException | SecurityException e) {
+            return null;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the hex SHA-256 hash of the image and its load address.
+     */
+    private String hash() {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(new byte[] {(byte) (from >> 16), (byte) (from >> 8), (byte) from});
+            digest.update(cpu.memory.getLinearData(from, to - from));
+            final StringBuilder result = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                result.append(String.format("%02x", b));
+            }
+            return result.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
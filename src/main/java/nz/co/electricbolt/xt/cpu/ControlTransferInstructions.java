@@ -0,0 +1,196 @@
+// ControlTransferInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Jcc, JCXZ, LOOP, JMP, CALL, RET and INT/INTO/IRET instructions.
+ */
+public class ControlTransferInstructions {
+
+    private final CPU cpu;
+
+    ControlTransferInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    // region Jcc.
+
+    /**
+     * Jcc rel8 (0x70 - 0x7F) - Jump short if condition code (low nibble of the opcode) is true.
+     */
+    void jcc(final int opcode) {
+        cpu.jcc(condition(opcode & 0xF));
+    }
+
+    /**
+     * Evaluates one of the sixteen condition codes encoded in the low nibble of the Jcc opcodes.
+     */
+    boolean condition(final int cc) {
+        final Flags flags = cpu.reg.flags;
+        return switch (cc) {
+            case 0x0 -> flags.isOverflow();                                            // JO
+            case 0x1 -> flags.isNotOverflow();                                         // JNO
+            case 0x2 -> flags.isCarry();                                               // JB/JNAE/JC
+            case 0x3 -> flags.isNotCarry();                                            // JNB/JAE/JNC
+            case 0x4 -> flags.isZero();                                                // JE/JZ
+            case 0x5 -> flags.isNotZero();                                             // JNE/JNZ
+            case 0x6 -> flags.isCarry() || flags.isZero();                             // JBE/JNA
+            case 0x7 -> flags.isNotCarry() && flags.isNotZero();                       // JNBE/JA
+            case 0x8 -> flags.isSignNegative();                                        // JS
+            case 0x9 -> flags.isSignPositive();                                        // JNS
+            case 0xA -> flags.isParityEven();                                          // JP/JPE
+            case 0xB -> flags.isParityOdd();                                           // JNP/JPO
+            case 0xC -> flags.isSignPositive() != flags.isNotOverflow();               // JL/JNGE
+            case 0xD -> flags.isSignNegative() == flags.isOverflow();                  // JNL/JGE
+            case 0xE -> flags.isZero() || (flags.isSignNegative() != flags.isOverflow()); // JLE/JNG
+            default -> flags.isNotZero() && (flags.isSignNegative() == flags.isOverflow()); // JNLE/JG
+        };
+    }
+
+    /**
+     * JCXZ rel8 - Jump short if CX register is 0.
+     */
+    void jcxz(final int opcode) {
+        cpu.jcc(cpu.reg.CX.getValue() == 0);
+    }
+
+    /**
+     * LOOPNZ/LOOPNE (0xE0), LOOPZ/LOOPE (0xE1) and LOOP (0xE2) rel8 - DEC CX; jump short if CX != 0 (and ZF
+     * condition).
+     */
+    void loop(final int opcode) {
+        cpu.loop(switch (opcode) {
+            case 0xE0 -> cpu.reg.flags.isNotZero();
+            case 0xE1 -> cpu.reg.flags.isZero();
+            default -> true;
+        });
+    }
+
+    // endregion
+
+    // region JMP.
+
+    /**
+     * JMP rel16 - Jump near, displacement relative to next instruction.
+     */
+    void jmpRel16(final int opcode) {
+        final short offset = cpu.fetch16();
+        cpu.reg.IP.setValue((short) (cpu.reg.IP.getValue() + offset));
+        cpu.checkInterrupts();
+    }
+
+    /**
+     * JMP ptr16:16 - Jump intersegment, 4-byte immediate address.
+     */
+    void jmpFar(final int opcode) {
+        final short ip = cpu.fetch16();
+        final short cs = cpu.fetch16();
+        cpu.reg.IP.setValue(ip);
+        cpu.reg.CS.setValue(cs);
+    }
+
+    /**
+     * JMP rel8 - Jump short.
+     */
+    void jmpRel8(final int opcode) {
+        final byte offset = cpu.fetch8();
+        cpu.reg.IP.setValue((short) (cpu.reg.IP.getValue() + offset));
+        cpu.checkInterrupts();
+    }
+
+    // endregion
+
+    // region CALL/RET.
+
+    /**
+     * CALL rel16 - Call near, displacement relative to next instruction.
+     */
+    void callRel16(final int opcode) {
+        final short offset = cpu.fetch16();
+        cpu.push16(cpu.reg.IP.getValue());
+        cpu.reg.IP.setValue((short) (cpu.reg.IP.getValue() + offset));
+    }
+
+    /**
+     * CALL ptr16:16 - Call intersegment, to full pointer given (far call).
+     */
+    void callFar(final int opcode) {
+        final short offset = cpu.fetch16();
+        final short segment = cpu.fetch16();
+        cpu.push16(cpu.reg.CS.getValue());
+        cpu.push16(cpu.reg.IP.getValue());
+        cpu.reg.CS.setValue(segment);
+        cpu.reg.IP.setValue(offset);
+    }
+
+    /**
+     * RET imm16 - Return (near), popping off N additional bytes.
+     */
+    void retImm16(final int opcode) {
+        final short additionalPopBytes = cpu.fetch16();
+        cpu.reg.IP.setValue(cpu.pop16());
+        cpu.reg.SP.add(additionalPopBytes);
+    }
+
+    /**
+     * RET - Return (near).
+     */
+    void ret(final int opcode) {
+        cpu.reg.IP.setValue(cpu.pop16());
+    }
+
+    /**
+     * RETF imm16 - Return (far), popping off N additional bytes.
+     */
+    void retfImm16(final int opcode) {
+        final short additionalPopBytes = cpu.fetch16();
+        cpu.reg.IP.setValue(cpu.pop16());
+        cpu.reg.CS.setValue(cpu.pop16());
+        cpu.reg.SP.add(additionalPopBytes);
+    }
+
+    /**
+     * RETF - Return (far).
+     */
+    void retf(final int opcode) {
+        cpu.reg.IP.setValue(cpu.pop16());
+        cpu.reg.CS.setValue(cpu.pop16());
+    }
+
+    // endregion
+
+    // region INT/IRET.
+
+    /**
+     * INT3 - Interrupt 3 -- trap to debugger.
+     */
+    void int3(final int opcode) {
+        cpu.interrupt((byte) 3);
+    }
+
+    /**
+     * INT imm8 - Interrupt numbered by immediate byte.
+     */
+    void intImm8(final int opcode) {
+        cpu.interrupt(cpu.fetch8());
+    }
+
+    /**
+     * INTO - Interrupt 4 -- if overflow flag is 1.
+     */
+    void into(final int opcode) {
+        if (cpu.reg.flags.isOverflow()) {
+            cpu.interrupt((byte) 4);
+        }
+    }
+
+    /**
+     * IRET - Interrupt return (far return and pop flags).
+     */
+    void iret(final int opcode) {
+        cpu.iret();
+    }
+
+    // endregion
+}
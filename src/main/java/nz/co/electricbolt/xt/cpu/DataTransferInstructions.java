@@ -0,0 +1,258 @@
+// DataTransferInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * MOV, XCHG, PUSH/POP, LEA, LES/LDS and XLAT instructions.
+ */
+public class DataTransferInstructions {
+
+    private final CPU cpu;
+
+    DataTransferInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    // region PUSH/POP.
+
+    /**
+     * PUSH ES (0x06), PUSH CS (0x0E), PUSH SS (0x16), PUSH DS (0x1E).
+     */
+    void pushSeg(final int opcode) {
+        cpu.push16((short) cpu.reg.getSeg(opcode >> 3));
+    }
+
+    /**
+     * POP ES (0x07), POP SS (0x17), POP DS (0x1F).
+     */
+    void popSeg(final int opcode) {
+        cpu.reg.setSeg(opcode >> 3, cpu.pop16());
+    }
+
+    /**
+     * PUSH r16 (0x50 - 0x57) - Push register word. PUSH SP pushes the decremented value of SP.
+     */
+    void push16(final int opcode) {
+        cpu.push16((short) (cpu.reg.get16(opcode & 0x7) - (opcode == 0x54 ? 2 : 0)));
+    }
+
+    /**
+     * POP r16 (0x58 - 0x5F) - Pop top of stack into word register.
+     */
+    void pop16(final int opcode) {
+        cpu.reg.set16(opcode & 0x7, cpu.pop16());
+    }
+
+    /**
+     * POP m16 - Pop top of stack into memory word.
+     */
+    void popRM16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM16(cpu.pop16());
+    }
+
+    // endregion
+
+    // region XCHG.
+
+    /**
+     * XCHG r/m8,r8 - Exchange byte register with r/m byte.
+     */
+    void xchg8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final byte temp = regRM.readRM8();
+        regRM.writeRM8(regRM.readReg8());
+        regRM.writeReg8(temp);
+    }
+
+    /**
+     * XCHG r/m16,r16 - Exchange word register with r/m word.
+     */
+    void xchg16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        final short temp = regRM.readRM16();
+        regRM.writeRM16(regRM.readReg16());
+        regRM.writeReg16(temp);
+    }
+
+    /**
+     * XCHG AX,r16 (0x90 - 0x97) - Exchange word register with AX. XCHG AX,AX is NOP.
+     */
+    void xchgAX(final int opcode) {
+        final int temp = cpu.reg.get16(opcode & 0x7);
+        cpu.reg.set16(opcode & 0x7, cpu.reg.get16(RegSet.AX_INDEX));
+        cpu.reg.set16(RegSet.AX_INDEX, temp);
+    }
+
+    // endregion
+
+    // region MOV.
+
+    /**
+     * MOV r/m8,r8 - Move byte register into r/m byte.
+     */
+    void movRM8Reg8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM8(regRM.readReg8());
+    }
+
+    /**
+     * MOV r/m16,r16 - Move word register into r/m word.
+     */
+    void movRM16Reg16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM16(regRM.readReg16());
+    }
+
+    /**
+     * MOV r8,r/m8 - Move r/m byte into byte register.
+     */
+    void movReg8RM8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeReg8(regRM.readRM8());
+    }
+
+    /**
+     * MOV r16,r/m16 - Move r/m word into word register.
+     */
+    void movReg16RM16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeReg16(regRM.readRM16());
+    }
+
+    /**
+     * MOV r/m16,Sreg - Move segment register to r/m register.
+     */
+    void movRM16SReg(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM16(regRM.readSegReg());
+    }
+
+    /**
+     * MOV Sreg,r/m16 - Move r/m register to segment register.
+     */
+    void movSRegRM16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeSegReg(regRM.readRM16());
+    }
+
+    /**
+     * MOV AL,moffs8 - Move byte at (seg:offset) to AL.
+     */
+    void movALMem8(final int opcode) {
+        cpu.modRegRM.fetchDirect();
+        cpu.reg.AL.setValue(cpu.modRegRM.readRM8());
+    }
+
+    /**
+     * MOV AX,moffs16 - Move word at (seg:offset) to AX.
+     */
+    void movAXMem16(final int opcode) {
+        cpu.modRegRM.fetchDirect();
+        cpu.reg.AX.setValue(cpu.modRegRM.readRM16());
+    }
+
+    /**
+     * MOV moffs8,AL - Move AL to (seg:offset).
+     */
+    void movMem8AL(final int opcode) {
+        cpu.modRegRM.fetchDirect();
+        cpu.modRegRM.writeRM8(cpu.reg.AL.getValue());
+    }
+
+    /**
+     * MOV moffs16,AX - Move AX to (seg:offset).
+     */
+    void movMem16AX(final int opcode) {
+        cpu.modRegRM.fetchDirect();
+        cpu.modRegRM.writeRM16(cpu.reg.AX.getValue());
+    }
+
+    /**
+     * MOV r8,imm8 (0xB0 - 0xB7) - Move immediate byte to register.
+     */
+    void movReg8Imm8(final int opcode) {
+        cpu.reg.set8(opcode & 0x7, cpu.fetch8());
+    }
+
+    /**
+     * MOV r16,imm16 (0xB8 - 0xBF) - Move immediate word to register.
+     */
+    void movReg16Imm16(final int opcode) {
+        cpu.reg.set16(opcode & 0x7, cpu.fetch16());
+    }
+
+    /**
+     * MOV r/m8,imm8 - Move immediate byte to r/m byte.
+     */
+    void movRM8Imm8(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM8(cpu.fetch8());
+    }
+
+    /**
+     * MOV r/m16,imm16 - Move immediate word to r/m word.
+     */
+    void movRM16Imm16(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        regRM.writeRM16(cpu.fetch16());
+    }
+
+    // endregion
+
+    // region LEA/LES/LDS/XLAT.
+
+    /**
+     * LEA r16,m - Store effective address for m in register 16.
+     */
+    void lea(final int opcode) {
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if (regRM.isRegister()) {
+            cpu.delegate.invalidOpcode("LEA requires a memory operand");
+            return;
+        }
+        regRM.writeReg16((short) regRM.getOffset());
+    }
+
+    /**
+     * LES r16,m16:16 (0xC4) and LDS r16,m16:16 (0xC5) - Load ES:r16 or DS:r16 with pointer from memory.
+     */
+    void loadSeg(final int opcode) {
+        final Reg16 segReg = opcode == 0xC4 ? cpu.reg.ES : cpu.reg.DS;
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        if (regRM.isRegister()) {
+            cpu.delegate.invalidOpcode("LES/LDS requires a memory operand");
+            return;
+        }
+        final int segmentBase = regRM.getSegmentBase();
+        final int offset = regRM.getOffset();
+        regRM.writeReg16(cpu.memory.readWord(segmentBase, offset));
+        segReg.setValue(cpu.memory.readWord(segmentBase, (offset + 2) & 0xFFFF));
+    }
+
+    /**
+     * XLAT - Set AL to memory byte DS:[BX + unsigned AL].
+     */
+    void xlat(final int opcode) {
+        final int segment = cpu.segmentOverride == CPU.NO_SEGMENT_OVERRIDE ? RegSet.DS_SEGMENT : cpu.segmentOverride;
+        final int offset = cpu.reg.get16(RegSet.BX_INDEX) + cpu.reg.get8(RegSet.AX_INDEX);
+        cpu.reg.set8(RegSet.AX_INDEX, cpu.memory.readByte(cpu.reg.getSegBase(segment), offset & 0xFFFF));
+        cpu.segmentOverride = CPU.NO_SEGMENT_OVERRIDE;
+    }
+
+    // endregion
+}
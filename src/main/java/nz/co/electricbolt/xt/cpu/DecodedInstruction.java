@@ -0,0 +1,51 @@
+// DecodedInstruction.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * An instruction held by the {@code InstructionCache}: the opcode handler, the state left by any segment override and
+ * REP prefixes, and the instruction bytes (prefixes, opcode, ModR/M, displacement and immediate). When replayed, the
+ * opcode, ModR/M, displacement and immediate bytes are fetched from {@code bytes} rather than from memory.
+ * <p>
+ * Instructions count how often they start a run of straight line execution; once hot, the {@code BlockTranslator}
+ * translates the basic block starting at the instruction into {@code block}, reusing the class file in
+ * {@code translation} if it was loaded from the {@code CodeCache}. The superinstruction starting with the instruction,
+ * if any, is found the first time the instruction is replayed and held in {@code sequence}, and likewise the delay loop
+ * starting with the instruction in {@code loop}.
+ */
+final class DecodedInstruction {
+
+    /**
+     * Longest instruction that will be cached. Instructions with more (redundant) prefixes are always decoded.
+     */
+    static final int MAX_LENGTH = 16;
+
+    final byte[] bytes;
+    final int wordFetches;                      // Bit n set if bytes n and n + 1 were fetched by fetch16().
+    final int length;
+    final int prefixCount;
+    final int opcode;
+    final OpcodeHandler handler;
+    final int segmentOverride;
+    final boolean repeat;
+    final Boolean repeatFlag;
+    int executions;
+    TranslatedBlock block;
+    CodeCache.Translation translation;          // Loaded from the CodeCache, until the block is translated.
+    Superinstructions.Sequence sequence;        // null until the following instructions have been cached.
+    DelayLoops.Loop loop;                       // null until the following instructions have been cached.
+
+    DecodedInstruction(final byte[] bytes, final int wordFetches, final int prefixCount, final int opcode,
+                       final OpcodeHandler handler, final int segmentOverride, final boolean repeat, final Boolean repeatFlag) {
+        this.bytes = bytes;
+        this.wordFetches = wordFetches;
+        this.length = bytes.length;
+        this.prefixCount = prefixCount;
+        this.opcode = opcode;
+        this.handler = handler;
+        this.segmentOverride = segmentOverride;
+        this.repeat = repeat;
+        this.repeatFlag = repeatFlag;
+    }
+}
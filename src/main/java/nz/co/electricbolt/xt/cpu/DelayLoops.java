@@ -0,0 +1,148 @@
+// DelayLoops.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Counted loops that only burn time, recognised in the {@code InstructionCache} and executed in closed form:
+ * <code>
+ * L: [body]           L: [body]
+ *    LOOP L              DEC r16
+ *                        JNZ L
+ * </code>
+ * The body may be empty, or consist of NOP, JMP $+2 and INC/DEC of registers other than the counter. All but the last
+ * iteration are executed at once by adding to the registers and to the instruction count; the last iteration is then
+ * interpreted, so the loop exits as usual. The fetch callbacks of the skipped instructions are not invoked.
+ */
+final class DelayLoops {
+
+    private static final int MAX_BODY = 16;                     // Longest body, in instructions.
+
+    /**
+     * A recognised delay loop.
+     */
+    static final class Loop {
+
+        final int counter;                                      // CX for LOOP, or the DEC register.
+        final int[] deltas = new int[8];                        // Added to each register by one iteration.
+        final int steps;                                        // Instructions per iteration.
+        final int length;                                       // Number of instruction bytes in the loop.
+        final int flagsRegister;                                // Register last INC/DEC'ed by an iteration, or -1.
+        final boolean increment;                                // The last INC/DEC was INC.
+
+        private Loop(final int counter, final int[] deltas, final int steps, final int length, final int flagsRegister,
+                     final boolean increment) {
+            this.counter = counter;
+            System.arraycopy(deltas, 0, this.deltas, 0, 8);
+            this.steps = steps;
+            this.length = length;
+            this.flagsRegister = flagsRegister;
+            this.increment = increment;
+        }
+    }
+
+    static final Loop NONE = new Loop(-1, new int[8], 0, 0, -1, false);
+
+    private final CPU cpu;
+
+    DelayLoops(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Finds the delay loop starting with the cached instruction at linear address 0x00000 - 0xFFFFF. The loop must end
+     * no later than the page following the first instruction's page, so that a write to it discards the first
+     * instruction, and with it the loop.
+     * @return the loop, NONE if the instruction doesn't start a delay loop, or null if it might once the following
+     * instructions have been cached.
+     */
+    Loop match(final int address, final DecodedInstruction first) {
+        final int limit = Math.min(((address >> InstructionCache.PAGE_SHIFT) + 2) << InstructionCache.PAGE_SHIFT,
+                Memory.MEMORY_SIZE);
+        final int[] deltas = new int[8];
+        final boolean[] modified = new boolean[8];
+        int flagsRegister = -1;
+        boolean increment = false;
+        int length = 0;
+        DecodedInstruction instruction = first;
+        for (int steps = 1; steps <= MAX_BODY + 2; steps++) {
+            if (instruction.prefixCount != 0) {
+                return NONE;
+            }
+            final int opcode = instruction.opcode;
+            length += instruction.length;
+            if (opcode == 0xE2) {
+                // LOOP back to the start of the loop.
+                return address + length + instruction.bytes[1] == address && !modified[RegSet.CX_INDEX]
+                        ? new Loop(RegSet.CX_INDEX, deltas, steps, length, flagsRegister, increment) : NONE;
+            }
+            if (opcode == 0x90 || (opcode == 0xEB && instruction.bytes[1] == 0)) {
+                // NOP, JMP $+2.
+            } else if (opcode >= 0x40 && opcode <= 0x4F) {
+                final int r = opcode & 0x7;
+                if (opcode >= 0x48 && !modified[r]) {
+                    // DEC r16 followed by JNZ back to the start of the loop.
+                    final DecodedInstruction next = next(address + length, limit);
+                    if (next == null) {
+                        return null;
+                    }
+                    if (next.opcode == 0x75 && next.prefixCount == 0
+                            && address + length + next.length + next.bytes[1] == address) {
+                        return new Loop(r, deltas, steps + 1, length + next.length, r, false);
+                    }
+                }
+                deltas[r] += opcode < 0x48 ? 1 : -1;
+                modified[r] = true;
+                flagsRegister = r;
+                increment = opcode < 0x48;
+            } else {
+                return NONE;
+            }
+            instruction = next(address + length, limit);
+            if (instruction == null) {
+                return null;
+            }
+        }
+        return NONE;
+    }
+
+    private DecodedInstruction next(final int address, final int limit) {
+        if (address >= limit) {
+            return null;
+        }
+        final DecodedInstruction instruction = cpu.memory.instructionCache.get(address);
+        return instruction == null || address + instruction.length > limit ? null : instruction;
+    }
+
+    /**
+     * Executes all but the last iteration of a delay loop at once, or as many iterations as maxSteps allows.
+     * @return the number of instructions executed, or 0 if there is no more than one iteration left to execute.
+     */
+    int execute(final Loop loop, final int maxSteps) {
+        final RegSet reg = cpu.reg;
+        final int count = reg.get16(loop.counter);
+        final int iterations = Math.min((count == 0 ? 0x10000 : count) - 1, maxSteps / loop.steps);
+        if (iterations <= 0) {
+            return 0;
+        }
+        for (int r = 0; r < 8; r++) {
+            if (loop.deltas[r] != 0) {
+                reg.set16(r, reg.get16(r) + loop.deltas[r] * iterations);
+            }
+        }
+        reg.set16(loop.counter, count - iterations);
+        if (loop.flagsRegister != -1) {
+            // The flags are those of the last INC/DEC of the last iteration.
+            final int value = reg.get16(loop.flagsRegister);
+            if (loop.increment) {
+                final int a = (value - 1) & 0xFFFF;
+                reg.flags.lazy(Flags.INC, 0x8000, a, 1, a + 1);
+            } else {
+                final int a = (value + 1) & 0xFFFF;
+                reg.flags.lazy(Flags.DEC, 0x8000, a, 1, a - 1);
+            }
+        }
+        cpu.instructionCount += (long) iterations * loop.steps;
+        return iterations * loop.steps;
+    }
+}
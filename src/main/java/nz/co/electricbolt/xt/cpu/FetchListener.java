@@ -0,0 +1,21 @@
+// FetchListener.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Optional observer of instruction fetches, registered with {@code CPU.setFetchListener}. When none is registered,
+ * translated blocks and superinstructions advance IP without fetching the instruction bytes at all.
+ */
+public interface FetchListener {
+
+    /**
+     * Invoked when a byte has been fetched from memory for use in instruction decoding and execution.
+     */
+    void fetched8(final byte value, final long instructionCount);
+
+    /**
+     * Invoked when a word was fetched from memory for use in instruction decoding and execution.
+     */
+    void fetched16(final short value, final long instructionCount);
+}
@@ -0,0 +1,72 @@
+// FlagInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * PUSHF/POPF/SAHF/LAHF and the single flag CMC/CLC/STC/CLI/STI/CLD/STD instructions.
+ */
+public class FlagInstructions {
+
+    private final CPU cpu;
+
+    FlagInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * PUSHF - Push FLAGS.
+     */
+    void pushf(final int opcode) {
+        cpu.push16(cpu.reg.flags.getValue16());
+    }
+
+    /**
+     * POPF - Pop top of stack into FLAGS.
+     */
+    void popf(final int opcode) {
+        cpu.popf();
+    }
+
+    /**
+     * SAHF - Store AH into flags SF ZF 0 AF 0 PF 1 CF.
+     */
+    void sahf(final int opcode) {
+        cpu.reg.flags.setValue8(cpu.reg.AH.getValue());
+    }
+
+    /**
+     * LAHF - Load: AH = flags SF ZF 0 AF 0 PF 1 CF.
+     */
+    void lahf(final int opcode) {
+        cpu.reg.AH.setValue(cpu.reg.flags.getValue8());
+    }
+
+    /**
+     * CMC - Complement carry flag.
+     */
+    void cmc(final int opcode) {
+        cpu.reg.flags.setCarry(!cpu.reg.flags.isCarry());
+    }
+
+    /**
+     * CLC (0xF8) / STC (0xF9) - Clear or set carry flag.
+     */
+    void carry(final int opcode) {
+        cpu.reg.flags.setCarry(opcode == 0xF9);
+    }
+
+    /**
+     * CLI (0xFA) / STI (0xFB) - Clear or set interrupt flag (disable or enable interrupts).
+     */
+    void interruptEnabled(final int opcode) {
+        cpu.reg.flags.setInterruptEnabled(opcode == 0xFB);
+    }
+
+    /**
+     * CLD (0xFC) / STD (0xFD) - Clear or set direction flag (up or down).
+     */
+    void directionDown(final int opcode) {
+        cpu.reg.flags.setDirectionDown(opcode == 0xFD);
+    }
+}
@@ -3,6 +3,11 @@
 
 package nz.co.electricbolt.xt.cpu;
 
+/**
+ * The FLAGS register. The six arithmetic flags (OF, SF, ZF, AF, PF, CF) are evaluated lazily: the ALU records the kind
+ * of the last operation, its operands and its result, and each flag is only computed when it is read. Writing an
+ * individual arithmetic flag, or reading the whole register, first evaluates all six into the register value.
+ */
 public class Flags {
     public static final short CARRY = 0x0001;
     public static final short RESERVED1 = 0x0002; // Always one.
@@ -25,12 +30,135 @@ public class Flags {
     private static final short ALWAYS_ZERO_MASK16 = RESERVED3 | RESERVED2;
     private static final short FLAG_MASK16 = OVERFLOW | DIRECTION | INTERRUPT_ENABLE | TRAP | SIGN | ZERO | AUX_CARRY | PARITY | CARRY;
 
+    private static final short ARITHMETIC_MASK16 = OVERFLOW | SIGN | ZERO | AUX_CARRY | PARITY | CARRY;
+
+    // SIGN, ZERO and PARITY flags of each byte result.
+    private static final byte[] SZP8 = new byte[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            SZP8[i] = (byte) ((i & 0x80) | (i == 0 ? ZERO : 0) | (Parity8.isEven(i) ? PARITY : 0));
+        }
+    }
+
+    // Kinds of lazily evaluated operation. INC and DEC leave the carry flag in the register value untouched.
+    static final int NONE = 0;
+    static final int ADD = 1;
+    static final int SUB = 2;
+    static final int LOGIC = 3;
+    static final int INC = 4;
+    static final int DEC = 5;
+
     private short value;
 
+    private int lazyOp = NONE;
+    private int lazySign;                                       // 0x80 (byte operation) or 0x8000 (word operation).
+    private int lazyA;                                          // Unsigned operands.
+    private int lazyB;
+    private int lazyResult;                                     // Unmasked result, including carry/borrow out.
+
     public Flags() {
         value = ALWAYS_ONE_MASK16;
     }
 
+    /**
+     * Restores the power-on state of the flags.
+     */
+    void reset() {
+        value = ALWAYS_ONE_MASK16;
+        lazyOp = NONE;
+    }
+
+    // region Lazy evaluation.
+
+    /**
+     * Records an operation whose arithmetic flags will be evaluated when read.
+     * @param op ADD, SUB, LOGIC, INC or DEC.
+     * @param sign 0x80 for a byte operation, 0x8000 for a word operation.
+     * @param a unsigned first operand.
+     * @param b unsigned second operand (excluding any carry in).
+     * @param result unmasked result a + b (+ carry) or a - b (- carry).
+     */
+    void lazy(final int op, final int sign, final int a, final int b, final int result) {
+        if (op == INC || op == DEC) {
+            final boolean carry = isCarry();
+            value = (short) (carry ? value | CARRY : value & ~CARRY);
+        }
+        lazyOp = op;
+        lazySign = sign;
+        lazyA = a;
+        lazyB = b;
+        lazyResult = result;
+    }
+
+    /**
+     * Evaluates any pending arithmetic flags into the register value.
+     */
+    private void evaluate() {
+        if (lazyOp == NONE) {
+            return;
+        }
+        int flags = value & ~ARITHMETIC_MASK16;
+        flags |= lazySign == 0x80 ? SZP8[lazyResult & 0xFF] & 0xFF : szp16(lazyResult);
+        flags |= lazyOverflow() ? OVERFLOW : 0;
+        flags |= lazyAuxiliaryCarry() ? AUX_CARRY : 0;
+        flags |= lazyCarry() ? CARRY : 0;
+        value = (short) flags;
+        lazyOp = NONE;
+    }
+
+    private boolean lazyCarry() {
+        return switch (lazyOp) {
+            case ADD -> lazyResult > (lazySign << 1) - 1;
+            case SUB -> lazyResult < 0;
+            case LOGIC -> false;
+            default -> (value & CARRY) == CARRY;
+        };
+    }
+
+    private boolean lazyZero() {
+        return (lazyResult & ((lazySign << 1) - 1)) == 0;
+    }
+
+    private boolean lazyAuxiliaryCarry() {
+        // Bit 4 of the result differs from bit 4 of a + b (or a - b) only when there was a carry (borrow) out of bit 3.
+        return lazyOp != LOGIC && ((lazyA ^ lazyB ^ lazyResult) & 0x10) != 0;
+    }
+
+    private boolean lazyOverflow() {
+        return switch (lazyOp) {
+            // Adding two numbers with the same sign gives a result with a different sign.
+            case ADD, INC -> ((lazyA ^ lazyResult) & (lazyB ^ lazyResult) & lazySign) != 0;
+            // Subtracting two numbers with different signs gives a result with a sign different to the first.
+            case SUB, DEC -> ((lazyA ^ lazyB) & (lazyA ^ lazyResult) & lazySign) != 0;
+            default -> false;
+        };
+    }
+
+    // endregion
+
+    /**
+     * @return the SIGN, ZERO and PARITY flags of a byte result.
+     */
+    static int szp8(final int result) {
+        return SZP8[result & 0xFF] & 0xFF;
+    }
+
+    /**
+     * @return the SIGN, ZERO and PARITY flags of a word result. PARITY only reflects the low byte.
+     */
+    static int szp16(final int result) {
+        return ((result & 0x8000) != 0 ? SIGN : 0) | ((result & 0xFFFF) == 0 ? ZERO : 0) | (SZP8[result & 0xFF] & PARITY);
+    }
+
+    /**
+     * Sets all six arithmetic flags (OF, SF, ZF, AF, PF, CF) at once from a bitmask, leaving the others unchanged.
+     */
+    void setArithmetic(final int flags) {
+        lazyOp = NONE;
+        value = (short) ((value & ~ARITHMETIC_MASK16) | (flags & ARITHMETIC_MASK16));
+    }
+
     public void setValue8(final byte value) {
         short value16 = (short) (getValue16() & (short) 0xFF00);
         value16 |= (short) (value & 0xFF);
@@ -42,10 +170,12 @@ public class Flags {
     }
 
     public void setValue16(final short value) {
+        lazyOp = NONE;
         this.value = (short) (((value & FLAG_MASK16) | ALWAYS_ONE_MASK16) & ~ALWAYS_ZERO_MASK16);
     }
 
     public short getValue16() {
+        evaluate();
         return value;
     }
 
@@ -70,14 +200,15 @@ public class Flags {
         if (!(obj instanceof Flags other)) {
             return false;
         }
-        return value == other.value;
+        return getValue16() == other.getValue16();
     }
 
     public int hashCode() {
-        return value;
+        return getValue16();
     }
 
     public void setCarry(final boolean carry) {
+        evaluate();
         if (carry) {
             value |= CARRY;
         } else {
@@ -86,14 +217,15 @@ public class Flags {
     }
 
     public boolean isCarry() {
-        return (value & CARRY) == CARRY;
+        return lazyOp == NONE ? (value & CARRY) == CARRY : lazyCarry();
     }
 
     public boolean isNotCarry() {
-        return (value & CARRY) == 0;
+        return !isCarry();
     }
 
     public void setParityEven(final boolean even) {
+        evaluate();
         if (even) {
             value |= PARITY;
         } else {
@@ -102,14 +234,15 @@ public class Flags {
     }
 
     public boolean isParityEven() {
-        return (value & PARITY) == PARITY;
+        return lazyOp == NONE ? (value & PARITY) == PARITY : (SZP8[lazyResult & 0xFF] & PARITY) != 0;
     }
 
     public boolean isParityOdd() {
-        return (value & PARITY) == 0;
+        return !isParityEven();
     }
 
     public void setAuxiliaryCarry(final boolean carry) {
+        evaluate();
         if (carry) {
             value |= AUX_CARRY;
         } else {
@@ -117,14 +250,15 @@ public class Flags {
         }
     }
     public boolean isAuxiliaryCarry() {
-        return (value & AUX_CARRY) == AUX_CARRY;
+        return lazyOp == NONE ? (value & AUX_CARRY) == AUX_CARRY : lazyAuxiliaryCarry();
     }
 
     public boolean isNotAuxiliaryCarry() {
-        return (value & AUX_CARRY) == 0;
+        return !isAuxiliaryCarry();
     }
 
     public void setZero(final boolean zero) {
+        evaluate();
         if (zero) {
             value |= ZERO;
         } else {
@@ -133,14 +267,15 @@ public class Flags {
     }
 
     public boolean isZero() {
-        return (value & ZERO) == ZERO;
+        return lazyOp == NONE ? (value & ZERO) == ZERO : lazyZero();
     }
 
     public boolean isNotZero() {
-        return (value & ZERO) == 0;
+        return !isZero();
     }
 
     public void setSignNegative(final boolean sign) {
+        evaluate();
         if (sign) {
             value |= SIGN;
         } else {
@@ -149,11 +284,11 @@ public class Flags {
     }
 
     public boolean isSignNegative() {
-        return (value & SIGN) == SIGN;
+        return lazyOp == NONE ? (value & SIGN) == SIGN : (lazyResult & lazySign) != 0;
     }
 
     public boolean isSignPositive() {
-        return (value & SIGN) == 0;
+        return !isSignNegative();
     }
 
     public void setTrapEnabled(final boolean trap) {
@@ -205,6 +340,7 @@ public class Flags {
     }
 
     public void setOverflow(final boolean overflow) {
+        evaluate();
         if (overflow) {
             value |= OVERFLOW;
         } else {
@@ -213,10 +349,10 @@ public class Flags {
     }
 
     public boolean isOverflow() {
-        return (value & OVERFLOW) == OVERFLOW;
+        return lazyOp == NONE ? (value & OVERFLOW) == OVERFLOW : lazyOverflow();
     }
 
     public boolean isNotOverflow() {
-        return (value & OVERFLOW) == 0;
+        return !isOverflow();
     }
 }
\ No newline at end of file
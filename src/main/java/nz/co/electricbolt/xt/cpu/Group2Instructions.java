@@ -11,9 +11,12 @@ public class Group2Instructions {
         this.cpu = cpu;
     }
 
-    void rotate8(final int count) {
-        final RegRM8 regRM = cpu.modRegRM.fetch8();
-        byte value = regRM.getMem8().getValue();
+    void rotate8(final int cl) {
+        // CL is passed signed, and a negative count has always shifted 0 times.
+        final int count = Math.max(cl, 0);
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        byte value = regRM.readRM8();
         value = switch (regRM.getRegValue()) {
             case 0 -> rotateLeft8(value, count); // ROL r/m8,1 - Rotate 8 bits r/m byte count times.
             case 1 -> rotateRight8(value, count); // ROR r/m8,1 - Rotate 8 bits r/m byte count times.
@@ -27,12 +30,15 @@ public class Group2Instructions {
                 yield 0;
             }
         };
-        regRM.getMem8().setValue(value);
+        regRM.writeRM8(value);
     }
 
-    void rotate16(final int count) {
-        final RegRM16 regRM = cpu.modRegRM.fetch16();
-        short value = regRM.getMem16().getValue();
+    void rotate16(final int cl) {
+        // CL is passed signed, and a negative count has always shifted 0 times.
+        final int count = Math.max(cl, 0);
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
+        short value = regRM.readRM16();
         value = switch (regRM.getRegValue()) {
             case 0 -> rotateLeft16(value, count); // ROL r/m16,1 - Rotate 16 bits r/m byte left count times.
             case 1 -> rotateRight16(value, count); // ROR r/m16,1 - Rotate 16 bits r/m byte right count times.
@@ -46,154 +52,132 @@ public class Group2Instructions {
                 yield 0;
             }
         };
-        regRM.getMem16().setValue(value);
+        regRM.writeRM16(value);
     }
 
-    public byte shiftLeft8(byte value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x80) == 0x80);
-            value = (byte) (value << 1);
-        }
-        cpu.reg.flags.setSignNegative((value & 0x80) == 0x80);
-        cpu.reg.flags.setZero(value == 0x0);
-        cpu.reg.flags.setParityEven(Parity8.isEven(value));
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x80) == 0x80));
+    // Shifts and rotates are computed in closed form for any count, with the same flags as shifting or rotating one bit
+    // count times. A count of 0 leaves the value and CF unchanged. SHL, SHR and SAR still set SF, ZF, PF, OF and AF,
+    // and ROL, ROR, RCL and RCR still set OF.
 
-        // Undocumented behaviour to allow single step tests to pass.
-        cpu.reg.flags.setAuxiliaryCarry((value & 0x10) != 0);
-        return value;
+    public byte shiftLeft8(final byte value, final int count) {
+        final int v = value & 0xFF;
+        final boolean carry = count == 0 ? cpu.reg.flags.isCarry() : count <= 8 && ((v << (count - 1)) & 0x80) != 0;
+        final int result = count >= 8 ? 0 : (v << count) & 0xFF;
+        shiftFlags(Flags.szp8(result), carry, carry ^ ((result & 0x80) != 0), (result & 0x10) != 0);
+        return (byte) result;
     }
 
-    public byte shiftRight8(byte value, final int count, final boolean signed) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x01) == 0x01);
-            value = (byte) ((byte) (value >> 1) & (signed ? 0xFF : 0x7F));
-        }
-        cpu.reg.flags.setSignNegative((value & 0x80) == 0x80);
-        cpu.reg.flags.setZero(value == 0x0);
-        cpu.reg.flags.setParityEven(Parity8.isEven(value));
-        cpu.reg.flags.setOverflow(((value & 0x80) == 0x80) ^ (value & 0x40) == 0x40);
+    public byte shiftRight8(final byte value, final int count, final boolean signed) {
+        final int v = signed ? value : value & 0xFF;
+        final boolean carry = count == 0 ? cpu.reg.flags.isCarry() : ((v >> Math.min(count - 1, 31)) & 0x01) != 0;
+        final int result = (v >> Math.min(count, 31)) & 0xFF;
+        shiftFlags(Flags.szp8(result), carry, ((result & 0x80) != 0) ^ ((result & 0x40) != 0), false);
+        return (byte) result;
+    }
 
-        // Undocumented behaviour to allow single step tests to pass.
-        cpu.reg.flags.setAuxiliaryCarry(false);
-        return value;
+    public short shiftLeft16(final short value, final int count) {
+        final int v = value & 0xFFFF;
+        final boolean carry = count == 0 ? cpu.reg.flags.isCarry() : count <= 16 && ((v << (count - 1)) & 0x8000) != 0;
+        final int result = count >= 16 ? 0 : (v << count) & 0xFFFF;
+        shiftFlags(Flags.szp16(result), carry, carry ^ ((result & 0x8000) != 0), (result & 0x10) != 0);
+        return (short) result;
     }
 
-    public short shiftLeft16(short value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x8000) == 0x8000);
-            value = (short) (value << 1);
-        }
-        cpu.reg.flags.setSignNegative((value & 0x8000) == 0x8000);
-        cpu.reg.flags.setZero(value == 0x0);
-        cpu.reg.flags.setParityEven(Parity8.isEven(value));
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x8000) == 0x8000));
+    public short shiftRight16(final short value, final int count, final boolean signed) {
+        final int v = signed ? value : value & 0xFFFF;
+        final boolean carry = count == 0 ? cpu.reg.flags.isCarry() : ((v >> Math.min(count - 1, 31)) & 0x0001) != 0;
+        final int result = (v >> Math.min(count, 31)) & 0xFFFF;
+        shiftFlags(Flags.szp16(result), carry, ((result & 0x8000) != 0) ^ ((result & 0x4000) != 0), false);
+        return (short) result;
+    }
 
-        // Undocumented behaviour to allow single step tests to pass.
-        cpu.reg.flags.setAuxiliaryCarry((value & 0x10) != 0);
-        return value;
+    private void shiftFlags(final int szp, final boolean carry, final boolean overflow, final boolean auxiliaryCarry) {
+        // Undocumented behaviour of AF to allow single step tests to pass.
+        cpu.reg.flags.setArithmetic(szp | (carry ? Flags.CARRY : 0) | (overflow ? Flags.OVERFLOW : 0)
+                | (auxiliaryCarry ? Flags.AUX_CARRY : 0));
     }
 
-    public short shiftRight16(short value, final int count, final boolean signed) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x0001) == 0x0001);
-            value = (short) ((short) (value >> 1) & (signed ? 0xFFFF : 0x7FFF));
+    public byte rotateLeft8(final byte value, final int count) {
+        final int v = value & 0xFF;
+        final int n = count & 0x7;
+        final int result = ((v << n) | (v >> (8 - n))) & 0xFF;
+        if (count != 0) {
+            cpu.reg.flags.setCarry((result & 0x01) != 0);
         }
-        cpu.reg.flags.setSignNegative((value & 0x8000) == 0x8000);
-        cpu.reg.flags.setZero(value == 0x0);
-        cpu.reg.flags.setParityEven(Parity8.isEven(value));
-        cpu.reg.flags.setOverflow(((value & 0x8000) == 0x8000) ^ (value & 0x4000) == 0x4000);
-
-        // Undocumented behaviour to allow single step tests to pass.
-        cpu.reg.flags.setAuxiliaryCarry(false);
-        return value;
-    }
-
-    public byte rotateLeft8(byte value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x80) == 0x80);
-            byte value1 = (byte) (value << 1);
-            byte value2 = (byte) ((value >> 7) & 0x01);
-            value = (byte) (value1 | value2);
-        }
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x80) == 0x80));
-        return value;
+        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((result & 0x80) != 0));
+        return (byte) result;
     }
 
-    public byte rotateRight8(byte value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x01) == 0x01);
-            byte value1 = (byte) ((byte) (value >> 1) & 0x7F);
-            byte value2 = (byte) ((byte) (value << 7) & 0x80);
-            value = (byte) (value1 | value2);
+    public byte rotateRight8(final byte value, final int count) {
+        final int v = value & 0xFF;
+        final int n = count & 0x7;
+        final int result = ((v >> n) | (v << (8 - n))) & 0xFF;
+        if (count != 0) {
+            cpu.reg.flags.setCarry((result & 0x80) != 0);
         }
-        cpu.reg.flags.setOverflow(((value & 0x80) == 0x80) ^ (value & 0x40) == 0x40);
-        return value;
+        cpu.reg.flags.setOverflow(((result & 0x80) != 0) ^ ((result & 0x40) != 0));
+        return (byte) result;
     }
 
-    public byte rotateLeft9(byte value, final int count) {
-        for (int i = 0; i < count; i++) {
-            boolean origCarry = cpu.reg.flags.isCarry();
-            byte value1 = (byte) (value << 1);
-            cpu.reg.flags.setCarry(((value >> 7) & 0x01) == 0x01);
-            value = (byte) (value1 | (origCarry ? (byte) 0x01 : (byte) 0x00));
-        }
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x80) == 0x80));
-        return value;
+    public byte rotateLeft9(final byte value, final int count) {
+        // Rotate the 9 bits CF:value.
+        final int v = (cpu.reg.flags.isCarry() ? 0x100 : 0) | (value & 0xFF);
+        final int n = count % 9;
+        final int rotated = ((v << n) | (v >> (9 - n))) & 0x1FF;
+        cpu.reg.flags.setCarry((rotated & 0x100) != 0);
+        cpu.reg.flags.setOverflow(((rotated & 0x100) != 0) ^ ((rotated & 0x80) != 0));
+        return (byte) rotated;
     }
 
-    public byte rotateRight9(byte value, final int count) {
-        for (int i = 0; i < count; i++) {
-            boolean origCarry = cpu.reg.flags.isCarry();
-            cpu.reg.flags.setCarry((value & 0x01) == 0x01);
-            byte value1 = (byte) ((byte) (value >> 1) & 0x7F);
-            value = (byte) (value1 | (origCarry ? (byte) 0x80 : (byte) 0x00));
-        }
-        cpu.reg.flags.setOverflow(((value & 0x80) == 0x80) ^ (value & 0x40) == 0x40);
-        return value;
+    public byte rotateRight9(final byte value, final int count) {
+        // Rotate the 9 bits CF:value.
+        final int v = (cpu.reg.flags.isCarry() ? 0x100 : 0) | (value & 0xFF);
+        final int n = count % 9;
+        final int rotated = ((v >> n) | (v << (9 - n))) & 0x1FF;
+        cpu.reg.flags.setCarry((rotated & 0x100) != 0);
+        cpu.reg.flags.setOverflow(((rotated & 0x80) != 0) ^ ((rotated & 0x40) != 0));
+        return (byte) rotated;
     }
 
-    public short rotateLeft16(short value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x8000) == 0x8000);
-            short value1 = (short) (value << 1);
-            short value2 = (short) ((value >> 15) & 0x0001);
-            value = (short) (value1 | value2);
+    public short rotateLeft16(final short value, final int count) {
+        final int v = value & 0xFFFF;
+        final int n = count & 0xF;
+        final int result = ((v << n) | (v >> (16 - n))) & 0xFFFF;
+        if (count != 0) {
+            cpu.reg.flags.setCarry((result & 0x0001) != 0);
         }
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x8000) == 0x8000));
-        return value;
+        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((result & 0x8000) != 0));
+        return (short) result;
     }
 
-    public short rotateRight16(short value, final int count) {
-        for (int i = 0; i < count; i++) {
-            cpu.reg.flags.setCarry((value & 0x0001) == 0x0001);
-            short value1 = (short) ((short) (value >> 1) & 0x7FFF);
-            short value2 = (short) ((short) (value << 15) & 0x8000);
-            value = (short) (value1 | value2);
+    public short rotateRight16(final short value, final int count) {
+        final int v = value & 0xFFFF;
+        final int n = count & 0xF;
+        final int result = ((v >> n) | (v << (16 - n))) & 0xFFFF;
+        if (count != 0) {
+            cpu.reg.flags.setCarry((result & 0x8000) != 0);
         }
-        cpu.reg.flags.setOverflow(((value & 0x8000) == 0x8000) ^ (value & 0x4000) == 0x4000);
-        return value;
+        cpu.reg.flags.setOverflow(((result & 0x8000) != 0) ^ ((result & 0x4000) != 0));
+        return (short) result;
     }
 
-    public short rotateLeft17(short value, final int count) {
-        for (int i = 0; i < count; i++) {
-            boolean origCarry = cpu.reg.flags.isCarry();
-            short value1 = (short) (value << 1);
-            cpu.reg.flags.setCarry(((value >> 15) & 0x0001) == 0x0001);
-            value = (short) (value1 | (origCarry ? (short) 0x0001 : (short) 0x0000));
-        }
-        cpu.reg.flags.setOverflow(cpu.reg.flags.isCarry() ^ ((value & 0x8000) == 0x8000));
-        return value;
+    public short rotateLeft17(final short value, final int count) {
+        // Rotate the 17 bits CF:value.
+        final int v = (cpu.reg.flags.isCarry() ? 0x10000 : 0) | (value & 0xFFFF);
+        final int n = count % 17;
+        final int rotated = ((v << n) | (v >> (17 - n))) & 0x1FFFF;
+        cpu.reg.flags.setCarry((rotated & 0x10000) != 0);
+        cpu.reg.flags.setOverflow(((rotated & 0x10000) != 0) ^ ((rotated & 0x8000) != 0));
+        return (short) rotated;
     }
 
-    public short rotateRight17(short value, final int count) {
-        for (int i = 0; i < count; i++) {
-            boolean origCarry = cpu.reg.flags.isCarry();
-            cpu.reg.flags.setCarry((value & 0x0001) == 0x0001);
-            short value1 = (short) ((short) (value >> 1) & 0x7FFF);
-            value = (short) (value1 | (origCarry ? (short) 0x8000 : (short) 0x0000));
-        }
-        cpu.reg.flags.setOverflow(((value & 0x8000) == 0x8000) ^ (value & 0x4000) == 0x4000);
-        return value;
+    public short rotateRight17(final short value, final int count) {
+        // Rotate the 17 bits CF:value.
+        final int v = (cpu.reg.flags.isCarry() ? 0x10000 : 0) | (value & 0xFFFF);
+        final int n = count % 17;
+        final int rotated = ((v >> n) | (v << (17 - n))) & 0x1FFFF;
+        cpu.reg.flags.setCarry((rotated & 0x10000) != 0);
+        cpu.reg.flags.setOverflow(((rotated & 0x8000) != 0) ^ ((rotated & 0x4000) != 0));
+        return (short) rotated;
     }
 }
@@ -12,31 +12,32 @@ public class Group3AInstructions {
     }
 
     void decode() {
-        final RegRM8 regRM = cpu.modRegRM.fetch8();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
         switch (regRM.getRegValue()) {
             case 0: { // TEST r/m8,imm8 - And immediate byte with r/m byte.
-                cpu.alu.and8(regRM.getMem8().getValue(), cpu.fetch8());
+                cpu.alu.and8(regRM.readRM8(), cpu.fetch8());
                 break;
             }
             case 2: { // NOT r/m8 - Reverse each bit of r/m byte.
-                regRM.getMem8().setValue((byte) ~regRM.getMem8().getValue());
+                regRM.writeRM8((byte) ~regRM.readRM8());
                 break;
             }
             case 3: { // NEG r/m8 - Two's complement negate r/m byte.
-                regRM.getMem8().setValue(cpu.alu.sub8((byte) 0, regRM.getMem8().getValue(), false));
+                regRM.writeRM8(cpu.alu.sub8((byte) 0, regRM.readRM8(), false));
                 break;
             }
             case 4: { // MUL r/m8 - Unsigned multiply (AX = AL * r/m byte)
-                cpu.reg.AX.setValue(cpu.alu.mul8(cpu.reg.AL.getValue(), regRM.getMem8().getValue()));
+                cpu.reg.AX.setValue(cpu.alu.mul8(cpu.reg.AL.getValue(), regRM.readRM8()));
                 break;
             }
             case 5: { // IMUL r/m8 - Signed multiply (AX = AL * r/m byte)
-                cpu.reg.AX.setValue(cpu.alu.imul8(cpu.reg.AL.getValue(), regRM.getMem8().getValue()));
+                cpu.reg.AX.setValue(cpu.alu.imul8(cpu.reg.AL.getValue(), regRM.readRM8()));
                 break;
             }
             case 6: { // DIV r/m8 - Unsigned divide AX by r/m byte (AL=QUO, AH=REM)
                 try {
-                    cpu.reg.AX.setValue(cpu.alu.div8(cpu.reg.AX.getValue(), regRM.getMem8().getValue()));
+                    cpu.reg.AX.setValue(cpu.alu.div8(cpu.reg.AX.getValue(), regRM.readRM8()));
                 } catch (ArithmeticException e) {
                     cpu.interrupt((byte) 0);
                 }
@@ -45,7 +46,7 @@ public class Group3AInstructions {
             case 7: { // IDIV r/m8 - Signed divide AX by r/m byte (AL=QUO, AH=REM)
                 try {
                     final boolean negateQuotient = cpu.repeat;
-                    cpu.reg.AX.setValue(cpu.alu.idiv8(cpu.reg.AX.getValue(), regRM.getMem8().getValue(), negateQuotient));
+                    cpu.reg.AX.setValue(cpu.alu.idiv8(cpu.reg.AX.getValue(), regRM.readRM8(), negateQuotient));
                 } catch (ArithmeticException e) {
                     cpu.interrupt((byte) 0);
                 }
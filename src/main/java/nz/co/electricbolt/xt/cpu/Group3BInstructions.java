@@ -12,28 +12,29 @@ public class Group3BInstructions {
     }
 
     void decode() {
-        final RegRM16 regRM = cpu.modRegRM.fetch16();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
         switch (regRM.getRegValue()) {
             case 0: { // TEST r/m16,imm16 - And immediate word with r/m word.
-                cpu.alu.and16(regRM.getMem16().getValue(), cpu.fetch16());
+                cpu.alu.and16(regRM.readRM16(), cpu.fetch16());
                 break;
             }
             case 2: { // NOT r/m16 - Reverse each bit of r/m word.
-                regRM.getMem16().setValue((short) ~regRM.getMem16().getValue());
+                regRM.writeRM16((short) ~regRM.readRM16());
                 break;
             }
             case 3: { // NEG r/m16 - Two's complement negate r/m word.
-                regRM.getMem16().setValue(cpu.alu.sub16((short) 0, regRM.getMem16().getValue(), false));
+                regRM.writeRM16(cpu.alu.sub16((short) 0, regRM.readRM16(), false));
                 break;
             }
             case 4: { // MUL r/m16 - Unsigned multiply (DX:AX = AX * r/m word)
-                final int result = cpu.alu.mul16(cpu.reg.AX.getValue(), regRM.getMem16().getValue());
+                final int result = cpu.alu.mul16(cpu.reg.AX.getValue(), regRM.readRM16());
                 cpu.reg.DX.setValue((short) (result >>> 16));
                 cpu.reg.AX.setValue((short) (result & 0xFFFF));
                 break;
             }
             case 5: { // IMUL r/m8 - Signed multiply (DX:AX = AX * r/m word)
-                final int result = cpu.alu.imul16(cpu.reg.AX.getValue(), regRM.getMem16().getValue());
+                final int result = cpu.alu.imul16(cpu.reg.AX.getValue(), regRM.readRM16());
                 cpu.reg.DX.setValue((short) (result >>> 16));
                 cpu.reg.AX.setValue((short) (result & 0xFFFF));
                 break;
@@ -41,7 +42,7 @@ public class Group3BInstructions {
             case 6: { // DIV r/m16 - Unsigned divide DX:AX by r/m word (AX=QUO, DX=REM)
                 try {
                     final int dividend = ((cpu.reg.DX.getValue() & 0xFFFF) << 16) | (cpu.reg.AX.getValue() & 0xFFFF);
-                    final int result = cpu.alu.div16(dividend, regRM.getMem16().getValue());
+                    final int result = cpu.alu.div16(dividend, regRM.readRM16());
                     cpu.reg.DX.setValue((short) (result >>> 16));
                     cpu.reg.AX.setValue((short) (result & 0xFFFF));
                 } catch (ArithmeticException e) {
@@ -53,7 +54,7 @@ public class Group3BInstructions {
                 try {
                     final boolean negateQuotient = cpu.repeat;
                     final int dividend = ((cpu.reg.DX.getValue() & 0xFFFF) << 16) | (cpu.reg.AX.getValue() & 0xFFFF);
-                    final int result = cpu.alu.idiv16(dividend, regRM.getMem16().getValue(), negateQuotient);
+                    final int result = cpu.alu.idiv16(dividend, regRM.readRM16(), negateQuotient);
                     cpu.reg.DX.setValue((short) (result >>> 16));
                     cpu.reg.AX.setValue((short) (result & 0xFFFF));
                 } catch (ArithmeticException e) {
@@ -12,22 +12,19 @@ public class Group4Instructions {
     }
 
     void decode() {
-        final RegRM8 regRM = cpu.modRegRM.fetch8();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
         switch (regRM.getRegValue()) {
             case 0: { // INC r/m8 - Increment r/m byte by 1.
-                final byte value = regRM.getMem8().getValue();
-                final boolean origcarry = cpu.reg.flags.isCarry();
-                final byte result = cpu.alu.add8(value, (byte) 1, false);
-                regRM.getMem8().setValue(result);
-                cpu.reg.flags.setCarry(origcarry);
+                final byte value = regRM.readRM8();
+                final byte result = cpu.alu.inc8(value);
+                regRM.writeRM8(result);
                 break;
             }
             case 1: { // DEC r/m8 - Decrement r/m byte by 1.
-                final byte value = regRM.getMem8().getValue();
-                final boolean origcarry = cpu.reg.flags.isCarry();
-                final byte result = cpu.alu.sub8(value, (byte) 1, false);
-                regRM.getMem8().setValue(result);
-                cpu.reg.flags.setCarry(origcarry);
+                final byte value = regRM.readRM8();
+                final byte result = cpu.alu.dec8(value);
+                regRM.writeRM8(result);
                 break;
             }
             default:
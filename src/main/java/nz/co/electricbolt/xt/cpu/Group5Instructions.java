@@ -12,35 +12,34 @@ public class Group5Instructions {
     }
 
     void decode() {
-        final RegRM16 regRM = cpu.modRegRM.fetch16();
+        final ModRegRM regRM = cpu.modRegRM;
+        regRM.fetch();
         switch (regRM.getRegValue()) {
             case 0: { // INC r/m16 - Increment r/m word by 1.
-                final boolean origcarry = cpu.reg.flags.isCarry();
-                final short value = regRM.getMem16().getValue();
-                final short result = cpu.alu.add16(value, (short) 1, false);
-                regRM.getMem16().setValue(result);
-                cpu.reg.flags.setCarry(origcarry);
+                final short value = regRM.readRM16();
+                final short result = cpu.alu.inc16(value);
+                regRM.writeRM16(result);
                 break;
             }
             case 1: { // DEC r/m16 - Decrement r/m word by 1.
-                final boolean origcarry = cpu.reg.flags.isCarry();
-                final short value = regRM.getMem16().getValue();
-                final short result = cpu.alu.sub16(value, (short) 1, false);
-                regRM.getMem16().setValue(result);
-                cpu.reg.flags.setCarry(origcarry);
+                final short value = regRM.readRM16();
+                final short result = cpu.alu.dec16(value);
+                regRM.writeRM16(result);
                 break;
             }
             case 2: { // CALL r/m16 - Call near, register indirect/memory indirect.
-                final short value = regRM.getMem16().getValue();
+                final short value = regRM.readRM16();
                 cpu.push16(cpu.reg.IP.getValue());
                 cpu.reg.IP.setValue(value);
                 break;
             }
             case 3: { // CALL m16:16 - Call intersegment address at r/m dword.
-                SegOfs segOfs = regRM.getMem16().getSegOfs();
-                final short offset = cpu.memory.readWord(segOfs);
-                segOfs.addOffset((short) 2);
-                final short segment = cpu.memory.readWord(segOfs);
+                if (regRM.isRegister()) {
+                    cpu.delegate.invalidOpcode("Group5 operation " + regRM.getRegValue() + " requires a memory operand");
+                    break;
+                }
+                final short offset = cpu.memory.readWord(regRM.getSegmentBase(), regRM.getOffset());
+                final short segment = cpu.memory.readWord(regRM.getSegmentBase(), (regRM.getOffset() + 2) & 0xFFFF);
                 cpu.push16(cpu.reg.CS.getValue());
                 cpu.push16(cpu.reg.IP.getValue());
                 cpu.reg.IP.setValue(offset);
@@ -48,32 +47,28 @@ public class Group5Instructions {
                 break;
             }
             case 4: { // JMP r/m16 - Jump near indirect.
-                final short value = regRM.getMem16().getValue();
+                final short value = regRM.readRM16();
                 cpu.reg.IP.setValue(value);
                 break;
             }
             case 5: { // JMP m16:16 - Jump r/m16:16 indirect and intersegment.
-                SegOfs segOfs = regRM.getMem16().getSegOfs();
-                final short offset = cpu.memory.readWord(segOfs);
-                segOfs.addOffset((short) 2);
-                final short segment = cpu.memory.readWord(segOfs);
+                if (regRM.isRegister()) {
+                    cpu.delegate.invalidOpcode("Group5 operation " + regRM.getRegValue() + " requires a memory operand");
+                    break;
+                }
+                final short offset = cpu.memory.readWord(regRM.getSegmentBase(), regRM.getOffset());
+                final short segment = cpu.memory.readWord(regRM.getSegmentBase(), (regRM.getOffset() + 2) & 0xFFFF);
                 cpu.reg.IP.setValue(offset);
                 cpu.reg.CS.setValue(segment);
                 break;
             }
             case 6: { // PUSH m16 - Push memory word. (Also appears to be PUSH r/m16 - can be a register like AX).
-                if (regRM.getMem16().getSegOfs() != null) {
-                    final SegOfs segOfs = regRM.getMem16().getSegOfs();
-                    final short value = cpu.memory.readWord(segOfs);
-                    cpu.push16(value);
+                final short value = regRM.readRM16();
+                if (regRM.isRegister() && regRM.getRMRegister() == 4) {
+                    // Push new value of SP instead of what SP was.
+                    cpu.push16((short) ((short) (value - 2) & 0xFFFF));
                 } else {
-                    final short value = regRM.getMem16().getValue();
-                    if (regRM.getMem16().getReg() == cpu.reg.SP) {
-                        // Push new value of SP instead of what SP was.
-                        cpu.push16((short) ((short) (value - 2) & 0xFFFF));
-                    } else {
-                        cpu.push16(value);
-                    }
+                    cpu.push16(value);
                 }
                 break;
             }
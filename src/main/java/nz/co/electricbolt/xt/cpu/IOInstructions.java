@@ -0,0 +1,77 @@
+// IOInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * IN/OUT instructions, forwarded to the {@code CPUDelegate} port methods. Rarely executed, so kept out of the classes
+ * holding the frequently executed instructions.
+ */
+public class IOInstructions {
+
+    private final CPU cpu;
+
+    IOInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * IN AL,imm8 - Input byte from immediate port into AL.
+     */
+    void inALImm8(final int opcode) {
+        final byte address = cpu.fetch8();
+        cpu.reg.AL.setValue(cpu.delegate.portRead8(address));
+    }
+
+    /**
+     * IN AX,imm8 - Input word from immediate port into AX.
+     */
+    void inAXImm8(final int opcode) {
+        final short address = cpu.fetch8();
+        cpu.reg.AX.setValue(cpu.delegate.portRead16(address));
+    }
+
+    /**
+     * OUT imm8,AL - Output byte AL to immediate port number.
+     */
+    void outImm8AL(final int opcode) {
+        final short address = cpu.fetch8();
+        cpu.delegate.portWrite8(address, cpu.reg.AL.getValue());
+    }
+
+    /**
+     * OUT imm8,AX - Output word AX to immediate port number.
+     */
+    void outImm8AX(final int opcode) {
+        final short address = cpu.fetch8();
+        cpu.delegate.portWrite16(address, cpu.reg.AX.getValue());
+    }
+
+    /**
+     * IN AL,DX - Input byte from port DX into AL.
+     */
+    void inALDX(final int opcode) {
+        cpu.reg.AL.setValue(cpu.delegate.portRead8(cpu.reg.DX.getValue()));
+    }
+
+    /**
+     * IN AX,DX - Input word from port DX into AX.
+     */
+    void inAXDX(final int opcode) {
+        cpu.reg.AX.setValue(cpu.delegate.portRead16(cpu.reg.DX.getValue()));
+    }
+
+    /**
+     * OUT DX,AL - Output byte AL to port number in DX.
+     */
+    void outDXAL(final int opcode) {
+        cpu.delegate.portWrite8(cpu.reg.DX.getValue(), cpu.reg.AL.getValue());
+    }
+
+    /**
+     * OUT DX,AX - Output word AX to port number in DX.
+     */
+    void outDXAX(final int opcode) {
+        cpu.delegate.portWrite16(cpu.reg.DX.getValue(), cpu.reg.AX.getValue());
+    }
+}
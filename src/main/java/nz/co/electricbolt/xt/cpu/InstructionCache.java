@@ -0,0 +1,87 @@
+// InstructionCache.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.util.Arrays;
+
+/**
+ * Decoded instructions keyed by the linear address of CS:IP. Instructions are held in 256 byte pages which are
+ * allocated when the first instruction on the page is cached. A write to a page holding cached instructions discards
+ * that page, and the page before it (whose last instruction may extend into the written page), so self-modifying code
+ * is decoded again.
+ */
+public class InstructionCache {
+
+    static final int PAGE_SHIFT = 8;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_COUNT = Memory.MEMORY_SIZE >> PAGE_SHIFT;
+
+    private final DecodedInstruction[][] pages = new DecodedInstruction[PAGE_COUNT][];
+    private final boolean[] code = new boolean[PAGE_COUNT];     // Page holds (part of) a cached instruction.
+    int invalidations;                                          // Incremented whenever instructions are discarded.
+
+    InstructionCache() {
+    }
+
+    /**
+     * @return the instruction cached at linear address 0x00000 - 0xFFFFF, or null.
+     */
+    DecodedInstruction get(final int address) {
+        final DecodedInstruction[] page = pages[address >> PAGE_SHIFT];
+        return page == null ? null : page[address & (PAGE_SIZE - 1)];
+    }
+
+    /**
+     * Caches an instruction at linear address 0x00000 - 0xFFFFF. The instruction must not extend beyond 0xFFFFF.
+     */
+    void put(final int address, final DecodedInstruction instruction) {
+        final int pageNumber = address >> PAGE_SHIFT;
+        DecodedInstruction[] page = pages[pageNumber];
+        if (page == null) {
+            page = new DecodedInstruction[PAGE_SIZE];
+            pages[pageNumber] = page;
+        }
+        page[address & (PAGE_SIZE - 1)] = instruction;
+        code[pageNumber] = true;
+        code[(address + instruction.length - 1) >> PAGE_SHIFT] = true;
+    }
+
+    /**
+     * Invoked before linear address 0x00000 - 0xFFFFF is written.
+     */
+    void written(final int address) {
+        if (code[address >> PAGE_SHIFT]) {
+            invalidate(address >> PAGE_SHIFT);
+        }
+    }
+
+    /**
+     * Invoked before linear addresses from (inclusive) - to (exclusive) are written.
+     */
+    void written(final int from, final int to) {
+        for (int pageNumber = from >> PAGE_SHIFT; pageNumber <= (to - 1) >> PAGE_SHIFT; pageNumber++) {
+            if (code[pageNumber]) {
+                invalidate(pageNumber);
+            }
+        }
+    }
+
+    private void invalidate(final int pageNumber) {
+        pages[pageNumber] = null;
+        if (pageNumber > 0) {
+            pages[pageNumber - 1] = null;
+        }
+        code[pageNumber] = false;
+        invalidations++;
+    }
+
+    /**
+     * Discards all cached instructions.
+     */
+    void clear() {
+        Arrays.fill(pages, null);
+        Arrays.fill(code, false);
+        invalidations++;
+    }
+}
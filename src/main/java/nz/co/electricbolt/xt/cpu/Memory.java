@@ -3,21 +3,293 @@
 
 package nz.co.electricbolt.xt.cpu;
 
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 1MB of memory. Execute, read and write permissions are held for each 256 byte page; an access to a page without the
+ * permission invokes {@code CPUDelegate.invalidMemoryAccess()}. Until a permission is first removed every access is
+ * permitted without looking at the pages, so memory nothing protects costs no more than {@code UnprotectedMemory},
+ * which never checks permissions.
+ * <p>
+ * The bytes are held in 4KB frames, which are copied on write. Frames that have never been written map a single zero
+ * frame shared by every instance, and {@code share()} maps frames whose content is identical to a frame of another
+ * instance, such as those of the same program image, to a single shared frame. So many instances running the same
+ * program only hold the frames they have written.
+ * <p>
+ * Each frame records the write generation in which it was last written, so that snapshots, checkpoint diffs and the
+ * like only need to visit the frames that changed. Starting a new generation write protects every frame; the first
+ * write to a frame in the generation records it. Subsequent writes cost nothing extra.
+ */
 public class Memory {
 
     public static final byte PERMISSION_EXECUTE = 0x01;
     public static final byte PERMISSION_READ = 0x02;
     public static final byte PERMISSION_WRITE = 0x04;
+    private static final byte PERMISSION_ALL = PERMISSION_EXECUTE | PERMISSION_READ | PERMISSION_WRITE;
 
     public static final int MEMORY_SIZE = 1024 * 1024;
+    static final int PAGE_SHIFT = 8;
+    static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    public static final int FRAME_SHIFT = 12;
+    public static final int FRAME_SIZE = 1 << FRAME_SHIFT;
+    public static final int FRAME_COUNT = MEMORY_SIZE >> FRAME_SHIFT;
+    private static final int FRAME_MASK = FRAME_SIZE - 1;
+    private static final VarHandle WORD = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
 
-    final byte[] buf = new byte[MEMORY_SIZE];
-    final byte[] permissions = new byte[MEMORY_SIZE];
+    private final byte[][] frames = new byte[FRAME_COUNT][];                // Read through.
+    private final byte[][] owned = new byte[FRAME_COUNT][];                 // Null if shared.
+    private final byte[][] writable = new byte[FRAME_COUNT][];              // Owned and written in this generation.
+    private final int[] generations = new int[FRAME_COUNT];                 // Generation last written, or -1.
+    private int generation;
+    final byte[] permissions = new byte[MEMORY_SIZE >> PAGE_SHIFT];
+    private boolean restricted;                                             // A permission has been removed.
+    final InstructionCache instructionCache = new InstructionCache();
     final CPU cpu;
 
     public Memory(final CPU cpu) {
         this.cpu = cpu;
-        applyPermission(0, MEMORY_SIZE, (byte) (PERMISSION_EXECUTE | PERMISSION_READ | PERMISSION_WRITE));
+        reset();
+    }
+
+    /**
+     * Restores the power-on state of memory: all zero and all permitted, with no cached instructions. Frames that were
+     * written are dropped rather than cleared, and the write generation restarts at 0.
+     */
+    public void reset() {
+        Arrays.fill(permissions, PERMISSION_ALL);
+        restricted = false;
+        Arrays.fill(frames, SharedFrames.ZERO);
+        Arrays.fill(owned, null);
+        Arrays.fill(writable, null);
+        Arrays.fill(generations, -1);
+        generation = 0;
+        instructionCache.clear();
+    }
+
+    /**
+     * @return the byte at linear address 0x00000 - 0xFFFFF.
+     */
+    private byte get(final int address) {
+        return frames[address >> FRAME_SHIFT][address & FRAME_MASK];
+    }
+
+    /**
+     * Sets the byte at linear address 0x00000 - 0xFFFFF, without invalidating cached instructions.
+     */
+    private void set(final int address, final byte value) {
+        writableFrame(address >> FRAME_SHIFT)[address & FRAME_MASK] = value;
+    }
+
+    /**
+     * @return the frame to write to, copying it first if it is shared, and recording that it was written in this
+     * generation.
+     */
+    private byte[] writableFrame(final int frame) {
+        byte[] result = writable[frame];
+        if (result == null) {
+            result = owned[frame];
+            if (result == null) {
+                result = frames[frame].clone();
+                frames[frame] = result;
+                owned[frame] = result;
+            }
+            writable[frame] = result;
+            generations[frame] = generation;
+        }
+        return result;
+    }
+
+    /**
+     * Shares the frames that the linear addresses from (inclusive) - to (exclusive) overlap with every other instance
+     * holding a frame of the same content, e.g. once a program image has been loaded and relocated. A shared frame is
+     * copied when it is next written.
+     */
+    public void share(final int from, final int to) {
+        for (int frame = from >> FRAME_SHIFT; frame <= (to - 1) >> FRAME_SHIFT; frame++) {
+            if (owned[frame] != null) {
+                frames[frame] = SharedFrames.intern(owned[frame]);
+                owned[frame] = null;
+                writable[frame] = null;
+            }
+        }
+    }
+
+    /**
+     * @return the frames of memory, which are shared with the caller: each is copied before this instance next writes
+     * to it.
+     */
+    byte[][] snapshotFrames() {
+        Arrays.fill(owned, null);
+        Arrays.fill(writable, null);
+        return frames.clone();
+    }
+
+    /**
+     * Maps the frames and permissions of a snapshot, which are shared until written. Frames that differ from the
+     * current ones are recorded as written in this generation.
+     */
+    void restoreFrames(final byte[][] snapshot, final byte[] snapshotPermissions) {
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            if (frames[frame] != snapshot[frame]) {
+                frames[frame] = snapshot[frame];
+                generations[frame] = generation;
+            }
+        }
+        Arrays.fill(owned, null);
+        Arrays.fill(writable, null);
+        System.arraycopy(snapshotPermissions, 0, permissions, 0, permissions.length);
+        restricted = false;
+        for (final byte permission : permissions) {
+            restricted |= permission != PERMISSION_ALL;
+        }
+        instructionCache.clear();
+    }
+
+    /**
+     * @return the number of frames written by this instance, and so not shared with any other.
+     */
+    public int getPrivateFrameCount() {
+        int count = 0;
+        for (final byte[] frame : owned) {
+            if (frame != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Starts a new write generation. Frames written from now on are reported by {@code getDirtyFrames()} until the
+     * next generation starts, and by {@code getDirtyFrames(generation)} thereafter.
+     * @return the new generation.
+     */
+    public int clearDirtyFrames() {
+        Arrays.fill(writable, null);
+        return ++generation;
+    }
+
+    /**
+     * @return the frames written since the current write generation started; frame n holds linear addresses
+     * n * FRAME_SIZE - (n + 1) * FRAME_SIZE - 1.
+     */
+    public BitSet getDirtyFrames() {
+        return getDirtyFrames(generation);
+    }
+
+    /**
+     * @return the frames written since generation started. Generation 0 starts when the instance is created.
+     */
+    public BitSet getDirtyFrames(final int generation) {
+        final BitSet result = new BitSet(FRAME_COUNT);
+        for (int frame = 0; frame < FRAME_COUNT; frame++) {
+            if (generations[frame] >= generation) {
+                result.set(frame);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the current write generation.
+     */
+    public int getWriteGeneration() {
+        return generation;
+    }
+
+    /**
+     * Copies length bytes from linear memory at address to dst at dstPos. The bytes must be within 0x00000 - 0xFFFFF.
+     */
+    private void read(int address, final byte[] dst, int dstPos, int length) {
+        while (length > 0) {
+            final int n = Math.min(length, FRAME_SIZE - (address & FRAME_MASK));
+            System.arraycopy(frames[address >> FRAME_SHIFT], address & FRAME_MASK, dst, dstPos, n);
+            address += n;
+            dstPos += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Copies length bytes from src at srcPos to linear memory at address, without invalidating cached instructions. The
+     * bytes must be within 0x00000 - 0xFFFFF.
+     */
+    private void write(int address, final byte[] src, int srcPos, int length) {
+        while (length > 0) {
+            final int n = Math.min(length, FRAME_SIZE - (address & FRAME_MASK));
+            System.arraycopy(src, srcPos, writableFrame(address >> FRAME_SHIFT), address & FRAME_MASK, n);
+            address += n;
+            srcPos += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Reads up to length bytes from channel directly into memory at the specified segment:offset, e.g. for DOS file
+     * reads. The offset wraps from 0xFFFF to 0x0000, and the linear address from 0xFFFFF to 0x00000. Invokes
+     * delegate.invalidMemoryAccess() if the memory is not writable (Memory.PERMISSION_WRITE).
+     * @return the number of bytes read, which is less than length only at the end of the channel.
+     */
+    public int readFrom(final ReadableByteChannel channel, final SegOfs segOfs, final int length) throws IOException {
+        int offset = segOfs.getOffset() & 0xFFFF;
+        int total = 0;
+        while (total < length) {
+            final int address = (((segOfs.getSegment() & 0xFFFF) << 4) + offset) & (MEMORY_SIZE - 1);
+            final int n = Math.min(Math.min(length - total, 0x10000 - offset), FRAME_SIZE - (address & FRAME_MASK));
+            checkPermission(segOfs.getSegment(), offset, address, n, PERMISSION_WRITE);
+            instructionCache.written(address, address + n);
+            final ByteBuffer buffer = ByteBuffer.wrap(writableFrame(address >> FRAME_SHIFT), address & FRAME_MASK, n);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) == -1) {
+                    return total + n - buffer.remaining();
+                }
+            }
+            total += n;
+            offset = (offset + n) & 0xFFFF;
+        }
+        return total;
+    }
+
+    /**
+     * Writes length bytes from memory at the specified segment:offset directly to channel, e.g. for DOS file writes.
+     * The offset wraps from 0xFFFF to 0x0000, and the linear address from 0xFFFFF to 0x00000. Invokes
+     * delegate.invalidMemoryAccess() if the memory is not readable (Memory.PERMISSION_READ).
+     */
+    public void writeTo(final WritableByteChannel channel, final SegOfs segOfs, final int length) throws IOException {
+        int offset = segOfs.getOffset() & 0xFFFF;
+        for (int total = 0; total < length; ) {
+            final int address = (((segOfs.getSegment() & 0xFFFF) << 4) + offset) & (MEMORY_SIZE - 1);
+            final int n = Math.min(Math.min(length - total, 0x10000 - offset), FRAME_SIZE - (address & FRAME_MASK));
+            checkPermission(segOfs.getSegment(), offset, address, n, PERMISSION_READ);
+            final ByteBuffer buffer = ByteBuffer.wrap(frames[address >> FRAME_SHIFT], address & FRAME_MASK, n);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            total += n;
+            offset = (offset + n) & 0xFFFF;
+        }
+    }
+
+    /**
+     * Invokes delegate.invalidMemoryAccess() for the first of the length bytes at linear address (and segment:offset)
+     * that doesn't have the permission, if any. The bytes must be within a single frame.
+     */
+    private void checkPermission(final short segment, final int offset, final int address, final int length,
+                                 final byte permission) {
+        for (int a = address; a < address + length; a = (a & ~(PAGE_SIZE - 1)) + PAGE_SIZE) {
+            if (!isPermitted(a, permission)) {
+                cpu.delegate.invalidMemoryAccess(new SegOfs(segment, (short) (offset + a - address)), permission);
+                return;
+            }
+        }
     }
 
     public String fromBitmask(final byte permissionBitmask) {
@@ -34,16 +306,164 @@ public class Memory {
         return buf.toString().trim();
     }
 
+    /**
+     * Grants permissions to every page that the size bytes at linear address 0x00000 - 0xFFFFF overlap.
+     */
     public void applyPermission(final int linearAddress, final int size, final byte permissionBitmask) {
-        for (int i = linearAddress; i < linearAddress + size; i++) {
-            permissions[i] |= permissionBitmask;
+        if (size <= 0) {
+            return;
+        }
+        for (int page = linearAddress >> PAGE_SHIFT; page <= (linearAddress + size - 1) >> PAGE_SHIFT; page++) {
+            permissions[page] |= permissionBitmask;
         }
     }
 
+    /**
+     * Removes permissions from the pages that lie entirely within the size bytes at linear address 0x00000 - 0xFFFFF.
+     * A page only partially covered keeps its permissions, so an access is never reported as invalid unless it is.
+     */
     public void removePermission(final int linearAddress, final int size, final byte permissionBitmask) {
-        for (int i = linearAddress; i < linearAddress + size; i++) {
-            permissions[i] &= (byte) ~permissionBitmask;
+        for (int page = (linearAddress + PAGE_SIZE - 1) >> PAGE_SHIFT; page < (linearAddress + size) >> PAGE_SHIFT;
+             page++) {
+            permissions[page] &= (byte) ~permissionBitmask;
+            restricted = true;
+        }
+        // Cached instructions were only checked for PERMISSION_EXECUTE when they were decoded.
+        instructionCache.clear();
+    }
+
+    /**
+     * @return true if the page holding linear address 0x00000 - 0xFFFFF has the permission.
+     */
+    boolean isPermitted(final int address, final byte permission) {
+        return !restricted || (permissions[address >> PAGE_SHIFT] & permission) != 0;
+    }
+
+    /**
+     * @return true if every page holding linear addresses from (inclusive) - to (exclusive) has the permission.
+     */
+    boolean isPermitted(final int from, final int to, final byte permission) {
+        for (int address = from; address < to; address = (address & ~(PAGE_SIZE - 1)) + PAGE_SIZE) {
+            if (!isPermitted(address, permission)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Copies length bytes from linear address src to linear address dst in a single block, as if through a temporary
+     * buffer. Used by REP MOVSB/MOVSW.
+     * @return false, without copying, if either range extends beyond 0xFFFFF, or any source byte is not readable or
+     * any destination byte is not writable.
+     */
+    boolean copyLinear(final int src, final int dst, final int length) {
+        if (src + length > MEMORY_SIZE || dst + length > MEMORY_SIZE
+                || !isPermitted(src, src + length, PERMISSION_READ)
+                || !isPermitted(dst, dst + length, PERMISSION_WRITE)) {
+            return false;
+        }
+        instructionCache.written(dst, dst + length);
+        if (dst > src && dst < src + length) {
+            // Overlapping a later frame of the source before it is read.
+            final byte[] temporary = new byte[length];
+            read(src, temporary, 0, length);
+            write(dst, temporary, 0, length);
+            return true;
+        }
+        for (int s = src, d = dst, remaining = length; remaining > 0; ) {
+            final int n = Math.min(remaining, FRAME_SIZE - Math.max(s & FRAME_MASK, d & FRAME_MASK));
+            final byte[] destination = writableFrame(d >> FRAME_SHIFT);
+            System.arraycopy(frames[s >> FRAME_SHIFT], s & FRAME_MASK, destination, d & FRAME_MASK, n);
+            s += n;
+            d += n;
+            remaining -= n;
+        }
+        return true;
+    }
+
+    /**
+     * Fills length bytes at linear address dst with the low byte of value (size 1), or the little endian word value
+     * (size 2). Used by REP STOSB/STOSW.
+     * @return false, without filling, if the range extends beyond 0xFFFFF or any byte is not writable.
+     */
+    boolean fillLinear(final int dst, final int length, final int value, final int size) {
+        if (dst + length > MEMORY_SIZE || !isPermitted(dst, dst + length, PERMISSION_WRITE)) {
+            return false;
+        }
+        instructionCache.written(dst, dst + length);
+        for (int d = dst, remaining = length; remaining > 0; ) {
+            final int n = Math.min(remaining, FRAME_SIZE - (d & FRAME_MASK));
+            final byte[] frame = writableFrame(d >> FRAME_SHIFT);
+            if (size == 1) {
+                Arrays.fill(frame, d & FRAME_MASK, (d & FRAME_MASK) + n, (byte) value);
+            } else {
+                // A word may straddle two frames, so the byte written depends on the distance from dst.
+                for (int i = 0; i < n; i++) {
+                    frame[(d & FRAME_MASK) + i] = (byte) (((d + i - dst) & 1) == 0 ? value : value >> 8);
+                }
+            }
+            d += n;
+            remaining -= n;
+        }
+        return true;
+    }
+
+    /**
+     * Searches count bytes, starting at linear address and moving by step (1 or -1), for the first byte that is equal
+     * (or not equal) to value. The bytes must be within 0x00000 - 0xFFFFF. Used by REPE/REPNE SCASB.
+     * @return the index of the byte found, or -1.
+     */
+    int scanLinear(final int address, final int count, final int step, final byte value, final boolean equal) {
+        for (int i = 0, a = address; i < count; i++, a += step) {
+            if ((get(a) == value) == equal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares count bytes at linear addresses src and dst, both moving by step (1 or -1), for the first pair of bytes
+     * that are equal (or not equal). The bytes must be within 0x00000 - 0xFFFFF. Used by REPE/REPNE CMPSB.
+     * @return the index of the pair found, or -1.
+     */
+    int compareLinear(final int src, final int dst, final int count, final int step, final boolean equal) {
+        if (step > 0 && !equal) {
+            for (int i = 0, s = src, d = dst; i < count; ) {
+                final int n = Math.min(count - i, FRAME_SIZE - Math.max(s & FRAME_MASK, d & FRAME_MASK));
+                final int mismatch = Arrays.mismatch(frames[s >> FRAME_SHIFT], s & FRAME_MASK, (s & FRAME_MASK) + n,
+                        frames[d >> FRAME_SHIFT], d & FRAME_MASK, (d & FRAME_MASK) + n);
+                if (mismatch != -1) {
+                    return i + mismatch;
+                }
+                i += n;
+                s += n;
+                d += n;
+            }
+            return -1;
+        }
+        for (int i = 0, s = src, d = dst; i < count; i++, s += step, d += step) {
+            if ((get(s) == get(d)) == equal) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the length bytes of code are at linear address 0x00000 - 0xFFFFF and are all executable.
+     */
+    boolean isExecutable(final int linearAddress, final byte[] code, final int length) {
+        if (linearAddress + length > MEMORY_SIZE) {
+            return false;
         }
+        for (int i = 0; i < length; i++) {
+            if (get(linearAddress + i) != code[i] || !isPermitted(linearAddress + i, PERMISSION_EXECUTE)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -60,7 +480,7 @@ public class Memory {
             throw new IllegalArgumentException("linearAddress argument (" + linearAddress + ") is not in range 0.." + (MEMORY_SIZE - 1));
         }
         final byte[] result = new byte[size];
-        System.arraycopy(buf, linearAddress, result, 0, size);
+        read(linearAddress, result, 0, size);
         return result;
     }
 
@@ -78,7 +498,8 @@ public class Memory {
         } else if (linearAddress < 0 || linearAddress >= MEMORY_SIZE) {
             throw new IllegalArgumentException("linearAddress " + linearAddress + " not in range 0.." + (MEMORY_SIZE - 1));
         }
-        System.arraycopy(data, srcPos, buf, linearAddress, length);
+        instructionCache.written(linearAddress, linearAddress + length);
+        write(linearAddress, data, srcPos, length);
     }
 
     /**
@@ -88,7 +509,7 @@ public class Memory {
      * @throws IndexOutOfBoundsException if linearAddress is not within the range above.
      */
     public byte getLinearByte(final int linearAddress) {
-        return buf[linearAddress];
+        return get(linearAddress);
     }
 
     /**
@@ -98,7 +519,8 @@ public class Memory {
      * @throws IndexOutOfBoundsException if linearAddress is not within the range above.
      */
     public void setLinearByte(final int linearAddress, final byte value) {
-        buf[linearAddress] = value;
+        instructionCache.written(linearAddress);
+        set(linearAddress, value);
     }
 
     /**
@@ -108,7 +530,7 @@ public class Memory {
      */
     public byte getByte(final SegOfs segOfs) {
         int address = segOfs.toLinearAddress();
-        return buf[address];
+        return get(address);
     }
 
     /**
@@ -118,7 +540,8 @@ public class Memory {
      */
     public void setByte(final SegOfs segOfs, final byte value) {
         int address = segOfs.toLinearAddress();
-        buf[address] = value;
+        instructionCache.written(address);
+        set(address, value);
     }
 
     /**
@@ -173,8 +596,8 @@ public class Memory {
      */
     public byte readByte(final SegOfs segOfs) {
         int address = segOfs.toLinearAddress();
-        byte value = buf[address];
-        if ((permissions[address] & Memory.PERMISSION_READ) == 0) {
+        byte value = get(address);
+        if (!isPermitted(address, Memory.PERMISSION_READ)) {
             cpu.delegate.invalidMemoryAccess(segOfs, Memory.PERMISSION_READ);
         }
         return value;
@@ -188,8 +611,8 @@ public class Memory {
      */
     public byte fetchByte(final SegOfs segOfs) {
         int address = segOfs.toLinearAddress();
-        byte value = buf[address];
-        if ((permissions[address] & Memory.PERMISSION_EXECUTE) == 0) {
+        byte value = get(address);
+        if (!isPermitted(address, Memory.PERMISSION_EXECUTE)) {
             cpu.delegate.invalidMemoryAccess(segOfs, Memory.PERMISSION_EXECUTE);
         }
         return value;
@@ -203,10 +626,11 @@ public class Memory {
      */
     public void writeByte(final SegOfs segOfs, final byte value) {
         int address = segOfs.toLinearAddress();
-        if ((permissions[address] & Memory.PERMISSION_WRITE) == 0) {
+        if (!isPermitted(address, Memory.PERMISSION_WRITE)) {
             cpu.delegate.invalidMemoryAccess(segOfs, Memory.PERMISSION_WRITE);
         }
-        buf[address] = value;
+        instructionCache.written(address);
+        set(address, value);
     }
 
     /**
@@ -252,4 +676,106 @@ public class Memory {
         segOfs.increment();
         writeByte(segOfs, (byte) (value >> 8));
     }
+
+    /**
+     * Reads an 8-bit byte from memory at the specified segment base (segment * 16) and offset 0x0000 - 0xFFFF.
+     * If the address computes to a linear address of greater than 0xFFFFF, it is wrapped around to the beginning of
+     * the address space at 0x00000. Invokes delegate.invalidMemoryAccess() if the memory address is not readable
+     * (Memory.PERMISSION_READ).
+     */
+    public byte readByte(final int segmentBase, final int offset) {
+        final int address = (segmentBase + (offset & 0xFFFF)) & (MEMORY_SIZE - 1);
+        final byte value = get(address);
+        if (!isPermitted(address, Memory.PERMISSION_READ)) {
+            cpu.delegate.invalidMemoryAccess(new SegOfs((short) (segmentBase >> 4), (short) offset), Memory.PERMISSION_READ);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an 8-bit instruction byte from memory at the specified segment base (segment * 16) and offset 0x0000 -
+     * 0xFFFF. If the address computes to a linear address of greater than 0xFFFFF, it is wrapped around to the
+     * beginning of the address space at 0x00000. Invokes delegate.invalidMemoryAccess() if the memory address is not
+     * executable (Memory.PERMISSION_EXECUTE).
+     */
+    public byte fetchByte(final int segmentBase, final int offset) {
+        final int address = (segmentBase + offset) & (MEMORY_SIZE - 1);
+        final byte value = get(address);
+        if (!isPermitted(address, Memory.PERMISSION_EXECUTE)) {
+            cpu.delegate.invalidMemoryAccess(new SegOfs((short) (segmentBase >> 4), (short) offset),
+                    Memory.PERMISSION_EXECUTE);
+        }
+        return value;
+    }
+
+    /**
+     * Writes an 8-bit byte to memory at the specified segment base (segment * 16) and offset 0x0000 - 0xFFFF.
+     * If the address computes to a linear address of greater than 0xFFFFF, it is wrapped around to the beginning of
+     * the address space at 0x00000. Invokes delegate.invalidMemoryAccess() if the memory address is not writable
+     * (Memory.PERMISSION_WRITE).
+     */
+    public void writeByte(final int segmentBase, final int offset, final byte value) {
+        final int address = (segmentBase + (offset & 0xFFFF)) & (MEMORY_SIZE - 1);
+        if (!isPermitted(address, Memory.PERMISSION_WRITE)) {
+            cpu.delegate.invalidMemoryAccess(new SegOfs((short) (segmentBase >> 4), (short) offset), Memory.PERMISSION_WRITE);
+        }
+        instructionCache.written(address);
+        set(address, value);
+    }
+
+    /**
+     * Reads a 16-bit word from memory at the specified segment base (segment * 16) and offset 0x0000 - 0xFFFF.
+     * If the offset value is 0xFFFF, then the high byte wraps to the beginning of the segment and uses offset 0x0000.
+     * Invokes delegate.invalidMemoryAccess() if the memory address is not readable (Memory.PERMISSION_READ).
+     */
+    public short readWord(final int segmentBase, final int offset) {
+        final int address = segmentBase + offset;
+        // Fast path: nothing wraps, both bytes are in one frame, and both are readable.
+        if (offset != 0xFFFF && (address & FRAME_MASK) != FRAME_MASK && address < MEMORY_SIZE
+                && isPermitted(address, Memory.PERMISSION_READ)
+                && isPermitted(address + 1, Memory.PERMISSION_READ)) {
+            return (short) WORD.get(frames[address >> FRAME_SHIFT], address & FRAME_MASK);
+        }
+        final byte lo = readByte(segmentBase, offset);
+        final byte hi = readByte(segmentBase, (offset + 1) & 0xFFFF);
+        return (short) ((hi & 0xFF) << 8 | lo & 0xFF);
+    }
+
+    /**
+     * Reads a 16-bit instruction word from memory at the specified segment base (segment * 16) and offset 0x0000 -
+     * 0xFFFF. If the offset value is 0xFFFF, then the high byte wraps to the beginning of the segment and uses offset
+     * 0x0000. Invokes delegate.invalidMemoryAccess() if the memory address is not executable
+     * (Memory.PERMISSION_EXECUTE).
+     */
+    public short fetchWord(final int segmentBase, final int offset) {
+        final int address = segmentBase + offset;
+        // Fast path: nothing wraps, both bytes are in one frame, and both are executable.
+        if (offset != 0xFFFF && (address & FRAME_MASK) != FRAME_MASK && address < MEMORY_SIZE
+                && isPermitted(address, Memory.PERMISSION_EXECUTE)
+                && isPermitted(address + 1, Memory.PERMISSION_EXECUTE)) {
+            return (short) WORD.get(frames[address >> FRAME_SHIFT], address & FRAME_MASK);
+        }
+        final byte lo = fetchByte(segmentBase, offset);
+        final byte hi = fetchByte(segmentBase, (offset + 1) & 0xFFFF);
+        return (short) ((hi & 0xFF) << 8 | lo & 0xFF);
+    }
+
+    /**
+     * Writes a 16-bit word to memory at the specified segment base (segment * 16) and offset 0x0000 - 0xFFFF.
+     * If the offset value is 0xFFFF, then the high byte wraps to the beginning of the segment and uses offset 0x0000.
+     * Invokes delegate.invalidMemoryAccess() if the memory address is not writable (Memory.PERMISSION_WRITE).
+     */
+    public void writeWord(final int segmentBase, final int offset, final short value) {
+        final int address = segmentBase + offset;
+        // Fast path: nothing wraps, both bytes are in one frame, and both are writable.
+        if (offset != 0xFFFF && (address & FRAME_MASK) != FRAME_MASK && address < MEMORY_SIZE
+                && isPermitted(address, Memory.PERMISSION_WRITE)
+                && isPermitted(address + 1, Memory.PERMISSION_WRITE)) {
+            instructionCache.written(address, address + 2);
+            WORD.set(writableFrame(address >> FRAME_SHIFT), address & FRAME_MASK, value);
+            return;
+        }
+        writeByte(segmentBase, offset, (byte) value);
+        writeByte(segmentBase, (offset + 1) & 0xFFFF, (byte) (value >> 8));
+    }
 }
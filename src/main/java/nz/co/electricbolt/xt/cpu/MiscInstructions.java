@@ -0,0 +1,96 @@
+// MiscInstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Rarely executed instructions: the BCD adjustments, ESC, WAIT, LOCK, HLT and invalid opcodes. Kept out of the classes
+ * holding the frequently executed instructions.
+ */
+public class MiscInstructions {
+
+    private final CPU cpu;
+
+    MiscInstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    // region BCD.
+
+    /**
+     * DAA - Decimal adjust AL after addition.
+     */
+    void daa(final int opcode) {
+        cpu.bcd.daa();
+    }
+
+    /**
+     * DAS - Decimal adjust AL after subtraction.
+     */
+    void das(final int opcode) {
+        cpu.bcd.das();
+    }
+
+    /**
+     * AAA - ASCII adjust after addition.
+     */
+    void aaa(final int opcode) {
+        cpu.bcd.aaa();
+    }
+
+    /**
+     * AAS - ASCII adjust after subtraction.
+     */
+    void aas(final int opcode) {
+        cpu.bcd.aas();
+    }
+
+    /**
+     * AAM base - ASCII adjust after multiplication. A base of 0 raises interrupt 0.
+     */
+    void aam(final int opcode) {
+        final byte base = cpu.fetch8();
+        if (!cpu.bcd.aam(base)) {
+            cpu.interrupt((byte) 0);
+        }
+    }
+
+    /**
+     * AAD base - ASCII adjust before division.
+     */
+    void aad(final int opcode) {
+        final byte base = cpu.fetch8();
+        cpu.bcd.aad(base);
+    }
+
+    // endregion
+
+    /**
+     * ESC (0xD8 - 0xDF) - Escape to co-processor. The ModR/M operand is decoded and ignored.
+     */
+    void esc(final int opcode) {
+        cpu.modRegRM.fetch();
+    }
+
+    /**
+     * WAIT - Wait until BUSY pin is inactive (HIGH), and LOCK - Assert LOCK# signal for the next instruction. Both
+     * ignored.
+     */
+    void nop(final int opcode) {
+        // ignore.
+    }
+
+    /**
+     * HLT - Halt.
+     */
+    void hlt(final int opcode) {
+        cpu.delegate.halt();
+    }
+
+    /**
+     * Undocumented (unimplemented) opcode.
+     */
+    void invalid(final int opcode) {
+        cpu.delegate.invalidOpcode("Invalid opcode");
+    }
+}
@@ -62,126 +62,216 @@ package nz.co.electricbolt.xt.cpu;
 
 public class ModRegRM {
 
+    /**
+     * Precomputed decoding of a single ModR/M byte. Register numbers are as per the r16(/r) row in the table above.
+     */
+    private static final class Decoding {
+        final int reg;                  // reg field 0 - 7.
+        final int rm;                   // r/m field 0 - 7.
+        final boolean register;         // mod == 11, r/m selects a register rather than memory.
+        final int displacementSize;     // Number of displacement bytes following the ModR/M byte: 0, 1 or 2.
+        final int base;                 // Base register BX or BP, or -1 if none.
+        final int index;                // Index register SI or DI, or -1 if none.
+        final int segment;              // Default segment register SS or DS.
+
+        Decoding(final int value) {
+            final int mod = value >> 6;
+            reg = (value >> 3) & 0x07;
+            rm = value & 0x07;
+            register = mod == 3;
+            if (register) {
+                displacementSize = 0;
+                base = -1;
+                index = -1;
+                segment = RegSet.DS_SEGMENT;
+            } else if (mod == 0 && rm == 6) {
+                displacementSize = 2;
+                base = -1;
+                index = -1;
+                segment = RegSet.DS_SEGMENT;
+            } else {
+                displacementSize = mod;
+                base = switch (rm) {
+                    case 0, 1, 7 -> RegSet.BX_INDEX;
+                    case 2, 3, 6 -> RegSet.BP_INDEX;
+                    default -> -1;
+                };
+                index = switch (rm) {
+                    case 0, 2, 4 -> RegSet.SI_INDEX;
+                    case 1, 3, 5 -> RegSet.DI_INDEX;
+                    default -> -1;
+                };
+                segment = (rm == 2 || rm == 3 || rm == 6) ? RegSet.SS_SEGMENT : RegSet.DS_SEGMENT;
+            }
+        }
+    }
+
+    private static final Decoding[] DECODINGS = new Decoding[256];
+
+    static {
+        for (int value = 0; value < 256; value++) {
+            DECODINGS[value] = new Decoding(value);
+        }
+    }
+
+    /**
+     * Direct memory operand disp16 - as used by MOV AL/AX,moffs and MOV moffs,AL/AX.
+     */
+    private static final Decoding DIRECT = DECODINGS[0x06];
+
     private final CPU cpu;
 
+    // Operand of the most recently fetched ModR/M byte.
+    private Decoding decoding = DIRECT;
+    private int segmentBase;
+    private int offset;
+
     public ModRegRM(final CPU cpu) {
         this.cpu = cpu;
     }
 
-    public SegOfs fetchSegOfs() {
-        final short offset = cpu.fetch16();
-        final Reg16 segment = cpu.getSegmentOverride() == null ? cpu.reg.DS : cpu.getSegmentOverride();
-        cpu.setSegmentOverride(null);
-        return new SegOfs(segment, offset);
+    /**
+     * Fetches a ModR/M byte and any displacement from CS:IP. If r/m refers to memory, the effective address is
+     * calculated and any segment override is consumed. Nothing is allocated; the operand is subsequently accessed with
+     * the read and write methods below.
+     */
+    public void fetch() {
+        decoding = DECODINGS[cpu.fetch8() & 0xFF];
+        if (!decoding.register) {
+            effectiveAddress();
+        }
+    }
+
+    /**
+     * Fetches a direct memory offset (moffs) from CS:IP. The segment is DS unless overridden.
+     */
+    public void fetchDirect() {
+        decoding = DIRECT;
+        effectiveAddress();
     }
 
-    public RegRM8 fetch8() {
-        final int value = cpu.fetch8() & 0xFF;
-        final int modValue = value >> 6;
-        final int regValue = (value >> 3) & 0x07;
-        final int rmValue = value & 0x07;
-        if (modValue == 3) {
-            return new RegRM8(getReg8(regValue), getReg8(rmValue), regValue);
-        } else {
-            return new RegRM8(getReg8(regValue), effectiveAddress(modValue, rmValue), cpu.memory, regValue);
+    private void effectiveAddress() {
+        int displacement = switch (decoding.displacementSize) {
+            case 1 -> cpu.fetch8();
+            case 2 -> cpu.fetch16();
+            default -> 0;
+        };
+        if (decoding.base != -1) {
+            displacement += cpu.reg.get16(decoding.base);
+        }
+        if (decoding.index != -1) {
+            displacement += cpu.reg.get16(decoding.index);
+        }
+        int segment = cpu.segmentOverride;
+        cpu.segmentOverride = CPU.NO_SEGMENT_OVERRIDE;
+        if (segment == CPU.NO_SEGMENT_OVERRIDE) {
+            segment = decoding.segment;
         }
+        segmentBase = cpu.reg.getSegBase(segment);
+        offset = displacement & 0xFFFF;
+    }
+
+    /**
+     * @return the reg field 0 - 7 of the ModR/M byte. Used as an opcode extension by the group instructions.
+     */
+    public int getRegValue() {
+        return decoding.reg;
+    }
+
+    /**
+     * @return true if r/m refers to a register, false if it refers to memory.
+     */
+    public boolean isRegister() {
+        return decoding.register;
+    }
+
+    /**
+     * @return the r/m register number 0 - 7 when {@code isRegister()} is true.
+     */
+    public int getRMRegister() {
+        return decoding.rm;
     }
 
-    public RegRM16 fetch16() {
-        return fetch16(false);
+    /**
+     * @return segment * 16 of the r/m memory operand.
+     */
+    public int getSegmentBase() {
+        return segmentBase;
     }
 
-    public RegRM16 fetch16SReg() {
-        return fetch16(true);
+    /**
+     * @return effective address (offset) of the r/m memory operand.
+     */
+    public int getOffset() {
+        return offset;
     }
 
-    private RegRM16 fetch16(boolean SReg) {
-        final int value = cpu.fetch8() & 0xFF;
-        final int modValue = value >> 6;
-        final int regValue = (value >> 3) & 0x07;
-        final int rmValue = value & 0x07;
-        if (modValue == 3) {
-            return new RegRM16(SReg ? getSegReg(regValue) : getReg16(regValue), getReg16(rmValue), regValue);
+    public byte readRM8() {
+        if (decoding.register) {
+            return (byte) cpu.reg.get8(decoding.rm);
         } else {
-            return new RegRM16(SReg ? getSegReg(regValue) : getReg16(regValue), effectiveAddress(modValue, rmValue), cpu.memory, regValue);
+            return cpu.memory.readByte(segmentBase, offset);
         }
     }
 
-    private SegOfs effectiveAddress(final int mod, final int rm) {
-        int displacement = 0;
-        Reg16 segment = cpu.getSegmentOverride();
-        cpu.setSegmentOverride(null);
+    public void writeRM8(final byte value) {
+        if (decoding.register) {
+            cpu.reg.set8(decoding.rm, value);
+        } else {
+            cpu.memory.writeByte(segmentBase, offset, value);
+        }
+    }
 
-        if (mod == 0 && rm == 6) {
-            displacement = cpu.fetch16();
-            if (segment == null) {
-                segment = cpu.reg.DS;
-            }
+    public short readRM16() {
+        if (decoding.register) {
+            return (short) cpu.reg.get16(decoding.rm);
         } else {
-            if (mod == 1) {
-                displacement = cpu.fetch8();
-            } else if (mod == 2) {
-                displacement = cpu.fetch16();
-            }
+            return cpu.memory.readWord(segmentBase, offset);
+        }
+    }
 
-            displacement += switch (rm) {
-                case 0 -> (cpu.reg.BX.getValue() & 0xFFFF) + ((int) cpu.reg.SI.getValue() & 0xFFFF);
-                case 1 -> (cpu.reg.BX.getValue() & 0xFFFF) + ((int) cpu.reg.DI.getValue() & 0xFFFF);
-                case 2 -> (cpu.reg.BP.getValue() & 0xFFFF) + ((int) cpu.reg.SI.getValue() & 0xFFFF);
-                case 3 -> (cpu.reg.BP.getValue() & 0xFFFF) + ((int) cpu.reg.DI.getValue() & 0xFFFF);
-                case 4 -> (int) (cpu.reg.SI.getValue() & 0xFFFF);
-                case 5 -> (int) (cpu.reg.DI.getValue() & 0xFFFF);
-                case 6 -> (int) (cpu.reg.BP.getValue() & 0xFFFF);
-                default -> (int) (cpu.reg.BX.getValue() & 0xFFFF);
-            };
-            if (segment == null) {
-                if (rm == 2 || rm == 3 || rm == 6) {
-                    segment = cpu.reg.SS;
-                } else {
-                    segment = cpu.reg.DS;
-                }
-            }
+    public void writeRM16(final short value) {
+        if (decoding.register) {
+            cpu.reg.set16(decoding.rm, value);
+        } else {
+            cpu.memory.writeWord(segmentBase, offset, value);
         }
-        return new SegOfs(segment, (short) (displacement & 0xFFFF));
+    }
+
+    public byte readReg8() {
+        return (byte) cpu.reg.get8(decoding.reg);
+    }
+
+    public void writeReg8(final byte value) {
+        cpu.reg.set8(decoding.reg, value);
+    }
+
+    public short readReg16() {
+        return (short) cpu.reg.get16(decoding.reg);
+    }
+
+    public void writeReg16(final short value) {
+        cpu.reg.set16(decoding.reg, value);
+    }
+
+    public short readSegReg() {
+        return (short) cpu.reg.getSeg(decoding.reg & 0x3);
+    }
+
+    public void writeSegReg(final short value) {
+        cpu.reg.setSeg(decoding.reg & 0x3, value);
     }
 
     public Reg8 getReg8(final int reg) {
-        return switch (reg) {
-            case 0 -> cpu.reg.AL;
-            case 1 -> cpu.reg.CL;
-            case 2 -> cpu.reg.DL;
-            case 3 -> cpu.reg.BL;
-            case 4 -> cpu.reg.AH;
-            case 5 -> cpu.reg.CH;
-            case 6 -> cpu.reg.DH;
-            default -> cpu.reg.BH;
-        };
+        return cpu.reg.getReg8(reg);
     }
 
     public Reg16 getReg16(final int reg) {
-        return switch (reg) {
-            case 0 -> cpu.reg.AX;
-            case 1 -> cpu.reg.CX;
-            case 2 -> cpu.reg.DX;
-            case 3 -> cpu.reg.BX;
-            case 4 -> cpu.reg.SP;
-            case 5 -> cpu.reg.BP;
-            case 6 -> cpu.reg.SI;
-            default -> cpu.reg.DI;
-        };
+        return cpu.reg.getReg16(reg);
     }
 
     public Reg16 getSegReg(final int reg) {
-        return switch (reg) {
-            case 0 -> cpu.reg.ES;
-            case 1 -> cpu.reg.CS;
-            case 2 -> cpu.reg.SS;
-            case 3 -> cpu.reg.DS;
-            // Undocumented behaviour to allow single step tests to pass. Registers replicated 4-7.
-            case 4 -> cpu.reg.ES;
-            case 5 -> cpu.reg.CS;
-            case 6 -> cpu.reg.SS;
-            default -> cpu.reg.DS;
-        };
+        // Undocumented behaviour to allow single step tests to pass. Registers replicated 4-7.
+        return cpu.reg.getSegReg(reg & 0x3);
     }
 }
@@ -0,0 +1,17 @@
+// OpcodeHandler.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Executes a single opcode, or a family of related opcodes. Invoked once the opcode byte and any segment override or
+ * REP prefixes have been fetched.
+ */
+@FunctionalInterface
+interface OpcodeHandler {
+
+    /**
+     * @param opcode the opcode byte 0x00 - 0xFF.
+     */
+    void execute(int opcode);
+}
@@ -0,0 +1,185 @@
+// OpcodeTable.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Builds the 256 entry opcode dispatch table used by {@code CPU.step()}. Opcode descriptions from Turbo Assembler
+ * Quick Reference Guide v3.2. Segment override (0x26, 0x2E, 0x36, 0x3E) and REP (0xF2, 0xF3) prefixes are consumed by
+ * {@code CPU.step()} before dispatch and never reach the table.
+ */
+final class OpcodeTable {
+
+    private OpcodeTable() {
+    }
+
+    static OpcodeHandler[] create(final CPU cpu) {
+        final OpcodeHandler[] table = new OpcodeHandler[256];
+        final ArithmeticInstructions arithmetic = cpu.arithmetic;
+        final DataTransferInstructions dataTransfer = cpu.dataTransfer;
+        final ControlTransferInstructions controlTransfer = cpu.controlTransfer;
+        final FlagInstructions flag = cpu.flag;
+        final IOInstructions io = cpu.io;
+        final MiscInstructions misc = cpu.misc;
+        final StringInstructions string = cpu.string;
+
+        for (int opcode = 0; opcode < 256; opcode++) {
+            table[opcode] = misc::invalid;
+        }
+
+        // region ADD/ADC/SUB/SBB/CMP.
+        set(table, arithmetic::add8, 0x00, 0x02, 0x10, 0x12);       // ADD/ADC r/m8,r8 - r8,r/m8.
+        set(table, arithmetic::add16, 0x01, 0x03, 0x11, 0x13);      // ADD/ADC r/m16,r16 - r16,r/m16.
+        set(table, arithmetic::addALImm8, 0x04, 0x14);              // ADD/ADC AL,imm8.
+        set(table, arithmetic::addAXImm16, 0x05, 0x15);             // ADD/ADC AX,imm16.
+        set(table, arithmetic::sub8, 0x18, 0x1A, 0x28, 0x2A);       // SBB/SUB r/m8,r8 - r8,r/m8.
+        set(table, arithmetic::sub16, 0x19, 0x1B, 0x29, 0x2B);      // SBB/SUB r/m16,r16 - r16,r/m16.
+        set(table, arithmetic::subALImm8, 0x1C, 0x2C);              // SBB/SUB AL,imm8.
+        set(table, arithmetic::subAXImm16, 0x1D, 0x2D);             // SBB/SUB AX,imm16.
+        set(table, arithmetic::cmp8, 0x38, 0x3A);                   // CMP r/m8,r8 - r8,r/m8.
+        set(table, arithmetic::cmp16, 0x39, 0x3B);                  // CMP r/m16,r16 - r16,r/m16.
+        set(table, arithmetic::cmpALImm8, 0x3C);                    // CMP AL,imm8.
+        set(table, arithmetic::cmpAXImm16, 0x3D);                   // CMP AX,imm16.
+        // endregion
+
+        // region AND/OR/XOR/TEST.
+        set(table, arithmetic::logic8, 0x08, 0x0A, 0x20, 0x22, 0x30, 0x32);   // OR/AND/XOR r/m8,r8 - r8,r/m8.
+        set(table, arithmetic::logic16, 0x09, 0x0B, 0x21, 0x23, 0x31, 0x33);  // OR/AND/XOR r/m16,r16 - r16,r/m16.
+        set(table, arithmetic::logicALImm8, 0x0C, 0x24, 0x34);                // OR/AND/XOR AL,imm8.
+        set(table, arithmetic::logicAXImm16, 0x0D, 0x25, 0x35);               // OR/AND/XOR AX,imm16.
+        set(table, arithmetic::test8, 0x84);                                  // TEST r/m8,r8.
+        set(table, arithmetic::test16, 0x85);                                 // TEST r/m16,r16.
+        set(table, arithmetic::testALImm8, 0xA8);                             // TEST AL,imm8.
+        set(table, arithmetic::testAXImm16, 0xA9);                            // TEST AX,imm16.
+        // endregion
+
+        // region INC/DEC/CBW/CWD.
+        range(table, arithmetic::inc16, 0x40, 0x47);                // INC r16.
+        range(table, arithmetic::dec16, 0x48, 0x4F);                // DEC r16.
+        set(table, arithmetic::cbw, 0x98);                          // CBW.
+        set(table, arithmetic::cwd, 0x99);                          // CWD.
+        // endregion
+
+        // region PUSH/POP.
+        set(table, dataTransfer::pushSeg, 0x06, 0x0E, 0x16, 0x1E);  // PUSH ES/CS/SS/DS.
+        set(table, dataTransfer::popSeg, 0x07, 0x17, 0x1F);         // POP ES/SS/DS.
+        range(table, dataTransfer::push16, 0x50, 0x57);             // PUSH r16.
+        range(table, dataTransfer::pop16, 0x58, 0x5F);              // POP r16.
+        set(table, dataTransfer::popRM16, 0x8F);                    // POP m16.
+        // endregion
+
+        // region XCHG/MOV/LEA/LES/LDS/XLAT.
+        set(table, dataTransfer::xchg8, 0x86);                      // XCHG r/m8,r8.
+        set(table, dataTransfer::xchg16, 0x87);                     // XCHG r/m16,r16.
+        range(table, dataTransfer::xchgAX, 0x90, 0x97);             // XCHG AX,r16 / NOP.
+        set(table, dataTransfer::movRM8Reg8, 0x88);                 // MOV r/m8,r8.
+        set(table, dataTransfer::movRM16Reg16, 0x89);               // MOV r/m16,r16.
+        set(table, dataTransfer::movReg8RM8, 0x8A);                 // MOV r8,r/m8.
+        set(table, dataTransfer::movReg16RM16, 0x8B);               // MOV r16,r/m16.
+        set(table, dataTransfer::movRM16SReg, 0x8C);                // MOV r/m16,Sreg.
+        set(table, dataTransfer::lea, 0x8D);                        // LEA r16,m.
+        set(table, dataTransfer::movSRegRM16, 0x8E);                // MOV Sreg,r/m16.
+        set(table, dataTransfer::movALMem8, 0xA0);                  // MOV AL,moffs8.
+        set(table, dataTransfer::movAXMem16, 0xA1);                 // MOV AX,moffs16.
+        set(table, dataTransfer::movMem8AL, 0xA2);                  // MOV moffs8,AL.
+        set(table, dataTransfer::movMem16AX, 0xA3);                 // MOV moffs16,AX.
+        range(table, dataTransfer::movReg8Imm8, 0xB0, 0xB7);        // MOV r8,imm8.
+        range(table, dataTransfer::movReg16Imm16, 0xB8, 0xBF);      // MOV r16,imm16.
+        set(table, dataTransfer::loadSeg, 0xC4, 0xC5);              // LES/LDS r16,m16:16.
+        set(table, dataTransfer::movRM8Imm8, 0xC6);                 // MOV r/m8,imm8.
+        set(table, dataTransfer::movRM16Imm16, 0xC7);               // MOV r/m16,imm16.
+        set(table, dataTransfer::xlat, 0xD7);                       // XLAT.
+        // endregion
+
+        // region FLAGS.
+        set(table, flag::pushf, 0x9C);                              // PUSHF.
+        set(table, flag::popf, 0x9D);                               // POPF.
+        set(table, flag::sahf, 0x9E);                               // SAHF.
+        set(table, flag::lahf, 0x9F);                               // LAHF.
+        set(table, flag::cmc, 0xF5);                                // CMC.
+        set(table, flag::carry, 0xF8, 0xF9);                        // CLC/STC.
+        set(table, flag::interruptEnabled, 0xFA, 0xFB);             // CLI/STI.
+        set(table, flag::directionDown, 0xFC, 0xFD);                // CLD/STD.
+        // endregion
+
+        // region Jcc/LOOP/JMP/CALL/RET/INT.
+        range(table, controlTransfer::jcc, 0x70, 0x7F);             // Jcc rel8.
+        range(table, controlTransfer::loop, 0xE0, 0xE2);            // LOOPNZ/LOOPZ/LOOP rel8.
+        set(table, controlTransfer::jcxz, 0xE3);                    // JCXZ rel8.
+        set(table, controlTransfer::callFar, 0x9A);                 // CALL ptr16:16.
+        set(table, controlTransfer::retImm16, 0xC2);                // RET imm16.
+        set(table, controlTransfer::ret, 0xC3);                     // RET.
+        set(table, controlTransfer::retfImm16, 0xCA);               // RETF imm16.
+        set(table, controlTransfer::retf, 0xCB);                    // RETF.
+        set(table, controlTransfer::int3, 0xCC);                    // INT3.
+        set(table, controlTransfer::intImm8, 0xCD);                 // INT imm8.
+        set(table, controlTransfer::into, 0xCE);                    // INTO.
+        set(table, controlTransfer::iret, 0xCF);                    // IRET.
+        set(table, controlTransfer::callRel16, 0xE8);               // CALL rel16.
+        set(table, controlTransfer::jmpRel16, 0xE9);                // JMP rel16.
+        set(table, controlTransfer::jmpFar, 0xEA);                  // JMP ptr16:16.
+        set(table, controlTransfer::jmpRel8, 0xEB);                 // JMP rel8.
+        // endregion
+
+        // region STRING.
+        set(table, opcode -> string.move8(), 0xA4);                 // MOVSB.
+        set(table, opcode -> string.move16(), 0xA5);                // MOVSW.
+        set(table, opcode -> string.compare8(), 0xA6);              // CMPSB.
+        set(table, opcode -> string.compare16(), 0xA7);             // CMPSW.
+        set(table, opcode -> string.store8(), 0xAA);                // STOSB.
+        set(table, opcode -> string.store16(), 0xAB);               // STOSW.
+        set(table, opcode -> string.load8(), 0xAC);                 // LODSB.
+        set(table, opcode -> string.load16(), 0xAD);                // LODSW.
+        set(table, opcode -> string.scan8(), 0xAE);                 // SCASB.
+        set(table, opcode -> string.scan16(), 0xAF);                // SCASW.
+        // endregion
+
+        // region Groups 1 - 5.
+        set(table, opcode -> cpu.group1.imm8(), 0x80);              // op r/m8,imm8.
+        set(table, opcode -> cpu.group1.imm16(false), 0x81);        // op r/m16,imm16.
+        set(table, opcode -> cpu.group1.imm16(true), 0x83);         // op r/m16,imm8 (sign-extended).
+        set(table, opcode -> cpu.group2.rotate8(1), 0xD0);          // Rotate byte 1 bit.
+        set(table, opcode -> cpu.group2.rotate16(1), 0xD1);         // Rotate word 1 bit.
+        set(table, opcode -> cpu.group2.rotate8(cpu.reg.CL.getValue()), 0xD2);   // Rotate byte by CL bits.
+        set(table, opcode -> cpu.group2.rotate16(cpu.reg.CL.getValue()), 0xD3);  // Rotate word by CL bits.
+        set(table, opcode -> cpu.group3A.decode(), 0xF6);           // TEST/NOT/NEG/MUL/IMUL/DIV/IDIV r/m8.
+        set(table, opcode -> cpu.group3B.decode(), 0xF7);           // TEST/NOT/NEG/MUL/IMUL/DIV/IDIV r/m16.
+        set(table, opcode -> cpu.group4.decode(), 0xFE);            // INC/DEC r/m8.
+        set(table, opcode -> cpu.group5.decode(), 0xFF);            // INC/DEC/CALL/JMP/PUSH r/m16.
+        // endregion
+
+        // region Rarely executed - BCD, IN/OUT, ESC, WAIT, LOCK, HLT.
+        set(table, misc::daa, 0x27);                                // DAA.
+        set(table, misc::das, 0x2F);                                // DAS.
+        set(table, misc::aaa, 0x37);                                // AAA.
+        set(table, misc::aas, 0x3F);                                // AAS.
+        set(table, misc::aam, 0xD4);                                // AAM base.
+        set(table, misc::aad, 0xD5);                                // AAD base.
+        range(table, misc::esc, 0xD8, 0xDF);                        // ESC.
+        set(table, misc::nop, 0x9B, 0xF0);                          // WAIT/LOCK.
+        set(table, misc::hlt, 0xF4);                                // HLT.
+        set(table, io::inALImm8, 0xE4);                             // IN AL,imm8.
+        set(table, io::inAXImm8, 0xE5);                             // IN AX,imm8.
+        set(table, io::outImm8AL, 0xE6);                            // OUT imm8,AL.
+        set(table, io::outImm8AX, 0xE7);                            // OUT imm8,AX.
+        set(table, io::inALDX, 0xEC);                               // IN AL,DX.
+        set(table, io::inAXDX, 0xED);                               // IN AX,DX.
+        set(table, io::outDXAL, 0xEE);                              // OUT DX,AL.
+        set(table, io::outDXAX, 0xEF);                              // OUT DX,AX.
+        // endregion
+
+        return table;
+    }
+
+    private static void set(final OpcodeHandler[] table, final OpcodeHandler handler, final int... opcodes) {
+        for (int opcode : opcodes) {
+            table[opcode] = handler;
+        }
+    }
+
+    private static void range(final OpcodeHandler[] table, final OpcodeHandler handler, final int first, final int last) {
+        for (int opcode = first; opcode <= last; opcode++) {
+            table[opcode] = handler;
+        }
+    }
+}
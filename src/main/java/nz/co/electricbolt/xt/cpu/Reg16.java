@@ -3,10 +3,16 @@
 
 package nz.co.electricbolt.xt.cpu;
 
+/**
+ * A 16-bit register. Either a view onto an entry in the {@code RegSet} register file, or a standalone register with its
+ * own storage.
+ */
 public class Reg16 {
 
     private final String name;
-    private short value;
+    private final int[] file;
+    private final int index;
+    private final int baseIndex;    // Index of the cached linear base for segment registers, otherwise -1.
     private Reg8 high;
     private Reg8 low;
 
@@ -15,20 +21,34 @@ public class Reg16 {
     }
 
     Reg16(final String name, final short initialValue) {
-        this.name = name;
+        this(name, new int[1], 0, -1);
         setValue(initialValue);
     }
 
+    Reg16(final String name, final int[] file, final int index) {
+        this(name, file, index, -1);
+    }
+
+    Reg16(final String name, final int[] file, final int index, final int baseIndex) {
+        this.name = name;
+        this.file = file;
+        this.index = index;
+        this.baseIndex = baseIndex;
+    }
+
     public void add(final short value) {
         setValue((short) (getValue() + value));
     }
 
     public short getValue() {
-        return value;
+        return (short) file[index];
     }
 
     public void setValue(final short value) {
-        this.value = value;
+        file[index] = value & 0xFFFF;
+        if (baseIndex != -1) {
+            file[baseIndex] = (value & 0xFFFF) << 4;
+        }
     }
 
     public String getName() {
@@ -36,7 +56,7 @@ public class Reg16 {
     }
 
     public Reg16 copy() {
-        return new Reg16(name, value);
+        return new Reg16(name, getValue());
     }
 
     @Override
@@ -44,12 +64,12 @@ public class Reg16 {
         if (!(obj instanceof Reg16 other)) {
             return false;
         }
-        return other.name.equals(name) && other.value == value;
+        return other.name.equals(name) && other.getValue() == getValue();
     }
 
     @Override
     public String toString() {
-        return name + "=" + String.format("%04X", value);
+        return name + "=" + String.format("%04X", getValue());
     }
 
     Reg8 high() {
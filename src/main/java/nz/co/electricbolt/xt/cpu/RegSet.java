@@ -3,30 +3,166 @@
 
 package nz.co.electricbolt.xt.cpu;
 
+import java.util.Arrays;
+
+/**
+ * The register file. Register values are held unsigned (0x0000 - 0xFFFF) in a primitive array, which the CPU accesses
+ * directly by register number. The {@code Reg16} and {@code Reg8} fields are views onto the same array. The linear
+ * base (segment * 16) of each segment register is cached in the array whenever the segment register is loaded.
+ */
 public class RegSet {
 
+    // General purpose register numbers, in ModR/M r16(/r) order. 8-bit register numbers 0 - 7 (AL, CL, DL, BL, AH, CH,
+    // DH, BH) address the low (0 - 3) or high (4 - 7) byte of AX, CX, DX, BX.
+    static final int AX_INDEX = 0;
+    static final int CX_INDEX = 1;
+    static final int DX_INDEX = 2;
+    static final int BX_INDEX = 3;
+    static final int SP_INDEX = 4;
+    static final int BP_INDEX = 5;
+    static final int SI_INDEX = 6;
+    static final int DI_INDEX = 7;
+
+    // Segment register numbers, in ModR/M sreg order.
+    static final int ES_SEGMENT = 0;
+    static final int CS_SEGMENT = 1;
+    static final int SS_SEGMENT = 2;
+    static final int DS_SEGMENT = 3;
+
+    private static final int SEGMENT_INDEX = 8;                 // ES, CS, SS, DS values.
+    static final int IP_INDEX = 12;
+    private static final int SEGMENT_BASE_INDEX = 13;           // ES, CS, SS, DS values * 16.
+
+    final int[] file = new int[17];
+
     public final Flags flags = new Flags();
-    public final Reg16 AX = new Reg16("AX"); // Accumulator
+    public final Reg16 AX = new Reg16("AX", file, AX_INDEX); // Accumulator
     public final Reg8 AL = AX.low();
     public final Reg8 AH = AX.high();
-    public final Reg16 BX = new Reg16("BX"); // Base
+    public final Reg16 BX = new Reg16("BX", file, BX_INDEX); // Base
     public final Reg8 BL = BX.low();
     public final Reg8 BH = BX.high();
-    public final Reg16 CX = new Reg16("CX"); // Counting
+    public final Reg16 CX = new Reg16("CX", file, CX_INDEX); // Counting
     public final Reg8 CL = CX.low();
     public final Reg8 CH = CX.high();
-    public final Reg16 DX = new Reg16("DX"); // Data
+    public final Reg16 DX = new Reg16("DX", file, DX_INDEX); // Data
     public final Reg8 DL = DX.low();
     public final Reg8 DH = DX.high();
-    public final Reg16 SP = new Reg16("SP");
-    public final Reg16 BP = new Reg16("BP");
-    public final Reg16 SI = new Reg16("SI");
-    public final Reg16 DI = new Reg16("DI");
-    public final Reg16 IP = new Reg16("IP", (short) 0xFFF0);
-    public final Reg16 CS = new Reg16("CS",  (short) 0xF000); // Code segment
-    public final Reg16 DS = new Reg16("DS"); // Data segment
-    public final Reg16 SS = new Reg16("SS"); // Stack segment
-    public final Reg16 ES = new Reg16("ES"); // Extra segment
+    public final Reg16 SP = new Reg16("SP", file, SP_INDEX);
+    public final Reg16 BP = new Reg16("BP", file, BP_INDEX);
+    public final Reg16 SI = new Reg16("SI", file, SI_INDEX);
+    public final Reg16 DI = new Reg16("DI", file, DI_INDEX);
+    public final Reg16 IP = new Reg16("IP", file, IP_INDEX);
+    public final Reg16 CS = segment("CS", CS_SEGMENT); // Code segment
+    public final Reg16 DS = segment("DS", DS_SEGMENT); // Data segment
+    public final Reg16 SS = segment("SS", SS_SEGMENT); // Stack segment
+    public final Reg16 ES = segment("ES", ES_SEGMENT); // Extra segment
+
+    private final Reg16[] reg16 = {AX, CX, DX, BX, SP, BP, SI, DI};
+    private final Reg8[] reg8 = {AL, CL, DL, BL, AH, CH, DH, BH};
+    private final Reg16[] segReg = {ES, CS, SS, DS};
+
+    public RegSet() {
+        IP.setValue((short) 0xFFF0);
+        CS.setValue((short) 0xF000);
+    }
+
+    /**
+     * Restores the power-on state of the registers.
+     */
+    void reset() {
+        Arrays.fill(file, 0);
+        IP.setValue((short) 0xFFF0);
+        CS.setValue((short) 0xF000);
+        flags.reset();
+    }
+
+    private Reg16 segment(final String name, final int segment) {
+        return new Reg16(name, file, SEGMENT_INDEX + segment, SEGMENT_BASE_INDEX + segment);
+    }
+
+    /**
+     * @return value 0x0000 - 0xFFFF of general purpose register 0 - 7.
+     */
+    int get16(final int index) {
+        return file[index];
+    }
+
+    /**
+     * Sets general purpose register 0 - 7 to the low 16 bits of value.
+     */
+    void set16(final int index, final int value) {
+        file[index] = value & 0xFFFF;
+    }
+
+    /**
+     * @return value 0x00 - 0xFF of 8-bit register 0 - 7 (AL, CL, DL, BL, AH, CH, DH, BH).
+     */
+    int get8(final int index) {
+        return index < 4 ? file[index] & 0xFF : file[index - 4] >> 8;
+    }
+
+    /**
+     * Sets 8-bit register 0 - 7 (AL, CL, DL, BL, AH, CH, DH, BH) to the low 8 bits of value.
+     */
+    void set8(final int index, final int value) {
+        if (index < 4) {
+            file[index] = (file[index] & 0xFF00) | (value & 0xFF);
+        } else {
+            file[index - 4] = (file[index - 4] & 0x00FF) | ((value & 0xFF) << 8);
+        }
+    }
+
+    /**
+     * @return value 0x0000 - 0xFFFF of segment register 0 - 3 (ES, CS, SS, DS).
+     */
+    int getSeg(final int segment) {
+        return file[SEGMENT_INDEX + segment];
+    }
+
+    /**
+     * Loads segment register 0 - 3 (ES, CS, SS, DS) with the low 16 bits of value, updating the cached linear base.
+     */
+    void setSeg(final int segment, final int value) {
+        file[SEGMENT_INDEX + segment] = value & 0xFFFF;
+        file[SEGMENT_BASE_INDEX + segment] = (value & 0xFFFF) << 4;
+    }
+
+    /**
+     * @return linear base address (segment * 16) of segment register 0 - 3 (ES, CS, SS, DS).
+     */
+    int getSegBase(final int segment) {
+        return file[SEGMENT_BASE_INDEX + segment];
+    }
+
+    int getIP() {
+        return file[IP_INDEX];
+    }
+
+    void setIP(final int value) {
+        file[IP_INDEX] = value & 0xFFFF;
+    }
+
+    /**
+     * @return view of general purpose register 0 - 7 (AX, CX, DX, BX, SP, BP, SI, DI).
+     */
+    Reg16 getReg16(final int index) {
+        return reg16[index];
+    }
+
+    /**
+     * @return view of 8-bit register 0 - 7 (AL, CL, DL, BL, AH, CH, DH, BH).
+     */
+    Reg8 getReg8(final int index) {
+        return reg8[index];
+    }
+
+    /**
+     * @return view of segment register 0 - 3 (ES, CS, SS, DS).
+     */
+    Reg16 getSegReg(final int segment) {
+        return segReg[segment];
+    }
 
     public String toString() {
         return CS +
@@ -44,4 +180,4 @@ public class RegSet {
                 " " + SP +
                 " " + BP;
     }
-}
\ No newline at end of file
+}
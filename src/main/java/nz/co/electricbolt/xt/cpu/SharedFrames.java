@@ -0,0 +1,61 @@
+// SharedFrames.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read only memory frames shared by every {@code Memory} in the JVM, keyed by their content. A frame is held only while
+ * some {@code Memory} maps it. Shared frames are never written: a {@code Memory} copies a shared frame before writing
+ * to it.
+ */
+final class SharedFrames {
+
+    static final byte[] ZERO = new byte[Memory.FRAME_SIZE];
+
+    /**
+     * Weak reference to a shared frame, which removes itself from the map once the frame is unreachable.
+     */
+    private static final class Frame extends WeakReference<byte[]> {
+
+        final int hash;
+
+        Frame(final byte[] frame, final int hash) {
+            super(frame, QUEUE);
+            this.hash = hash;
+        }
+    }
+
+    private static final ReferenceQueue<byte[]> QUEUE = new ReferenceQueue<>();
+    private static final Map<Integer, Frame> FRAMES = new HashMap<>();
+
+    private SharedFrames() {
+    }
+
+    /**
+     * @return the shared frame with the same content as frame, or frame itself. The caller must not write to either
+     * afterwards.
+     */
+    static synchronized byte[] intern(final byte[] frame) {
+        for (Frame cleared = (Frame) QUEUE.poll(); cleared != null; cleared = (Frame) QUEUE.poll()) {
+            FRAMES.remove(cleared.hash, cleared);
+        }
+        final int hash = Arrays.hashCode(frame);
+        final Frame shared = FRAMES.get(hash);
+        final byte[] existing = shared == null ? null : shared.get();
+        if (existing != null) {
+            // A different frame with the same hash is kept, and this frame isn't shared.
+            return Arrays.equals(existing, frame) ? existing : frame;
+        }
+        if (Arrays.equals(ZERO, frame)) {
+            return ZERO;
+        }
+        FRAMES.put(hash, new Frame(frame, hash));
+        return frame;
+    }
+}
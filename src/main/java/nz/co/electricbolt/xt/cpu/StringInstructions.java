@@ -15,11 +15,147 @@ public class StringInstructions {
         this.cpu = cpu;
     }
 
+    /**
+     * @return the source segment base; DS unless overridden with a segment prefix.
+     */
+    private int sourceSegmentBase() {
+        return cpu.reg.getSegBase(cpu.segmentOverride == CPU.NO_SEGMENT_OVERRIDE ? RegSet.DS_SEGMENT : cpu.segmentOverride);
+    }
+
+    /**
+     * @return the amount SI and DI are incremented by for each byte or word; negative if the direction flag is set.
+     */
+    private int delta(final int size) {
+        return cpu.reg.flags.isDirectionDown() ? -size : size;
+    }
+
+    /**
+     * Adds value to 16-bit register 0 - 7, wrapping around at 0x0000 and 0xFFFF.
+     */
+    private void add(final int index, final int value) {
+        cpu.reg.set16(index, cpu.reg.get16(index) + value);
+    }
+
+    /**
+     * REP MOVSB/MOVSW executed as a single block copy, when that is equivalent to copying CX elements one at a time.
+     * @return false, having modified nothing, if SI or DI would wrap around within the segment, the destination
+     * overlaps the source ahead of the copy direction, or the memory is not accessible.
+     */
+    private boolean moveBlock(final int size) {
+        final int count = cpu.reg.get16(RegSet.CX_INDEX);
+        final int length = count * size;
+        final int step = delta(size);
+        final int si = cpu.reg.get16(RegSet.SI_INDEX);
+        final int di = cpu.reg.get16(RegSet.DI_INDEX);
+        final int srcOffset = step > 0 ? si : si - length + size;
+        final int dstOffset = step > 0 ? di : di - length + size;
+        if (count == 0 || srcOffset < 0 || srcOffset + length > 0x10000 || dstOffset < 0
+                || dstOffset + length > 0x10000) {
+            return false;
+        }
+        final int src = sourceSegmentBase() + srcOffset;
+        final int dst = cpu.reg.getSegBase(RegSet.ES_SEGMENT) + dstOffset;
+        // Copying element by element reads source bytes the copy has already written.
+        if (step > 0 ? dst > src && dst < src + length : dst < src && dst + length > src) {
+            return false;
+        }
+        if (!cpu.memory.copyLinear(src, dst, length)) {
+            return false;
+        }
+        cpu.reg.set16(RegSet.SI_INDEX, si + step * count);
+        cpu.reg.set16(RegSet.DI_INDEX, di + step * count);
+        cpu.reg.set16(RegSet.CX_INDEX, 0);
+        return true;
+    }
+
+    /**
+     * REP STOSB/STOSW executed as a single block fill.
+     * @return false, having modified nothing, if DI would wrap around within the segment, or the memory is not
+     * writable.
+     */
+    private boolean storeBlock(final int size) {
+        final int count = cpu.reg.get16(RegSet.CX_INDEX);
+        final int length = count * size;
+        final int step = delta(size);
+        final int di = cpu.reg.get16(RegSet.DI_INDEX);
+        final int dstOffset = step > 0 ? di : di - length + size;
+        if (count == 0 || dstOffset < 0 || dstOffset + length > 0x10000) {
+            return false;
+        }
+        final int dst = cpu.reg.getSegBase(RegSet.ES_SEGMENT) + dstOffset;
+        if (!cpu.memory.fillLinear(dst, length, cpu.reg.get16(RegSet.AX_INDEX), size)) {
+            return false;
+        }
+        cpu.reg.set16(RegSet.DI_INDEX, di + step * count);
+        cpu.reg.set16(RegSet.CX_INDEX, 0);
+        return true;
+    }
+
+    /**
+     * @return true if count bytes of the segment, starting at offset and moving by step (1 or -1), neither wrap around
+     * within the segment nor past 0xFFFFF, and are all readable.
+     */
+    private boolean isReadable(final int segmentBase, final int offset, final int count, final int step) {
+        final int low = step > 0 ? offset : offset - count + 1;
+        return low >= 0 && low + count <= 0x10000 && segmentBase + low + count <= Memory.MEMORY_SIZE
+                && cpu.memory.isPermitted(segmentBase + low, segmentBase + low + count, Memory.PERMISSION_READ);
+    }
+
+    /**
+     * REPE/REPNE SCASB executed as a single search for the first byte that ends the repeat. The flags are then set by
+     * comparing that byte (or the last byte if the repeat ran until CX was 0), as the final iteration would have.
+     * @return false, having modified nothing, if DI would wrap around or the memory is not readable.
+     */
+    private boolean scanBlock() {
+        final int count = cpu.reg.get16(RegSet.CX_INDEX);
+        final int step = delta(1);
+        final int di = cpu.reg.get16(RegSet.DI_INDEX);
+        final int segmentBase = cpu.reg.getSegBase(RegSet.ES_SEGMENT);
+        if (count == 0 || cpu.repeatFlag == null || !isReadable(segmentBase, di, count, step)) {
+            return false;
+        }
+        final byte al = (byte) cpu.reg.get8(RegSet.AX_INDEX);
+        final int found = cpu.memory.scanLinear(segmentBase + di, count, step, al, !cpu.repeatFlag);
+        final int executed = found < 0 ? count : found + 1;
+        final int last = di + step * (executed - 1);
+        cpu.alu.sub8(al, cpu.memory.readByte(segmentBase, last), false);
+        cpu.reg.set16(RegSet.DI_INDEX, last + step);
+        cpu.reg.set16(RegSet.CX_INDEX, count - executed);
+        return true;
+    }
+
+    /**
+     * REPE/REPNE CMPSB executed as a single comparison for the first pair of bytes that ends the repeat, setting the
+     * flags as the final iteration would have.
+     * @return false, having modified nothing, if SI or DI would wrap around or the memory is not readable.
+     */
+    private boolean compareBlock() {
+        final int count = cpu.reg.get16(RegSet.CX_INDEX);
+        final int step = delta(1);
+        final int si = cpu.reg.get16(RegSet.SI_INDEX);
+        final int di = cpu.reg.get16(RegSet.DI_INDEX);
+        final int srcBase = sourceSegmentBase();
+        final int dstBase = cpu.reg.getSegBase(RegSet.ES_SEGMENT);
+        if (count == 0 || cpu.repeatFlag == null || !isReadable(srcBase, si, count, step)
+                || !isReadable(dstBase, di, count, step)) {
+            return false;
+        }
+        final int found = cpu.memory.compareLinear(srcBase + si, dstBase + di, count, step, !cpu.repeatFlag);
+        final int executed = found < 0 ? count : found + 1;
+        final int lastSI = si + step * (executed - 1);
+        final int lastDI = di + step * (executed - 1);
+        cpu.alu.sub8(cpu.memory.readByte(srcBase, lastSI), cpu.memory.readByte(dstBase, lastDI), false);
+        cpu.reg.set16(RegSet.SI_INDEX, lastSI + step);
+        cpu.reg.set16(RegSet.DI_INDEX, lastDI + step);
+        cpu.reg.set16(RegSet.CX_INDEX, count - executed);
+        return true;
+    }
+
     void repeat(StringFunction func) {
         if (cpu.repeat) {
-            while (cpu.reg.CX.getValue() != 0) {
+            while (cpu.reg.get16(RegSet.CX_INDEX) != 0) {
                 func.call();
-                cpu.reg.CX.add((short) -1);
+                add(RegSet.CX_INDEX, -1);
                 if (cpu.repeatFlag != null && cpu.reg.flags.isZero() != cpu.repeatFlag) {
                     break;
                 }
@@ -33,10 +169,13 @@ public class StringInstructions {
      * SCASB - Compare bytes AL - ES:[DI].
      */
     void scan8() {
+        if (cpu.repeat && scanBlock()) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.alu.sub8(cpu.reg.AL.getValue(),cpu.memory.readByte(dstSegOfs), false);
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
+            final byte dst = cpu.memory.readByte(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX));
+            cpu.alu.sub8((byte) cpu.reg.get8(RegSet.AX_INDEX), dst, false);
+            add(RegSet.DI_INDEX, delta(1));
         });
     }
 
@@ -45,9 +184,10 @@ public class StringInstructions {
      */
     void scan16() {
         repeat(() -> {
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.alu.sub16(cpu.reg.AX.getValue(), cpu.memory.readWord(dstSegOfs), false);
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
+            final short dst = cpu.memory.readWord(cpu.reg.getSegBase(RegSet.ES_SEGMENT),
+                    cpu.reg.get16(RegSet.DI_INDEX));
+            cpu.alu.sub16((short) cpu.reg.get16(RegSet.AX_INDEX), dst, false);
+            add(RegSet.DI_INDEX, delta(2));
         });
     }
 
@@ -57,9 +197,8 @@ public class StringInstructions {
     void load8() {
         cpu.repeatFlag = null;
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            cpu.reg.AL.setValue(cpu.memory.readByte(srcSegOfs));
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
+            cpu.reg.set8(RegSet.AX_INDEX, cpu.memory.readByte(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX)));
+            add(RegSet.SI_INDEX, delta(1));
         });
     }
 
@@ -69,9 +208,8 @@ public class StringInstructions {
     void load16() {
         cpu.repeatFlag = null;
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            cpu.reg.AX.setValue(cpu.memory.readWord(srcSegOfs));
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
+            cpu.reg.set16(RegSet.AX_INDEX, cpu.memory.readWord(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX)));
+            add(RegSet.SI_INDEX, delta(2));
         });
     }
 
@@ -80,10 +218,13 @@ public class StringInstructions {
      */
     void store8() {
         cpu.repeatFlag = null;
+        if (cpu.repeat && storeBlock(1)) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.memory.writeByte(dstSegOfs, cpu.reg.AL.getValue());
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
+            cpu.memory.writeByte(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX),
+                    (byte) cpu.reg.get8(RegSet.AX_INDEX));
+            add(RegSet.DI_INDEX, delta(1));
         });
     }
 
@@ -92,10 +233,13 @@ public class StringInstructions {
      */
     void store16() {
         cpu.repeatFlag = null;
+        if (cpu.repeat && storeBlock(2)) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.memory.writeWord(dstSegOfs, cpu.reg.AX.getValue());
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
+            cpu.memory.writeWord(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX),
+                    (short) cpu.reg.get16(RegSet.AX_INDEX));
+            add(RegSet.DI_INDEX, delta(2));
         });
     }
 
@@ -105,12 +249,15 @@ public class StringInstructions {
      * SI and DI increment or decrement based upon the direction flag.
      */
     void compare8() {
+        if (cpu.repeat && compareBlock()) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.alu.sub8(cpu.memory.readByte(srcSegOfs), cpu.memory.readByte(dstSegOfs), false);
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
+            final byte src = cpu.memory.readByte(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX));
+            final byte dst = cpu.memory.readByte(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX));
+            cpu.alu.sub8(src, dst, false);
+            add(RegSet.DI_INDEX, delta(1));
+            add(RegSet.SI_INDEX, delta(1));
         });
     }
 
@@ -121,11 +268,12 @@ public class StringInstructions {
      */
     void compare16() {
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.alu.sub16(cpu.memory.readWord(srcSegOfs), cpu.memory.readWord(dstSegOfs), false);
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
+            final short src = cpu.memory.readWord(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX));
+            final short dst = cpu.memory.readWord(cpu.reg.getSegBase(RegSet.ES_SEGMENT),
+                    cpu.reg.get16(RegSet.DI_INDEX));
+            cpu.alu.sub16(src, dst, false);
+            add(RegSet.DI_INDEX, delta(2));
+            add(RegSet.SI_INDEX, delta(2));
         });
     }
 
@@ -136,12 +284,14 @@ public class StringInstructions {
      */
     void move8() {
         cpu.repeatFlag = null;
+        if (cpu.repeat && moveBlock(1)) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.memory.writeByte(dstSegOfs, cpu.memory.readByte(srcSegOfs));
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -1 : (short) 1);
+            final byte src = cpu.memory.readByte(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX));
+            cpu.memory.writeByte(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX), src);
+            add(RegSet.DI_INDEX, delta(1));
+            add(RegSet.SI_INDEX, delta(1));
         });
     }
 
@@ -152,12 +302,14 @@ public class StringInstructions {
      */
     void move16() {
         cpu.repeatFlag = null;
+        if (cpu.repeat && moveBlock(2)) {
+            return;
+        }
         repeat(() -> {
-            final SegOfs srcSegOfs = new SegOfs(cpu.segmentOverride == null ? cpu.reg.DS : cpu.segmentOverride, cpu.reg.SI);
-            final SegOfs dstSegOfs = new SegOfs(cpu.reg.ES, cpu.reg.DI);
-            cpu.memory.writeWord(dstSegOfs, cpu.memory.readWord(srcSegOfs));
-            cpu.reg.DI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
-            cpu.reg.SI.add(cpu.reg.flags.isDirectionDown() ? (short) -2 : (short) 2);
+            final short src = cpu.memory.readWord(sourceSegmentBase(), cpu.reg.get16(RegSet.SI_INDEX));
+            cpu.memory.writeWord(cpu.reg.getSegBase(RegSet.ES_SEGMENT), cpu.reg.get16(RegSet.DI_INDEX), src);
+            add(RegSet.DI_INDEX, delta(2));
+            add(RegSet.SI_INDEX, delta(2));
         });
     }
-}
\ No newline at end of file
+}
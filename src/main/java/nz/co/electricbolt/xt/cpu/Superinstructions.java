@@ -0,0 +1,343 @@
+// Superinstructions.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Idioms that compiled 8086 code executes constantly, recognised in the {@code InstructionCache} and executed by a
+ * single handler rather than dispatching each instruction to its opcode handler and decoding its ModR/M byte:
+ * <ul>
+ *   <li>CMP/TEST register or immediate followed by Jcc, which takes the jump from the operands rather than the
+ *   flags.</li>
+ *   <li>PUSH BP; MOV BP,SP and MOV SP,BP; POP BP; RET, the stack frame prologue and epilogue.</li>
+ *   <li>XOR reg,reg.</li>
+ *   <li>INC/DEC r16 followed by JNZ.</li>
+ *   <li>LODSB; STOSB.</li>
+ * </ul>
+ * Every instruction of the sequence is still fetched (from the cache) if there is a fetch listener, so the listener, IP
+ * and instruction count see exactly what they would if the instructions were executed one at a time. The flags are
+ * left lazily evaluated.
+ */
+final class Superinstructions {
+
+    static final int COMPARE_JUMP = 0;
+    static final int ENTER = 1;
+    static final int LEAVE = 2;
+    static final int ZERO = 3;
+    static final int COUNT_JUMP = 4;
+    static final int COPY_BYTE = 5;
+
+    private static final String[] NAMES = {"CMP/TEST+Jcc", "PUSH BP+MOV BP,SP", "MOV SP,BP+POP BP+RET", "XOR reg,reg",
+            "INC/DEC+JNZ", "LODSB+STOSB"};
+
+    /**
+     * A sequence of cached instructions executed as one superinstruction.
+     */
+    static final class Sequence {
+
+        final int kind;
+        final DecodedInstruction[] instructions;
+        final int length;                               // Number of instruction bytes in the sequence.
+
+        Sequence(final int kind, final DecodedInstruction... instructions) {
+            this.kind = kind;
+            this.instructions = instructions;
+            int length = 0;
+            for (final DecodedInstruction instruction : instructions) {
+                length += instruction.length;
+            }
+            this.length = length;
+        }
+    }
+
+    static final Sequence NONE = new Sequence(-1);
+
+    private final CPU cpu;
+    final long[] counts = new long[NAMES.length];
+
+    Superinstructions(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * @return the number of times each superinstruction has been executed, by name.
+     */
+    Map<String, Long> getCounts() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (int kind = 0; kind < NAMES.length; kind++) {
+            result.put(NAMES[kind], counts[kind]);
+        }
+        return result;
+    }
+
+    // region Matching.
+
+    /**
+     * Finds the superinstruction starting with the cached instruction at linear address 0x00000 - 0xFFFFF. The
+     * instructions following it must be cached and end no later than the page following the first instruction's page,
+     * so that a write to any of them discards the first instruction, and with it the sequence.
+     * @return the sequence, NONE if the instruction can't start a superinstruction, or null if it might once the
+     * following instructions have been cached.
+     */
+    Sequence match(final int address, final DecodedInstruction first) {
+        if (first.prefixCount != 0) {
+            return NONE;
+        }
+        final byte[] bytes = first.bytes;
+        final int opcode = first.opcode;
+        if (isZeroIdiom(opcode, bytes)) {
+            return new Sequence(ZERO, first);
+        }
+        final int kind;
+        if (isCompare(opcode, bytes)) {
+            kind = COMPARE_JUMP;
+        } else if (opcode == 0x55) {
+            kind = ENTER;
+        } else if (isMove(bytes, 0xE5, 0xEC)) {
+            kind = LEAVE;
+        } else if (opcode >= 0x40 && opcode <= 0x4F) {
+            kind = COUNT_JUMP;
+        } else if (opcode == 0xAC) {
+            kind = COPY_BYTE;
+        } else {
+            return NONE;
+        }
+        final int limit = Math.min(((address >> InstructionCache.PAGE_SHIFT) + 2) << InstructionCache.PAGE_SHIFT,
+                Memory.MEMORY_SIZE);
+        final DecodedInstruction second = next(address + first.length, limit);
+        if (second == null) {
+            return null;
+        }
+        if (second.prefixCount != 0) {
+            return NONE;
+        }
+        switch (kind) {
+            case COMPARE_JUMP:
+                return second.opcode >= 0x70 && second.opcode <= 0x7F ? new Sequence(kind, first, second) : NONE;
+            case ENTER:
+                return isMove(second.bytes, 0xEC, 0xE5) ? new Sequence(kind, first, second) : NONE;
+            case COUNT_JUMP:
+                return second.opcode == 0x75 ? new Sequence(kind, first, second) : NONE;
+            case COPY_BYTE:
+                return second.opcode == 0xAA ? new Sequence(kind, first, second) : NONE;
+            default:
+                if (second.opcode != 0x5D) {
+                    return NONE;
+                }
+                final DecodedInstruction third = next(address + first.length + second.length, limit);
+                if (third == null) {
+                    return null;
+                }
+                return third.opcode == 0xC3 && third.prefixCount == 0 ? new Sequence(kind, first, second, third) : NONE;
+        }
+    }
+
+    private DecodedInstruction next(final int address, final int limit) {
+        if (address >= limit) {
+            return null;
+        }
+        final DecodedInstruction instruction = cpu.memory.instructionCache.get(address);
+        return instruction == null || address + instruction.length > limit ? null : instruction;
+    }
+
+    /**
+     * @return true for CMP r/m,reg, CMP reg,r/m, TEST r/m,reg and CMP r/m,imm with register operands, and CMP AL/AX,imm.
+     */
+    private static boolean isCompare(final int opcode, final byte[] bytes) {
+        return switch (opcode) {
+            case 0x38, 0x39, 0x3A, 0x3B, 0x84, 0x85 -> (bytes[1] & 0xC0) == 0xC0;
+            case 0x80, 0x81, 0x83 -> (bytes[1] & 0xF8) == 0xF8;                     // mod = 11, reg = 7 (CMP).
+            case 0x3C, 0x3D -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return true for XOR reg,reg with the same register as both operands.
+     */
+    private static boolean isZeroIdiom(final int opcode, final byte[] bytes) {
+        return opcode >= 0x30 && opcode <= 0x33 && (bytes[1] & 0xC0) == 0xC0 && ((bytes[1] >> 3) & 7) == (bytes[1] & 7);
+    }
+
+    /**
+     * @return true if bytes are MOV r16,r/m16 with ModR/M byte modRM8B, or MOV r/m16,r16 with ModR/M byte modRM89.
+     */
+    private static boolean isMove(final byte[] bytes, final int modRM8B, final int modRM89) {
+        return bytes.length == 2 && ((bytes[0] & 0xFF) == 0x8B && (bytes[1] & 0xFF) == modRM8B
+                || (bytes[0] & 0xFF) == 0x89 && (bytes[1] & 0xFF) == modRM89);
+    }
+
+    // endregion
+
+    // region Execution.
+
+    /**
+     * Executes a superinstruction from its first instruction, at CS:IP.
+     * @return the number of instructions executed, which is less than the length of the sequence if an instruction
+     * modified code.
+     */
+    int execute(final Sequence sequence) {
+        counts[sequence.kind]++;
+        final DecodedInstruction[] instructions = sequence.instructions;
+        return switch (sequence.kind) {
+            case COMPARE_JUMP -> compareJump(instructions[0], instructions[1]);
+            case ENTER -> enter(instructions[0], instructions[1]);
+            case LEAVE -> leave(instructions[0], instructions[1], instructions[2]);
+            case ZERO -> zero(instructions[0]);
+            case COUNT_JUMP -> countJump(instructions[0], instructions[1]);
+            default -> copyByte(instructions[0], instructions[1]);
+        };
+    }
+
+    private int compareJump(final DecodedInstruction compare, final DecodedInstruction jump) {
+        final RegSet reg = cpu.reg;
+        final byte[] bytes = compare.bytes;
+        final int opcode = compare.opcode;
+        final boolean word = (opcode & 1) != 0;
+        final int sign = word ? 0x8000 : 0x80;
+        final int modRM = bytes[1] & 0xFF;
+        final int a;
+        final int b;
+        switch (opcode) {
+            case 0x3C, 0x3D -> {
+                a = word ? reg.get16(RegSet.AX_INDEX) : reg.get8(RegSet.AX_INDEX);
+                b = word ? (bytes[1] & 0xFF) | (bytes[2] & 0xFF) << 8 : modRM;
+            }
+            case 0x80, 0x81, 0x83 -> {
+                a = word ? reg.get16(modRM & 7) : reg.get8(modRM & 7);
+                b = switch (opcode) {
+                    case 0x80 -> bytes[2] & 0xFF;
+                    case 0x81 -> (bytes[2] & 0xFF) | (bytes[3] & 0xFF) << 8;
+                    default -> bytes[2] & 0xFFFF;                                   // Sign-extended imm8.
+                };
+            }
+            default -> {
+                final int rm = word ? reg.get16(modRM & 7) : reg.get8(modRM & 7);
+                final int r = word ? reg.get16((modRM >> 3) & 7) : reg.get8((modRM >> 3) & 7);
+                a = (opcode & 0x02) != 0 ? r : rm;
+                b = (opcode & 0x02) != 0 ? rm : r;
+            }
+        }
+        cpu.fetchTranslated(compare);
+        final boolean taken;
+        if (opcode == 0x84 || opcode == 0x85) {
+            final int result = a & b;
+            reg.flags.lazy(Flags.LOGIC, sign, 0, 0, result);
+            taken = testCondition(jump.opcode & 0xF, result, sign);
+        } else {
+            final int result = a - b;
+            reg.flags.lazy(Flags.SUB, sign, a, b, result);
+            taken = compareCondition(jump.opcode & 0xF, a, b, result, sign);
+        }
+        cpu.fetchTranslated(jump);
+        if (taken) {
+            reg.setIP(reg.getIP() + jump.bytes[1]);
+        }
+        return 2;
+    }
+
+    /**
+     * Evaluates a Jcc condition code following CMP a,b (or SUB) directly from its unsigned operands.
+     */
+    static boolean compareCondition(final int cc, final int a, final int b, final int result, final int sign) {
+        final boolean condition = switch (cc >> 1) {
+            case 0 -> ((a ^ b) & (a ^ result) & sign) != 0;                             // OF
+            case 1 -> a < b;                                                            // CF
+            case 2 -> a == b;                                                           // ZF
+            case 3 -> a <= b;                                                           // CF or ZF
+            case 4 -> (result & sign) != 0;                                             // SF
+            case 5 -> (Flags.szp8(result) & Flags.PARITY) != 0;                         // PF
+            case 6 -> (a ^ sign) < (b ^ sign);                                          // SF != OF
+            default -> (a ^ sign) <= (b ^ sign);                                        // ZF or SF != OF
+        };
+        return condition == ((cc & 1) == 0);
+    }
+
+    /**
+     * Evaluates a Jcc condition code following TEST (or AND) directly from its result. CF and OF are always clear.
+     */
+    static boolean testCondition(final int cc, final int result, final int sign) {
+        final boolean condition = switch (cc >> 1) {
+            case 0, 1 -> false;                                                         // OF, CF
+            case 2, 3 -> (result & ((sign << 1) - 1)) == 0;                             // ZF, CF or ZF
+            case 4, 6 -> (result & sign) != 0;                                          // SF, SF != OF
+            case 5 -> (Flags.szp8(result) & Flags.PARITY) != 0;                         // PF
+            default -> (result & ((sign << 1) - 1)) == 0 || (result & sign) != 0;       // ZF or SF != OF
+        };
+        return condition == ((cc & 1) == 0);
+    }
+
+    private int enter(final DecodedInstruction push, final DecodedInstruction move) {
+        final int invalidations = cpu.memory.instructionCache.invalidations;
+        cpu.fetchTranslated(push);
+        cpu.push16((short) cpu.reg.get16(RegSet.BP_INDEX));
+        if (cpu.memory.instructionCache.invalidations != invalidations) {
+            return 1;
+        }
+        cpu.fetchTranslated(move);
+        cpu.reg.set16(RegSet.BP_INDEX, cpu.reg.get16(RegSet.SP_INDEX));
+        return 2;
+    }
+
+    private int leave(final DecodedInstruction move, final DecodedInstruction pop, final DecodedInstruction ret) {
+        cpu.fetchTranslated(move);
+        cpu.reg.set16(RegSet.SP_INDEX, cpu.reg.get16(RegSet.BP_INDEX));
+        cpu.fetchTranslated(pop);
+        cpu.reg.set16(RegSet.BP_INDEX, cpu.pop16());
+        cpu.fetchTranslated(ret);
+        cpu.reg.setIP(cpu.pop16());
+        return 3;
+    }
+
+    private int zero(final DecodedInstruction xor) {
+        final int index = xor.bytes[1] & 7;
+        cpu.fetchTranslated(xor);
+        if ((xor.opcode & 1) != 0) {
+            cpu.reg.set16(index, 0);
+            cpu.reg.flags.lazy(Flags.LOGIC, 0x8000, 0, 0, 0);
+        } else {
+            cpu.reg.set8(index, 0);
+            cpu.reg.flags.lazy(Flags.LOGIC, 0x80, 0, 0, 0);
+        }
+        return 1;
+    }
+
+    private int countJump(final DecodedInstruction count, final DecodedInstruction jump) {
+        final RegSet reg = cpu.reg;
+        final int index = count.opcode & 7;
+        final int value = reg.get16(index);
+        cpu.fetchTranslated(count);
+        final int result;
+        if (count.opcode < 0x48) {
+            result = value + 1;
+            reg.flags.lazy(Flags.INC, 0x8000, value, 1, result);
+        } else {
+            result = value - 1;
+            reg.flags.lazy(Flags.DEC, 0x8000, value, 1, result);
+        }
+        reg.set16(index, result);
+        cpu.fetchTranslated(jump);
+        if ((result & 0xFFFF) != 0) {
+            reg.setIP(reg.getIP() + jump.bytes[1]);
+        }
+        return 2;
+    }
+
+    private int copyByte(final DecodedInstruction load, final DecodedInstruction store) {
+        final RegSet reg = cpu.reg;
+        final int delta = reg.flags.isDirectionDown() ? -1 : 1;
+        cpu.fetchTranslated(load);
+        reg.set8(RegSet.AX_INDEX, cpu.memory.readByte(reg.getSegBase(RegSet.DS_SEGMENT), reg.get16(RegSet.SI_INDEX)));
+        reg.set16(RegSet.SI_INDEX, reg.get16(RegSet.SI_INDEX) + delta);
+        cpu.fetchTranslated(store);
+        cpu.memory.writeByte(reg.getSegBase(RegSet.ES_SEGMENT), reg.get16(RegSet.DI_INDEX),
+                (byte) reg.get8(RegSet.AX_INDEX));
+        reg.set16(RegSet.DI_INDEX, reg.get16(RegSet.DI_INDEX) + delta);
+        return 2;
+    }
+
+    // endregion
+}
@@ -0,0 +1,24 @@
+// TranslatedBlock.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * A basic block of guest instructions translated to JVM bytecode by the {@code BlockTranslator}. Subclasses are
+ * generated hidden classes.
+ */
+public abstract class TranslatedBlock {
+
+    int steps;                                          // Number of instructions in the block.
+    int length;                                         // Number of instruction bytes in the block.
+
+    TranslatedBlock() {
+    }
+
+    /**
+     * Executes the block from its first instruction, stopping early if an instruction leaves CS:IP anywhere other than
+     * the next instruction (e.g. an interrupt), or modifies code.
+     * @return the number of instructions executed.
+     */
+    abstract int run(CPU cpu);
+}
@@ -0,0 +1,22 @@
+// UnprotectedMemory.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+/**
+ * Memory without permission checks, even once permissions are removed, e.g. to run code whose loader removes
+ * permissions only as a diagnostic aid. Permissions may still be applied and removed, but every access is permitted and
+ * {@code CPUDelegate.invalidMemoryAccess()} is never invoked. As a CPU only ever uses one kind of memory, the JIT
+ * compiles the checks away entirely.
+ */
+public class UnprotectedMemory extends Memory {
+
+    public UnprotectedMemory(final CPU cpu) {
+        super(cpu);
+    }
+
+    @Override
+    boolean isPermitted(final int address, final byte permission) {
+        return true;
+    }
+}
@@ -25,6 +25,14 @@ public class DiskTransferArea {
         this.offset = offset;
     }
 
+    public short getSegment() {
+        return segment;
+    }
+
+    public short getOffset() {
+        return offset;
+    }
+
     public short getInternalId() {
         return getWord(INTERNAL_ID);
     }
@@ -4,6 +4,7 @@
 package nz.co.electricbolt.xt.usermode;
 
 import nz.co.electricbolt.xt.cpu.CPU;
+import nz.co.electricbolt.xt.cpu.CodeCache;
 import nz.co.electricbolt.xt.cpu.Memory;
 import nz.co.electricbolt.xt.cpu.SegOfs;
 
@@ -13,9 +14,18 @@ import java.io.IOException;
 public class ProgramLoader {
 
     private final CPU cpu;
+    private final CodeCache codeCache;
 
     public ProgramLoader(final CPU cpu) {
+        this(cpu, null);
+    }
+
+    /**
+     * @param codeCache cache of the code of previous runs of the program, or null.
+     */
+    public ProgramLoader(final CPU cpu, final CodeCache codeCache) {
         this.cpu = cpu;
+        this.codeCache = codeCache;
     }
 
     public void load(final String path) {
@@ -37,6 +47,12 @@ public class ProgramLoader {
                 cpu.getReg().SS.setValue((short) 0x0090);
                 cpu.getReg().IP.setValue((short) 0x0100);
                 cpu.getReg().CS.setValue((short) 0x0090);
+
+                // Concurrent runs of the program share the frames of its image.
+                cpu.getMemory().share(startLinearAddress, startLinearAddress + buf.length);
+                if (codeCache != null) {
+                    codeCache.load(startLinearAddress, startLinearAddress + buf.length);
+                }
             } else {
                 // EXE file.
                 final EXEHeader header = new EXEHeader(buf);
@@ -72,6 +88,11 @@ public class ProgramLoader {
                 cpu.getReg().SS.setValue((short) (header.relativeSS + 0x00A0));
                 cpu.getReg().IP.setValue((short) header.IP);
                 cpu.getReg().CS.setValue((short) (header.relativeCS + 0x00A0));
+
+                cpu.getMemory().share(startLinearAddress, startLinearAddress + codeSize);
+                if (codeCache != null) {
+                    codeCache.load(startLinearAddress, startLinearAddress + codeSize);
+                }
             }
         } catch (IOException e) {
             System.out.println("The program " + path + " could not be read.");
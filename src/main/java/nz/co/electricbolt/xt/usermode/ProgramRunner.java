@@ -5,13 +5,19 @@ package nz.co.electricbolt.xt.usermode;
 
 import nz.co.electricbolt.xt.cpu.CPU;
 import nz.co.electricbolt.xt.cpu.CPUDelegate;
+import nz.co.electricbolt.xt.cpu.CPUSnapshot;
+import nz.co.electricbolt.xt.cpu.CodeCache;
+import nz.co.electricbolt.xt.cpu.Flags;
 import nz.co.electricbolt.xt.cpu.SegOfs;
 import nz.co.electricbolt.xt.usermode.interrupts.Interrupts;
 import nz.co.electricbolt.xt.usermode.interrupts.dos.FileIO;
+import nz.co.electricbolt.xt.usermode.interrupts.dos.TerminateProgram;
 import nz.co.electricbolt.xt.usermode.util.DirectoryTranslation;
 import nz.co.electricbolt.xt.usermode.util.MemoryUtil;
 import nz.co.electricbolt.xt.usermode.util.Trace;
 
+import java.nio.file.Path;
+
 public class ProgramRunner implements CPUDelegate {
 
     /*
@@ -43,20 +49,66 @@ public class ProgramRunner implements CPUDelegate {
     private final Interrupts interrupts;
     private final DirectoryTranslation directoryTranslation;
     private final Trace trace;
+    private final CodeCache codeCache;
+    private final SystemTimer timer;
+    private final ProgrammableIntervalTimer pit;
 
+    /**
+     * @param codeCacheDirectory host directory in which to cache the code of the program between runs, or empty for
+     *                           no caching.
+     */
     public ProgramRunner(final String programPath, final String commandLine, final String hostWorkingDirectory,
-                         final boolean traceCPU, final boolean traceInterrupt, final String traceFile) {
+                         final boolean traceCPU, final boolean traceInterrupt, final String traceFile,
+                         final boolean translate, final String codeCacheDirectory) {
         directoryTranslation = new DirectoryTranslation(hostWorkingDirectory);
         this.programPath = directoryTranslation.emulatedPathToHostPath(programPath);
 
         this.commandLine = commandLine;
 
+        // Memory only checks permissions once the loader removes some, as it does outside a .COM image.
         this.cpu = new CPU(this);
+        this.cpu.setTranslation(translate);
+        // Flags skipped as dead within a translated block would be traced with stale values.
+        this.cpu.setFlagLiveness(!traceCPU);
+        // Iterations of a delay loop executed in closed form aren't fetched, so would be missing from the trace.
+        this.cpu.setDelayLoops(!traceCPU);
         this.interrupts = new Interrupts();
+        this.interrupts.getHandler(TerminateProgram.class).setExit(this::exit);
+        this.timer = new SystemTimer(cpu);
+        this.pit = new ProgrammableIntervalTimer(cpu, ProgrammableIntervalTimer.DEFAULT_CLOCKS_PER_INSTRUCTION);
         this.trace = new Trace(cpu, traceCPU, traceInterrupt, traceFile);
+        if (traceCPU) {
+            this.cpu.setFetchListener(trace);
+        }
+        this.codeCache = codeCacheDirectory.isEmpty() ? null : new CodeCache(cpu, Path.of(codeCacheDirectory));
+    }
+
+    /**
+     * Immutable state of a loaded program: the CPU and memory, including the PSP and environment, the open files and
+     * find file searches, and the timer. See {@code snapshot()}.
+     */
+    public static final class Snapshot {
+
+        private final CPUSnapshot cpu;
+        private final FileIO.State fileIO;
+        private final ProgrammableIntervalTimer.State pit;
+
+        private Snapshot(final CPUSnapshot cpu, final FileIO.State fileIO, final ProgrammableIntervalTimer.State pit) {
+            this.cpu = cpu;
+            this.fileIO = fileIO;
+            this.pit = pit;
+        }
     }
 
     public void loadAndExecute() {
+        load();
+        execute();
+    }
+
+    /**
+     * Writes the environment and PSP, loads the program and installs the timers, ready for {@code execute()}.
+     */
+    public void load() {
         final EnvironmentVariables environment = new EnvironmentVariables(cpu.getMemory(), (short) 0x0050, (short) 0x0000);
         environment.writeVariable("PATH", "C:\\");
         environment.writeExecutablePath(directoryTranslation.hostPathToEmulatedPath(programPath));
@@ -64,6 +116,70 @@ public class ProgramRunner implements CPUDelegate {
         final ProgramSegmentPrefix psp = new ProgramSegmentPrefix(cpu.getMemory(), (short) 0x0090, (short) 0x0000);
         psp.writeProgramEnd((short) 0xF000);
         psp.writeEnvironment((short) 0x0050);
+        writeCommandLine(psp, commandLine);
+
+        cpu.getReg().AX.setValue((short) 0x0000); // AL,AH = Drive numbers for the first and second FCB.
+        cpu.getReg().DS.setValue((short) 0x0090); // Segment for start of PSP.
+        cpu.getReg().ES.setValue((short) 0x0090); // Segment for start of PSP.
+
+        final ProgramLoader programLoader = new ProgramLoader(cpu, codeCache);
+        programLoader.load(programPath);
+
+        timer.install();
+        pit.install();
+        cpu.getReg().flags.setInterruptEnabled(true); // DOS starts programs with interrupts enabled.
+    }
+
+    /**
+     * Runs the program from its current state until it exits.
+     */
+    public void execute() {
+        cpu.execute();
+    }
+
+    /**
+     * Runs the program for up to maxSteps instructions, e.g. until it has initialized and can be snapshot.
+     */
+    public void execute(final int maxSteps) {
+        cpu.execute(maxSteps);
+    }
+
+    CPU getCPU() {
+        return cpu;
+    }
+
+    /**
+     * Takes a snapshot of the program, typically just after {@code load()} or once it has initialized, so that it can
+     * be restored and run again without loading it. Memory is shared copy-on-write with the snapshot, so taking one
+     * doesn't copy the memory.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(cpu.snapshot(), interrupts.getHandler(FileIO.class).snapshot(), pit.snapshot());
+    }
+
+    /**
+     * Restores the program to snapshot, which may have been taken from another runner of the same program. Files open
+     * in the snapshot are reopened at the same position; their contents aren't part of the snapshot.
+     * @throws IllegalStateException if a file open in the snapshot can't be reopened, in which case nothing is restored.
+     */
+    public void restore(final Snapshot snapshot) {
+        interrupts.getHandler(FileIO.class).restore(snapshot.fileIO, cpu);
+        cpu.restore(snapshot.cpu);
+        pit.restore(snapshot.pit);
+    }
+
+    /**
+     * Restores the program to snapshot, taken just after {@code load()}, with a different command line in the PSP.
+     */
+    public void restore(final Snapshot snapshot, final String commandLine) {
+        restore(snapshot);
+        writeCommandLine(new ProgramSegmentPrefix(cpu.getMemory(), (short) 0x0090, (short) 0x0000), commandLine);
+    }
+
+    /**
+     * Writes the command line, and the first two parameters as filenames in the FCBs, to the PSP.
+     */
+    private static void writeCommandLine(final ProgramSegmentPrefix psp, final String commandLine) {
         psp.writeCommandLine(commandLine);
 
         String filename1 = "";
@@ -79,34 +195,32 @@ public class ProgramRunner implements CPUDelegate {
         }
         psp.writeFilename(1, 'C', filename1);
         psp.writeFilename(2, 'C', filename2);
-
-        cpu.getReg().AX.setValue((short) 0x0000); // AL,AH = Drive numbers for the first and second FCB.
-        cpu.getReg().DS.setValue((short) 0x0090); // Segment for start of PSP.
-        cpu.getReg().ES.setValue((short) 0x0090); // Segment for start of PSP.
-
-        final ProgramLoader programLoader = new ProgramLoader(cpu);
-        programLoader.load(programPath);
-
-        cpu.execute();
     }
 
-    // region CPUDelegate
-    @Override
-    public void fetched8(final byte value, final long instructionCount) {
-        trace.fetched8(value, instructionCount);
-    }
-
-    @Override
-    public void fetched16(final short value, final long instructionCount) {
-        trace.fetched16(value, instructionCount);
+    /**
+     * Saves the code cache and exits with status. Called while the CPU is stopped in an instruction, so the cache
+     * isn't saved while it's being modified, as it would be from a shutdown hook on SIGINT.
+     */
+    private void exit(final int status) {
+        if (codeCache != null) {
+            codeCache.save();
+        }
+        System.exit(status);
     }
 
+    // region CPUDelegate
     @Override
     public void interrupt(final byte interrupt) {
+        if (timer.interrupt(interrupt)) {
+            return; // The handler at the interrupt vector runs.
+        }
         interrupts.execute(cpu, interrupt, trace, directoryTranslation);
         cpu.getReg().IP.setValue(cpu.pop16());
         cpu.getReg().CS.setValue(cpu.pop16());
-        cpu.pop16(); // flags should be passed through.
+        // Flags should be passed through, apart from IF and TF which the interrupt cleared.
+        final short flags = cpu.pop16();
+        cpu.getReg().flags.setInterruptEnabled((flags & Flags.INTERRUPT_ENABLE) != 0);
+        cpu.getReg().flags.setTrapEnabled((flags & Flags.TRAP) != 0);
     }
 
     @Override
@@ -115,30 +229,39 @@ public class ProgramRunner implements CPUDelegate {
         trace.log(cpu.getReg().toString());
         System.err.println("CPU halted");
         System.err.println(cpu.getReg().toString());
-        System.exit(255);
+        exit(255);
     }
 
     @Override
     public byte portRead8(final short address) {
-        return 0;
+        final int port = address & 0xFFFF;
+        return pit.handles(port) ? (byte) pit.portRead8(port) : 0;
     }
 
     @Override
     public void portWrite8(final short address, byte value) {
+        final int port = address & 0xFFFF;
+        if (pit.handles(port)) {
+            pit.portWrite8(port, value);
+        }
     }
 
     @Override
     public short portRead16(final short address) {
-        return 0;
+        // A word is read from the port and the following port.
+        return (short) ((portRead8(address) & 0xFF) | portRead8((short) (address + 1)) << 8);
     }
 
     @Override
     public void portWrite16(final short address, short value) {
+        portWrite8(address, (byte) value);
+        portWrite8((short) (address + 1), (byte) (value >> 8));
     }
 
     /**
-     * By default, this method will not be invoked - as all memory is marked read/write/execute.
-     * When diagnosing new application behavior, it's useful to observe memory areas being read, written or executed
+     * Invoked when a .COM program executes code outside its image, as the loader removes execute permission from the
+     * rest of memory. All memory of an .EXE program is marked read/write/execute, and is never checked. When
+     * diagnosing new application behavior, it's useful to observe memory areas being read, written or executed
      * unexpectedly. Uncomment/customize the memory protection code in ProgramLoader.
      */
     @Override
@@ -150,7 +273,7 @@ public class ProgramRunner implements CPUDelegate {
         System.err.printf(message);
         System.err.println(cpu.getReg().toString());
         MemoryUtil.dump(cpu.getMemory(), memoryAddress);
-        System.exit(255);
+        exit(255);
     }
 
     @Override
@@ -159,7 +282,7 @@ public class ProgramRunner implements CPUDelegate {
         trace.log(cpu.getReg().toString());
         System.err.println(message);
         System.err.println(cpu.getReg().toString());
-        System.exit(255);
+        exit(255);
     }
     // endregion
 }
@@ -0,0 +1,291 @@
+// ProgrammableIntervalTimer.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.usermode;
+
+import nz.co.electricbolt.xt.cpu.CPU;
+
+/**
+ * The PC's 8253 programmable interval timer at ports 40h - 43h, and the timer 2 gate and output bits of port 61h. The
+ * counters are driven from the CPU's instruction count, so programs that calibrate or wait by polling a counter see
+ * it count down at a fixed rate of emulated instructions rather than host time. Channel 0 drives IRQ 0: while in mode
+ * 2 or 3 it sets the CPU's timer interval to its period.
+ * <p>
+ * Counter latch, read-back (as on the 8254 of the AT), LSB/MSB/word access and the counting and output of modes 2
+ * and 3 are emulated. Modes 0, 1, 4 and 5 count down from the written count, wrapping at 0, without hardware
+ * triggering; a mode 0 terminal count doesn't request IRQ 0. BCD counting is not emulated.
+ */
+public class ProgrammableIntervalTimer {
+
+    // The 1.193182MHz timer clock ticks 4 times for each instruction of a 4.77MHz 8088 averaging 16 clocks.
+    public static final int DEFAULT_CLOCKS_PER_INSTRUCTION = 4;
+
+    private static final int COUNTER_0 = 0x40;
+    private static final int CONTROL = 0x43;
+    private static final int PORT_B = 0x61;
+    private static final int PORT_B_GATE_2 = 0x01;
+    private static final int PORT_B_OUT_2 = 0x20;
+
+    /**
+     * One of the three counters.
+     */
+    private static final class Channel implements Cloneable {
+
+        int mode;
+        int access = 3;                                 // 1 LSB only, 2 MSB only, 3 LSB then MSB.
+        boolean bcd;
+        int count;                                      // Written count; 0 is 65536.
+        int writeLow;                                   // LSB written, while waiting for the MSB.
+        boolean writeMsb;                               // The next write is the MSB.
+        boolean readMsb;                                // The next read is the MSB.
+        int latchedCount = -1;                          // -1 when not latched.
+        int latchedStatus = -1;                         // -1 when not latched.
+        boolean waiting = true;                         // Control word written, count not yet written.
+        boolean gate = true;
+        long start;                                     // Clock at which counting started.
+        long stopped;                                   // Clock at which the gate went low.
+
+        /**
+         * @return the number of clocks counted at clock now.
+         */
+        long elapsed(final long now) {
+            return (gate ? now : stopped) - start;
+        }
+
+        int period() {
+            return count == 0 ? 0x10000 : count;
+        }
+
+        int value(final long now) {
+            if (waiting) {
+                return count;
+            }
+            final long elapsed = elapsed(now);
+            final int period = period();
+            return switch (mode) {
+                case 2 -> (period - (int) (elapsed % period)) & 0xFFFF;
+                case 3 -> {
+                    // Counts down by 2 through each half of the period.
+                    final int half = (period + 1) / 2;
+                    yield (period - 2 * (int) (elapsed % period % half)) & 0xFFFF;
+                }
+                default -> (int) (period - elapsed) & 0xFFFF;
+            };
+        }
+
+        boolean output(final long now) {
+            if (waiting) {
+                return mode != 0;
+            }
+            final long elapsed = elapsed(now);
+            final int period = period();
+            return switch (mode) {
+                case 0, 1 -> elapsed >= period;
+                case 2 -> elapsed % period != period - 1;
+                case 3 -> elapsed % period < (period + 1) / 2;
+                default -> elapsed != period;
+            };
+        }
+
+        int status(final long now) {
+            return (output(now) ? 0x80 : 0) | (waiting ? 0x40 : 0) | access << 4 | mode << 1 | (bcd ? 1 : 0);
+        }
+
+        Channel copy() {
+            try {
+                return (Channel) clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Immutable state of the counters and port 61h, taken by {@code snapshot()}. As the counters are driven by the
+     * instruction count, the state is only meaningful together with a snapshot of the CPU.
+     */
+    public static final class State {
+
+        private final Channel[] channels;
+        private final int portB;
+
+        private State(final Channel[] channels, final int portB) {
+            this.channels = channels;
+            this.portB = portB;
+        }
+    }
+
+    private final CPU cpu;
+    private final int clocksPerInstruction;
+    private final Channel[] channels = {new Channel(), new Channel(), new Channel()};
+    private int portB;
+
+    /**
+     * @param clocksPerInstruction number of timer clocks per instruction executed.
+     */
+    public ProgrammableIntervalTimer(final CPU cpu, final int clocksPerInstruction) {
+        this.cpu = cpu;
+        this.clocksPerInstruction = clocksPerInstruction;
+    }
+
+    /**
+     * Programs the counters as the BIOS does at power on: channel 0 to interrupt 18.2 times per second, channel 1 for
+     * DRAM refresh and channel 2 for an 896Hz beep, with its gate low.
+     */
+    public void install() {
+        portWrite8(CONTROL, 0x36);                      // Channel 0, LSB then MSB, mode 3.
+        portWrite8(COUNTER_0, 0x00);
+        portWrite8(COUNTER_0, 0x00);
+        portWrite8(CONTROL, 0x54);                      // Channel 1, LSB only, mode 2.
+        portWrite8(COUNTER_0 + 1, 18);
+        portWrite8(CONTROL, 0xB6);                      // Channel 2, LSB then MSB, mode 3.
+        portWrite8(COUNTER_0 + 2, 0x33);
+        portWrite8(COUNTER_0 + 2, 0x05);
+        portWrite8(PORT_B, 0x00);
+    }
+
+    /**
+     * @return a copy of the state of the counters and port 61h.
+     */
+    public State snapshot() {
+        return new State(copy(channels), portB);
+    }
+
+    /**
+     * Restores the counters and port 61h from state, which may have been taken from another timer.
+     */
+    public void restore(final State state) {
+        System.arraycopy(copy(state.channels), 0, channels, 0, channels.length);
+        portB = state.portB;
+    }
+
+    private static Channel[] copy(final Channel[] channels) {
+        final Channel[] result = new Channel[channels.length];
+        for (int i = 0; i < channels.length; i++) {
+            result[i] = channels[i].copy();
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the port is emulated by the timer.
+     */
+    public boolean handles(final int port) {
+        return (port >= COUNTER_0 && port <= CONTROL) || port == PORT_B;
+    }
+
+    public int portRead8(final int port) {
+        if (port == PORT_B) {
+            return (portB & ~PORT_B_OUT_2) | (channels[2].output(clock()) ? PORT_B_OUT_2 : 0);
+        }
+        if (port == CONTROL) {
+            return 0xFF;                                // Write only.
+        }
+        final Channel channel = channels[port - COUNTER_0];
+        if (channel.latchedStatus != -1) {
+            final int status = channel.latchedStatus;
+            channel.latchedStatus = -1;
+            return status;
+        }
+        final int value = channel.latchedCount != -1 ? channel.latchedCount : channel.value(clock());
+        final int result;
+        switch (channel.access) {
+            case 1 -> result = value & 0xFF;
+            case 2 -> result = value >> 8;
+            default -> {
+                result = channel.readMsb ? value >> 8 : value & 0xFF;
+                channel.readMsb = !channel.readMsb;
+                if (channel.readMsb) {
+                    return result;
+                }
+            }
+        }
+        channel.latchedCount = -1;
+        return result;
+    }
+
+    public void portWrite8(final int port, final int value) {
+        final long now = clock();
+        if (port == PORT_B) {
+            final boolean gate = (value & PORT_B_GATE_2) != 0;
+            final Channel channel = channels[2];
+            if (gate && !channel.gate) {
+                // A rising gate restarts modes 1, 2, 3 and 5; modes 0 and 4 resume counting.
+                channel.start = channel.mode == 0 || channel.mode == 4 ? channel.start + now - channel.stopped : now;
+            } else if (!gate && channel.gate) {
+                channel.stopped = now;
+            }
+            channel.gate = gate;
+            portB = value & 0xFF;
+        } else if (port == CONTROL) {
+            control(value & 0xFF, now);
+        } else {
+            write(port - COUNTER_0, value & 0xFF, now);
+        }
+    }
+
+    private void control(final int value, final long now) {
+        final int select = value >> 6;
+        if (select == 3) {
+            // Read-back: bit 5 clear latches the counts, bit 4 clear the statuses, of the channels in bits 1 - 3.
+            for (int i = 0; i < 3; i++) {
+                if ((value & 2 << i) != 0) {
+                    final Channel channel = channels[i];
+                    if ((value & 0x20) == 0 && channel.latchedCount == -1) {
+                        channel.latchedCount = channel.value(now);
+                    }
+                    if ((value & 0x10) == 0 && channel.latchedStatus == -1) {
+                        channel.latchedStatus = channel.status(now);
+                    }
+                }
+            }
+            return;
+        }
+        final Channel channel = channels[select];
+        final int access = (value >> 4) & 3;
+        if (access == 0) {
+            if (channel.latchedCount == -1) {
+                channel.latchedCount = channel.value(now);
+            }
+            return;
+        }
+        channel.access = access;
+        final int mode = (value >> 1) & 7;
+        channel.mode = mode > 5 ? mode - 4 : mode;      // Modes 6 and 7 are modes 2 and 3.
+        channel.bcd = (value & 1) != 0;
+        channel.writeMsb = access == 2;
+        channel.readMsb = false;
+        channel.latchedCount = -1;
+        channel.latchedStatus = -1;
+        channel.waiting = true;
+    }
+
+    private void write(final int index, final int value, final long now) {
+        final Channel channel = channels[index];
+        if (channel.access == 3 && !channel.writeMsb) {
+            channel.writeLow = value;
+            channel.writeMsb = true;
+            return;
+        }
+        channel.count = switch (channel.access) {
+            case 1 -> value;
+            case 2 -> value << 8;
+            default -> channel.writeLow | value << 8;
+        };
+        channel.writeMsb = channel.access == 2;
+        channel.waiting = false;
+        channel.start = now;
+        channel.stopped = now;
+        if (index == 0) {
+            final boolean periodic = channel.mode == 2 || channel.mode == 3;
+            cpu.setTimerInterval(periodic ? Math.max(1, channel.period() / clocksPerInstruction) : 0);
+        }
+    }
+
+    /**
+     * @return the number of timer clocks since the CPU started.
+     */
+    private long clock() {
+        return cpu.getInstructionCount() * clocksPerInstruction;
+    }
+}
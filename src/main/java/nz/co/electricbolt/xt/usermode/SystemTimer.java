@@ -0,0 +1,76 @@
+// SystemTimer.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.usermode;
+
+import nz.co.electricbolt.xt.cpu.CPU;
+import nz.co.electricbolt.xt.cpu.Memory;
+import nz.co.electricbolt.xt.cpu.SegOfs;
+
+/**
+ * The PC's 18.2Hz system timer, driven by channel 0 of the {@code ProgrammableIntervalTimer}. As in the ROM BIOS, the
+ * default INT 08h handler increments the BIOS tick count, setting the midnight flag when it wraps, and invokes INT 1Ch,
+ * so programs that hook INT 08h or INT 1Ch, or poll the tick count, see time pass. The default handlers are x86 code at
+ * F000:0000, where the ROM BIOS would be: beyond the end of the program's memory and below the stack, so no program
+ * overwrites them. A program's handler can chain to the previous handler as usual; one that replaces INT 08h without
+ * chaining stops the tick count, as on a PC.
+ */
+public class SystemTimer {
+
+    private static final short STUB_SEGMENT = (short) 0xF000;
+    private static final short INT08_STUB = (short) 0x0000;
+    private static final short INT1C_STUB = (short) 0x002F;
+    private static final byte[] STUBS = {
+            0x1E,                                                           // 0000 PUSH DS
+            0x50,                                                           // 0001 PUSH AX
+            0x31, (byte) 0xC0,                                              // 0002 XOR AX,AX
+            (byte) 0x8E, (byte) 0xD8,                                       // 0004 MOV DS,AX
+            (byte) 0xFF, 0x06, 0x6C, 0x04,                                  // 0006 INC WORD [046C]   Tick count.
+            0x75, 0x04,                                                     // 000A JNZ 0010
+            (byte) 0xFF, 0x06, 0x6E, 0x04,                                  // 000C INC WORD [046E]
+            (byte) 0x83, 0x3E, 0x6E, 0x04, 0x18,                            // 0010 CMP WORD [046E],0018
+            0x75, 0x13,                                                     // 0015 JNZ 002A
+            (byte) 0x81, 0x3E, 0x6C, 0x04, (byte) 0xB0, 0x00,               // 0017 CMP WORD [046C],00B0
+            0x75, 0x0B,                                                     // 001D JNZ 002A
+            (byte) 0xA3, 0x6C, 0x04,                                        // 001F MOV [046C],AX     Ticks per day.
+            (byte) 0xA3, 0x6E, 0x04,                                        // 0022 MOV [046E],AX
+            (byte) 0xC6, 0x06, 0x70, 0x04, 0x01,                            // 0025 MOV BYTE [0470],01  Midnight flag.
+            0x58,                                                           // 002A POP AX
+            0x1F,                                                           // 002B POP DS
+            (byte) 0xCD, 0x1C,                                              // 002C INT 1C
+            (byte) 0xCF,                                                    // 002E IRET
+            (byte) 0xCF                                                     // 002F IRET              INT 1Ch.
+    };
+
+    private final CPU cpu;
+
+    public SystemTimer(final CPU cpu) {
+        this.cpu = cpu;
+    }
+
+    /**
+     * Installs the default INT 08h and INT 1Ch handlers.
+     */
+    public void install() {
+        final Memory memory = cpu.getMemory();
+        final int stub = new SegOfs(STUB_SEGMENT, INT08_STUB).toLinearAddress();
+        memory.putLinearData(stub, STUBS, 0, STUBS.length);
+        memory.applyPermission(stub, STUBS.length, Memory.PERMISSION_EXECUTE);
+        setVector(0x08, INT08_STUB);
+        setVector(0x1C, INT1C_STUB);
+    }
+
+    private void setVector(final int interrupt, final short offset) {
+        cpu.getMemory().setWord(new SegOfs((short) 0, (short) (4 * interrupt)), offset);
+        cpu.getMemory().setWord(new SegOfs((short) 0, (short) (4 * interrupt + 2)), STUB_SEGMENT);
+    }
+
+    /**
+     * Invoked by the {@code CPUDelegate} for every interrupt. CS:IP is already the interrupt's handler, which is left
+     * to run for INT 08h and INT 1Ch.
+     * @return true if the interrupt was INT 08h or INT 1Ch, false if it must be emulated.
+     */
+    public boolean interrupt(final byte interrupt) {
+        return interrupt == 0x08 || interrupt == 0x1C;
+    }
+}
@@ -3,9 +3,12 @@
 
 package nz.co.electricbolt.xt.usermode.filedevice;
 
+import nz.co.electricbolt.xt.cpu.Memory;
+import nz.co.electricbolt.xt.cpu.SegOfs;
 import nz.co.electricbolt.xt.usermode.AccessMode;
 import nz.co.electricbolt.xt.usermode.interrupts.dos.FileDateTime;
 import nz.co.electricbolt.xt.usermode.SharingMode;
+import nz.co.electricbolt.xt.usermode.util.MemoryUtil;
 
 public class BaseFile {
 
@@ -58,6 +61,26 @@ public class BaseFile {
     public void write(byte[] buf) {
     }
 
+    /**
+     * Reads up to size bytes into memory at address.
+     * @return the number of bytes read, 0 at the end of the file.
+     */
+    public int read(final Memory memory, final SegOfs address, final int size) {
+        final byte[] buf = read(size);
+        if (buf == null) {
+            return 0;
+        }
+        MemoryUtil.writeBuf(memory, address, buf);
+        return buf.length;
+    }
+
+    /**
+     * Writes size bytes from memory at address.
+     */
+    public void write(final Memory memory, final SegOfs address, final int size) {
+        write(MemoryUtil.readBuf(memory, address, (short) size));
+    }
+
     public int size() {
         return 0;
     }
@@ -74,4 +97,20 @@ public class BaseFile {
     }
 
     public boolean delete() { return false; }
+
+    /**
+     * @return an unopened file with the same name, modes and handle as this one, e.g. to hold in a snapshot. Devices,
+     * which have no state, return themselves.
+     */
+    public BaseFile copy() {
+        return this;
+    }
+
+    /**
+     * Opens a file returned by copy() at position pos.
+     * @return false if the file could not be opened. Devices are always open.
+     */
+    public boolean reopen(final int pos) {
+        return true;
+    }
 }
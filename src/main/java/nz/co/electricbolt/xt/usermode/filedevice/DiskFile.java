@@ -3,6 +3,8 @@
 
 package nz.co.electricbolt.xt.usermode.filedevice;
 
+import nz.co.electricbolt.xt.cpu.Memory;
+import nz.co.electricbolt.xt.cpu.SegOfs;
 import nz.co.electricbolt.xt.usermode.AccessMode;
 import nz.co.electricbolt.xt.usermode.interrupts.dos.FileDateTime;
 import nz.co.electricbolt.xt.usermode.SharingMode;
@@ -92,6 +94,30 @@ public class DiskFile extends BaseFile {
         }
     }
 
+    /**
+     * Reads straight from the file's channel into memory, without an intermediate array.
+     */
+    @Override
+    public int read(final Memory memory, final SegOfs address, final int size) {
+        try {
+            return memory.readFrom(randomAccessFile.getChannel(), address, size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Writes straight from memory to the file's channel, without an intermediate array.
+     */
+    @Override
+    public void write(final Memory memory, final SegOfs address, final int size) {
+        try {
+            memory.writeTo(randomAccessFile.getChannel(), address, size);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public void seek(final int pos) {
         try {
             randomAccessFile.seek(pos);
@@ -128,4 +154,20 @@ public class DiskFile extends BaseFile {
     public boolean delete() {
         return file.delete();
     }
+
+    @Override
+    public BaseFile copy() {
+        final DiskFile result = new DiskFile(filename, accessMode, sharingMode, inheritenceFlag);
+        result.setFileHandle(fileHandle);
+        return result;
+    }
+
+    @Override
+    public boolean reopen(final int pos) {
+        if (!open()) {
+            return false;
+        }
+        seek(pos);
+        return true;
+    }
 }
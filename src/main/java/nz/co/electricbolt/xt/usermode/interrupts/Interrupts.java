@@ -188,6 +188,18 @@ public class Interrupts {
         }
     }
 
+    /**
+     * @return the instance of the class loaded to handle interrupts, e.g. FileIO, or null.
+     */
+    public <T> T getHandler(final Class<T> clazz) {
+        for (final InterruptImpl impl : implMap.values()) {
+            if (impl.instance.getClass() == clazz) {
+                return clazz.cast(impl.instance);
+            }
+        }
+        return null;
+    }
+
     /**
      * Invoked by <code>Main.parseInt()</code> to print out the current list of implemented interrupt handling functions.
      */
@@ -12,7 +12,6 @@ import nz.co.electricbolt.xt.usermode.filedevice.CONFile;
 import nz.co.electricbolt.xt.usermode.filedevice.DiskFile;
 import nz.co.electricbolt.xt.usermode.interrupts.annotations.*;
 import nz.co.electricbolt.xt.usermode.util.DirectoryTranslation;
-import nz.co.electricbolt.xt.usermode.util.MemoryUtil;
 import nz.co.electricbolt.xt.usermode.util.Trace;
 import nz.co.electricbolt.xt.usermode.util.WildcardFileMatcher;
 
@@ -25,6 +24,31 @@ import java.util.Map;
 
 public class FileIO {
 
+    /**
+     * Immutable state of the open files, disk transfer area and find file searches, taken by {@code snapshot()}. Open
+     * files are held by name, modes and position, without a host file open.
+     */
+    public static final class State {
+
+        private record OpenFile(BaseFile file, int position) {
+        }
+
+        private final Map<Short, OpenFile> files;
+        private final Map<Short, FindFileData> findFileMap;
+        private final short fileHandleCount;
+        private final SegOfs diskTransferArea;
+        private final short findFileCount;
+
+        private State(final Map<Short, OpenFile> files, final Map<Short, FindFileData> findFileMap,
+                      final short fileHandleCount, final SegOfs diskTransferArea, final short findFileCount) {
+            this.files = files;
+            this.findFileMap = findFileMap;
+            this.fileHandleCount = fileHandleCount;
+            this.diskTransferArea = diskTransferArea;
+            this.findFileCount = findFileCount;
+        }
+    }
+
     private final Map<Short, BaseFile> fileHandleMap = new HashMap<>();
     private final Map<Short, FindFileData> findFileMap = new HashMap<>();
     private short fileHandleCount = 0;
@@ -41,6 +65,51 @@ public class FileIO {
         diskTransferArea = new SegOfs((short) 0x0090, (short) 0x0080);
     }
 
+    /**
+     * @return the current state. The contents of host files are not part of the state.
+     */
+    public State snapshot() {
+        final Map<Short, State.OpenFile> files = new HashMap<>();
+        for (final Map.Entry<Short, BaseFile> entry : fileHandleMap.entrySet()) {
+            files.put(entry.getKey(), new State.OpenFile(entry.getValue().copy(), entry.getValue().currentPos()));
+        }
+        return new State(files, new HashMap<>(findFileMap), fileHandleCount, diskTransferArea.copy(), findFileCount);
+    }
+
+    /**
+     * Restores a state taken by snapshot(), reopening its files, then closes the files that were open. Find file
+     * searches write to the disk transfer area in the memory of cpu.
+     * @throws IllegalStateException if a file of the state can't be reopened, e.g. it has since been deleted, in which
+     * case nothing is restored.
+     */
+    public void restore(final State state, final CPU cpu) {
+        final Map<Short, BaseFile> files = new HashMap<>();
+        for (final Map.Entry<Short, State.OpenFile> entry : state.files.entrySet()) {
+            final BaseFile baseFile = entry.getValue().file().copy();
+            if (!baseFile.reopen(entry.getValue().position())) {
+                for (final BaseFile reopened : files.values()) {
+                    reopened.close();
+                }
+                throw new IllegalStateException("File handle " + entry.getKey() + " could not be reopened");
+            }
+            files.put(entry.getKey(), baseFile);
+        }
+        for (final BaseFile baseFile : fileHandleMap.values()) {
+            baseFile.close();
+        }
+        fileHandleMap.clear();
+        fileHandleMap.putAll(files);
+        findFileMap.clear();
+        for (final FindFileData data : state.findFileMap.values()) {
+            final DiskTransferArea dta = data.diskTransferArea();
+            findFileMap.put(data.internalId(), new FindFileData(data.internalId(), data.files(), data.fileIndex(),
+                    new DiskTransferArea(cpu.getMemory(), dta.getSegment(), dta.getOffset())));
+        }
+        fileHandleCount = state.fileHandleCount;
+        diskTransferArea = state.diskTransferArea.copy();
+        findFileCount = state.findFileCount;
+    }
+
     @Interrupt(function = 0x1A, description = "Set disk transfer area address")
     public void setDiskTransferArea(final CPU cpu, final @DS @DX SegOfs address) {
         this.diskTransferArea = address;
@@ -150,14 +219,9 @@ public class FileIO {
                          final @CX short numberOfBytesToRead, final @DS @DX SegOfs address) {
         final BaseFile baseFile = getFileHandleOrSetErrorResult(cpu, trace, fileHandle);
         if (baseFile != null) {
-            final byte[] buf = baseFile.read(numberOfBytesToRead & 0xFFFF);
+            final int read = baseFile.read(cpu.getMemory(), address, numberOfBytesToRead & 0xFFFF);
             cpu.getReg().flags.setCarry(false);
-            if (buf == null) {
-                cpu.getReg().AX.setValue((short) 0);
-            } else {
-                MemoryUtil.writeBuf(cpu.getMemory(), address, buf);
-                cpu.getReg().AX.setValue((short) buf.length);
-            }
+            cpu.getReg().AX.setValue((short) read);
         }
     }
 
@@ -166,10 +230,9 @@ public class FileIO {
                           final @CX short numberOfBytesToWrite, final @DS @DX SegOfs address) {
         final BaseFile baseFile = getFileHandleOrSetErrorResult(cpu, trace, fileHandle);
         if (baseFile != null) {
-            final byte[] buf = MemoryUtil.readBuf(cpu.getMemory(), address, numberOfBytesToWrite);
-            baseFile.write(buf);
+            baseFile.write(cpu.getMemory(), address, numberOfBytesToWrite & 0xFFFF);
             cpu.getReg().flags.setCarry(false);
-            cpu.getReg().AX.setValue((short) buf.length);
+            cpu.getReg().AX.setValue(numberOfBytesToWrite);
         }
     }
 
@@ -4,20 +4,31 @@ import nz.co.electricbolt.xt.cpu.CPU;
 import nz.co.electricbolt.xt.usermode.interrupts.annotations.AL;
 import nz.co.electricbolt.xt.usermode.interrupts.annotations.Interrupt;
 
+import java.util.function.IntConsumer;
+
 public class TerminateProgram {
 
+    private IntConsumer exit = System::exit;
+
+    /**
+     * Sets what terminates the program with an exit code, by default System.exit().
+     */
+    public void setExit(final IntConsumer exit) {
+        this.exit = exit;
+    }
+
     @Interrupt(interrupt = 0x20, function = 0x00, description = "Terminate program")
     public void terminate1(final CPU cpu) {
-        System.exit(0);
+        exit.accept(0);
     }
 
     @Interrupt(function = 0x00, description = "Terminate program")
     public void terminate2(final CPU cpu) {
-        System.exit(0);
+        exit.accept(0);
     }
 
     @Interrupt(function = 0x4C, description = "Terminate program with exit code")
     public void terminate3(final CPU cpu, final @AL byte exitCode) {
-        System.exit(cpu.getReg().AL.getValue());
+        exit.accept(cpu.getReg().AL.getValue());
     }
 }
@@ -4,11 +4,12 @@
 package nz.co.electricbolt.xt.usermode.util;
 
 import nz.co.electricbolt.xt.cpu.CPU;
+import nz.co.electricbolt.xt.cpu.FetchListener;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
 
-public class Trace {
+public class Trace implements FetchListener {
 
     private final CPU cpu;
     private final boolean traceCPU;
@@ -16,18 +17,23 @@ public class Trace {
     private BufferedWriter traceWriter;
 
     public Trace(final CPU cpu, final boolean traceCPU, final boolean traceInterrupts, final String traceFile) {
+        this.cpu = cpu;
+        this.traceCPU = traceCPU;
+        this.traceInterrupts = traceInterrupts;
+
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
                 if (this.traceWriter != null) {
+                    if (this.traceCPU) {
+                        this.traceWriter.append("Superinstructions ")
+                                .append(this.cpu.getSuperinstructionCounts().toString()).append("\n");
+                    }
                     this.traceWriter.close();
                 }
             } catch (IOException ignored) {
             }
         }));
 
-        this.cpu = cpu;
-        this.traceCPU = traceCPU;
-        this.traceInterrupts = traceInterrupts;
         try {
             if (traceCPU || traceInterrupts) {
                 this.traceWriter = new BufferedWriter(new java.io.FileWriter(traceFile));
@@ -38,6 +44,7 @@ public class Trace {
         }
     }
 
+    @Override
     public void fetched8(final byte value, final long instructionCount) {
         if (traceCPU) {
             try {
@@ -49,6 +56,7 @@ public class Trace {
         }
     }
 
+    @Override
     public void fetched16(final short value, final long instructionCount) {
         if (traceCPU) {
             try {
@@ -0,0 +1,171 @@
+// BlockTranslatorTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BlockTranslatorTests extends StubCPUDelegate {
+
+    // Shared with CodeCacheTests.
+    static final byte[] LOOP = {
+            (byte) 0xB9, 0x20, 0x00,                        // 0000 MOV CX,0020
+            (byte) 0xB8, 0x00, 0x00,                        // 0003 MOV AX,0000
+            0x40,                                           // 0006 INC AX
+            (byte) 0x89, (byte) 0xC3,                       // 0007 MOV BX,AX
+            0x01, (byte) 0xDA,                              // 0009 ADD DX,BX
+            (byte) 0xF5,                                    // 000B CMC
+            (byte) 0xE2, (byte) 0xF8,                       // 000C LOOP 0006
+            (byte) 0xF4                                     // 000E HLT
+    };
+
+    private static final byte[] DEAD_FLAGS_LOOP = {
+            (byte) 0xB9, 0x20, 0x00,                        // 0000 MOV CX,0020
+            0x01, (byte) 0xD8,                              // 0003 ADD AX,BX
+            0x46,                                           // 0005 INC SI
+            0x29, (byte) 0xC2,                              // 0006 SUB DX,AX
+            0x31, (byte) 0xD3,                              // 0008 XOR BX,DX
+            (byte) 0xF5,                                    // 000A CMC
+            (byte) 0xE2, (byte) 0xF6,                       // 000B LOOP 0003
+            (byte) 0xF4                                     // 000D HLT
+    };
+
+    private CPU cpu(final boolean translate) {
+        return cpu(translate, true, LOOP);
+    }
+
+    private CPU cpu(final boolean translate, final boolean flagLiveness, final byte[] code) {
+        final CPU cpu = cpu(code);
+        cpu.setFlagLiveness(flagLiveness);
+        if (translate) {
+            cpu.translator = new BlockTranslator(cpu, 2);
+        }
+        cpu.getReg().AX.setValue((short) 0x1234);
+        cpu.getReg().BX.setValue((short) 0x9876);
+        return cpu;
+    }
+
+    @Test
+    void translatedLoopTests() {
+        final CPU interpreted = cpu(false);
+        final CPU translated = cpu(true);
+        interpreted.execute(2 + 32 * 5);
+        translated.execute(2 + 32 * 5);
+
+        final TranslatedBlock block = translated.getMemory().instructionCache.get(0x1006).block;
+        assertNotNull(block);
+        assertEquals(5, block.steps);
+        assertEquals(8, block.length);
+        assertEquals((short) 0x0210, translated.getReg().DX.getValue());
+        assertSameState(interpreted, translated);
+    }
+
+    @Test
+    void maxStepsTests() {
+        final CPU interpreted = cpu(false);
+        final CPU translated = cpu(true);
+        for (int i = 0; i < 40; i++) {
+            interpreted.execute(3);
+            translated.execute(3);
+            assertEquals(interpreted.getReg().IP.getValue(), translated.getReg().IP.getValue());
+            assertEquals(interpreted.instructionCount, translated.instructionCount);
+        }
+    }
+
+    @Test
+    void liveFlagsTests() {
+        final CPU cpu = cpu(false, true, DEAD_FLAGS_LOOP);
+        cpu.execute(1 + 6);
+        final List<DecodedInstruction> instructions = new ArrayList<>();
+        for (final int address : new int[] {0x1003, 0x1005, 0x1006, 0x1008, 0x100A, 0x100B}) {
+            instructions.add(cpu.getMemory().instructionCache.get(address));
+        }
+
+        // The flags of ADD AX,BX, INC SI and SUB DX,AX are dead: SUB and XOR overwrite them all, and INC leaves the
+        // carry of ADD unread. CMC reads the carry of XOR, and LOOP (which isn't translated directly) may read any flag.
+        final int all = BlockTranslator.ARITHMETIC_FLAGS;
+        assertArrayEquals(new int[] {0, 0, 0, all, all, all}, BlockTranslator.liveFlags(instructions));
+    }
+
+    @Test
+    void flagLivenessTests() {
+        final CPU interpreted = cpu(false, true, DEAD_FLAGS_LOOP);
+        final CPU translated = cpu(true, false, DEAD_FLAGS_LOOP);
+        final CPU live = cpu(true, true, DEAD_FLAGS_LOOP);
+        for (int i = 0; i < 1 + 32 * 6; i++) {
+            interpreted.execute(1);
+            translated.execute(1 + i % 7);
+            live.execute(1 + i % 7);
+            while (translated.instructionCount < interpreted.instructionCount) {
+                translated.execute(1);
+            }
+            while (live.instructionCount < interpreted.instructionCount) {
+                live.execute(1);
+            }
+            while (interpreted.instructionCount < live.instructionCount) {
+                interpreted.execute(1);
+            }
+            assertEquals(interpreted.getReg().toString(), live.getReg().toString());
+            assertEquals(interpreted.getReg().flags, live.getReg().flags);
+            assertEquals(translated.getReg().toString(), live.getReg().toString());
+        }
+        assertNotNull(live.getMemory().instructionCache.get(0x1003).block);
+    }
+
+    @Test
+    void selfModifyingCodeTests() {
+        final CPU cpu = cpu(true);
+        cpu.execute(2 + 4 * 5);
+        assertNotNull(cpu.getMemory().instructionCache.get(0x1006).block);
+
+        // Replace INC AX with DEC AX; the block is discarded with the instruction.
+        cpu.getMemory().setLinearByte(0x1006, (byte) 0x48);
+        final int ax = cpu.getReg().AX.getValue();
+        cpu.execute(5);
+        assertEquals((short) (ax - 1), cpu.getReg().AX.getValue());
+    }
+
+    /**
+     * Logs every fetch, with the instruction count.
+     */
+    private static final class FetchLog implements FetchListener {
+
+        final StringBuilder log = new StringBuilder();
+
+        @Override
+        public void fetched8(final byte value, final long instructionCount) {
+            log.append(String.format("%d:%02X ", instructionCount, value));
+        }
+
+        @Override
+        public void fetched16(final short value, final long instructionCount) {
+            log.append(String.format("%d:%04X ", instructionCount, value));
+        }
+    }
+
+    @Test
+    void fetchListenerTests() {
+        final CPU interpreted = cpu(false);
+        final CPU translated = cpu(true);
+        final FetchLog interpretedLog = new FetchLog();
+        final FetchLog translatedLog = new FetchLog();
+        interpreted.setFetchListener(interpretedLog);
+        translated.setFetchListener(translatedLog);
+        interpreted.execute(2 + 32 * 5);
+        translated.execute(2 + 32 * 5);
+
+        assertNotNull(translated.getMemory().instructionCache.get(0x1006).block);
+        assertEquals(interpretedLog.log.toString(), translatedLog.log.toString());
+
+        // Changing the listener discards blocks translated for the previous one.
+        translated.setFetchListener(null);
+        assertNull(translated.getMemory().instructionCache.get(0x1006));
+    }
+}
@@ -0,0 +1,92 @@
+// CPUPoolTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class CPUPoolTests extends StubCPUDelegate {
+
+    // Sums 16 + 15 + ... + 1 into AX, and stores it at 0100:5000. Shared with CPUSnapshotTests.
+    static final byte[] PROGRAM = {
+            (byte) 0xB9, 0x10, 0x00,                        // 0000 MOV CX,0010
+            0x01, (byte) 0xC8,                              // 0003 ADD AX,CX
+            (byte) 0xE2, (byte) 0xFC,                       // 0005 LOOP 0003
+            (byte) 0xA3, 0x00, 0x50,                        // 0007 MOV [5000],AX
+            (byte) 0xFB,                                    // 000A STI
+            (byte) 0xF4                                     // 000B HLT
+    };
+
+    static void load(final CPU cpu) {
+        load(cpu, PROGRAM);
+        cpu.getReg().DS.setValue((short) 0x0100);
+    }
+
+    @Test
+    void resetTests() {
+        final CPU cpu = new CPU(this);
+        cpu.setTranslation(true);
+        load(cpu);
+        cpu.getMemory().removePermission(0x8000, 0x1000, Memory.PERMISSION_WRITE);
+        cpu.setTimerInterval(100);
+        cpu.execute(1 + 2 * 16 + 3);
+        assertEquals((short) 0x0088, cpu.getMemory().getWord(new SegOfs((short) 0x0100, (short) 0x5000)));
+
+        cpu.reset();
+        final CPU fresh = new CPU(this);
+        assertEquals(fresh.getReg().toString(), cpu.getReg().toString());
+        assertEquals(fresh.getReg().flags.getValue16(), cpu.getReg().flags.getValue16());
+        assertEquals(0, cpu.getInstructionCount());
+        assertEquals(0, cpu.getMemory().getPrivateFrameCount());
+        assertEquals(0, cpu.getMemory().getLinearByte(0x1000));
+        assertEquals(0, cpu.getMemory().getLinearByte(0x6000));
+        assertTrue(cpu.getMemory().isPermitted(0x8000, Memory.PERMISSION_WRITE));
+        assertTrue(cpu.getMemory().getDirtyFrames(0).isEmpty());
+
+        // The same program gives the same result again.
+        load(cpu);
+        cpu.execute(1 + 2 * 16 + 3);
+        assertEquals((short) 0x0088, cpu.getMemory().getWord(new SegOfs((short) 0x0100, (short) 0x5000)));
+        assertEquals(1 + 2 * 16 + 3, cpu.getInstructionCount());
+    }
+
+    @Test
+    void poolTests() throws Exception {
+        final CPUPool pool = new CPUPool(false);
+        final CPU cpu = pool.acquire(this);
+        pool.release(cpu);
+        assertSame(cpu, pool.acquire(this));
+        pool.release(cpu);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                results.add(executor.submit(() -> {
+                    final CPU pooled = pool.acquire(this);
+                    try {
+                        load(pooled);
+                        pooled.execute(1 + 2 * 16 + 3);
+                        return (int) pooled.getReg().AX.getValue();
+                    } finally {
+                        pool.release(pooled);
+                    }
+                }));
+            }
+            for (final Future<Integer> result : results) {
+                assertEquals(0x0088, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
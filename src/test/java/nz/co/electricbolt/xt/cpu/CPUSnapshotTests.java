@@ -0,0 +1,80 @@
+// CPUSnapshotTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class CPUSnapshotTests extends StubCPUDelegate {
+
+    private static final SegOfs RESULT = new SegOfs((short) 0x0100, (short) 0x5000);
+
+    private CPU load() {
+        final CPU cpu = new CPU(this);
+        cpu.setTranslation(true);
+        CPUPoolTests.load(cpu);
+        return cpu;
+    }
+
+    @Test
+    void restoreTests() {
+        final CPU cpu = load();
+        cpu.execute(1 + 2 * 8);                     // Half way through the loop.
+        final CPUSnapshot snapshot = cpu.snapshot();
+        assertEquals(0, cpu.getMemory().getPrivateFrameCount());
+        final String registers = cpu.getReg().toString();
+
+        cpu.execute(2 * 8 + 3);
+        assertEquals((short) 0x0088, cpu.getMemory().getWord(RESULT));
+        assertTrue(cpu.getReg().flags.isInterruptEnabled());
+
+        cpu.restore(snapshot);
+        assertEquals(registers, cpu.getReg().toString());
+        assertFalse(cpu.getReg().flags.isInterruptEnabled());
+        assertEquals(1 + 2 * 8, cpu.getInstructionCount());
+        assertEquals(0, cpu.getMemory().getWord(RESULT));
+
+        // Running again from the snapshot gives the same result.
+        cpu.execute(2 * 8 + 3);
+        assertEquals((short) 0x0088, cpu.getMemory().getWord(RESULT));
+        assertEquals(1 + 2 * 16 + 3, cpu.getInstructionCount());
+    }
+
+    @Test
+    void shareTests() {
+        final CPU cpu = load();
+        cpu.getMemory().removePermission(0x8000, 0x1000, Memory.PERMISSION_WRITE);
+        final CPUSnapshot snapshot = cpu.snapshot();
+
+        // Restoring into another CPU maps the snapshot's frames, and writes by either CPU aren't seen by the other.
+        final CPU other = new CPU(this);
+        other.getMemory().setLinearByte(0x20000, (byte) 0x55);
+        other.getMemory().clearDirtyFrames();
+        other.restore(snapshot);
+        assertEquals(0, other.getMemory().getPrivateFrameCount());
+        assertEquals(0, other.getMemory().getLinearByte(0x20000));
+        assertEquals(CPUPoolTests.PROGRAM[0], other.getMemory().getLinearByte(0x1000));
+        assertFalse(other.getMemory().isPermitted(0x8000, Memory.PERMISSION_WRITE));
+        // Only the frames that differ are reported as written.
+        assertEquals(2, other.getMemory().getDirtyFrames().cardinality());
+        assertTrue(other.getMemory().getDirtyFrames().get(0x1000 >> Memory.FRAME_SHIFT));
+        assertTrue(other.getMemory().getDirtyFrames().get(0x20000 >> Memory.FRAME_SHIFT));
+
+        cpu.execute(1 + 2 * 16 + 3);
+        other.execute(1 + 2 * 8);
+        assertEquals((short) 0x0088, cpu.getMemory().getWord(RESULT));
+        assertEquals(0, other.getMemory().getWord(RESULT));
+        other.execute(2 * 8 + 3);
+        assertEquals((short) 0x0088, other.getMemory().getWord(RESULT));
+        assertEquals(1, other.getMemory().getPrivateFrameCount());
+
+        // The snapshot is unchanged by either CPU.
+        cpu.restore(snapshot);
+        assertEquals(0, cpu.getMemory().getWord(RESULT));
+        assertEquals(0, cpu.getInstructionCount());
+    }
+}
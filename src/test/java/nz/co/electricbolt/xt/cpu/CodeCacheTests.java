@@ -0,0 +1,130 @@
+// CodeCacheTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CodeCacheTests extends StubCPUDelegate {
+
+    private static final int STEPS = 2 + 32 * 5;
+
+    @TempDir
+    Path directory;
+
+    private CPU cpu(final byte[] code, final int threshold, final CodeCache[] codeCache) {
+        final CPU cpu = cpu(code);
+        cpu.translator = new BlockTranslator(cpu, threshold);
+        codeCache[0] = new CodeCache(cpu, directory);
+        codeCache[0].load(0x1000, 0x1000 + code.length);
+        return cpu;
+    }
+
+    @Test
+    void warmStartTests() {
+        final CodeCache[] codeCache = new CodeCache[1];
+        final CPU cold = cpu(BlockTranslatorTests.LOOP, 2, codeCache);
+        assertNull(cold.memory.instructionCache.get(0x1000));
+        cold.execute(STEPS);
+        assertNotNull(cold.memory.instructionCache.get(0x1006).block);
+        codeCache[0].save();
+
+        final CPU warm = cpu(BlockTranslatorTests.LOOP, BlockTranslator.THRESHOLD, codeCache);
+        // The loop was hot, so is translated before execution starts.
+        final TranslatedBlock block = warm.memory.instructionCache.get(0x1006).block;
+        assertNotNull(block);
+        assertEquals(5, block.steps);
+        // The block at the entry point was only executed once. It keeps its class file until it becomes hot.
+        final DecodedInstruction entry = warm.memory.instructionCache.get(0x1000);
+        assertNull(entry.block);
+        assertEquals(7, entry.translation.steps);
+        warm.execute(STEPS);
+        assertNull(entry.block);
+
+        assertSameState(cold, warm);
+    }
+
+    @Test
+    void coldStartTests() {
+        final CodeCache[] codeCache = new CodeCache[1];
+        cpu(BlockTranslatorTests.LOOP, BlockTranslator.THRESHOLD, codeCache).execute(STEPS);
+        codeCache[0].save();
+
+        // Nothing was hot, so nothing is translated until it becomes hot, but the instructions are already decoded.
+        final CPU cpu = cpu(BlockTranslatorTests.LOOP, 2, codeCache);
+        final DecodedInstruction instruction = cpu.memory.instructionCache.get(0x1006);
+        assertNull(instruction.block);
+        assertNotNull(instruction.translation);
+        // Reached by the LOOP for the second time.
+        cpu.execute(7 + 5 + 1);
+        assertNotNull(instruction.block);
+        assertNull(instruction.translation);
+    }
+
+    @Test
+    void modifiedImageTests() {
+        final CodeCache[] codeCache = new CodeCache[1];
+        cpu(BlockTranslatorTests.LOOP, 2, codeCache).execute(STEPS);
+        codeCache[0].save();
+
+        final byte[] modified = BlockTranslatorTests.LOOP.clone();
+        modified[1] = 0x10;
+        final CPU cpu = cpu(modified, 2, codeCache);
+        assertNull(cpu.memory.instructionCache.get(0x1000));
+    }
+
+    @Test
+    void corruptClassFileTests() throws IOException {
+        final CodeCache[] codeCache = new CodeCache[1];
+        final CPU cold = cpu(BlockTranslatorTests.LOOP, 2, codeCache);
+        cold.execute(STEPS);
+        codeCache[0].save();
+
+        // Overwrite the magic number of every class file.
+        final byte[] bytes = Files.readAllBytes(file());
+        for (int i = 0; i + 4 <= bytes.length; i++) {
+            if (bytes[i] == (byte) 0xCA && bytes[i + 1] == (byte) 0xFE && bytes[i + 2] == (byte) 0xBA
+                    && bytes[i + 3] == (byte) 0xBE) {
+                bytes[i] = 0;
+            }
+        }
+        Files.write(file(), bytes);
+
+        // The hot loop is translated again rather than defined from its class file.
+        final CPU warm = cpu(BlockTranslatorTests.LOOP, BlockTranslator.THRESHOLD, codeCache);
+        assertNotNull(warm.memory.instructionCache.get(0x1006).block);
+        warm.execute(STEPS);
+        assertSameState(cold, warm);
+    }
+
+    @Test
+    void mismatchedBuildTests() throws IOException {
+        final CodeCache[] codeCache = new CodeCache[1];
+        cpu(BlockTranslatorTests.LOOP, 2, codeCache).execute(STEPS);
+        codeCache[0].save();
+
+        // The build hash follows the magic number and version.
+        final byte[] bytes = Files.readAllBytes(file());
+        bytes[8 + CodeCache.BUILD_LENGTH - 1] ^= 1;
+        Files.write(file(), bytes);
+
+        final CPU cpu = cpu(BlockTranslatorTests.LOOP, 2, codeCache);
+        assertNull(cpu.memory.instructionCache.get(0x1000));
+        assertNull(cpu.memory.instructionCache.get(0x1006));
+    }
+
+    private Path file() throws IOException {
+        try (final Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".xtc")).findFirst().orElseThrow();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+// DelayLoopsTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DelayLoopsTests extends StubCPUDelegate implements FetchListener {
+
+    private static final byte[] LOOP = {
+            (byte) 0xB9, (byte) 0xE8, 0x03,                 // 0000 MOV CX,03E8
+            (byte) 0xE2, (byte) 0xFE,                       // 0003 LOOP 0003
+            (byte) 0xF4                                     // 0005 HLT
+    };
+
+    private static final byte[] DEC_JNZ = {
+            (byte) 0xBA, 0x00, 0x00,                        // 0000 MOV DX,0000
+            0x43,                                           // 0003 INC BX
+            (byte) 0x90,                                    // 0004 NOP
+            (byte) 0xEB, 0x00,                              // 0005 JMP 0007
+            0x4E,                                           // 0007 DEC SI
+            0x4A,                                           // 0008 DEC DX
+            0x75, (byte) 0xF8,                              // 0009 JNZ 0003
+            (byte) 0xF4                                     // 000B HLT
+    };
+
+    private static final byte[] LOOP_BODY = {
+            (byte) 0xB9, 0x34, 0x12,                        // 0000 MOV CX,1234
+            0x4F,                                           // 0003 DEC DI
+            0x40,                                           // 0004 INC AX
+            (byte) 0xE2, (byte) 0xFC,                       // 0005 LOOP 0003
+            (byte) 0xF4                                     // 0007 HLT
+    };
+
+    private long fetches;
+
+    private CPU cpu(final boolean delayLoops, final byte[] code) {
+        final CPU cpu = cpu(code);
+        cpu.setDelayLoops(delayLoops);
+        cpu.setFetchListener(this);
+        cpu.getReg().AX.setValue((short) 0xFFF0);
+        cpu.getReg().SI.setValue((short) 0x0005);
+        return cpu;
+    }
+
+    private void closedFormTest(final byte[] code, final int steps) {
+        final CPU interpreted = cpu(false, code);
+        final CPU closedForm = cpu(true, code);
+        for (final int chunk : new int[] {1, 2, 3, 10, 1000, 1, 100000, steps}) {
+            interpreted.execute(chunk);
+            closedForm.execute(chunk);
+            assertSameState(interpreted, closedForm);
+        }
+    }
+
+    @Test
+    void loopTests() {
+        closedFormTest(LOOP, 1001);
+    }
+
+    @Test
+    void decJnzTests() {
+        // DX is 0, so the loop runs 65536 times.
+        closedFormTest(DEC_JNZ, 1 + 65536 * 6);
+    }
+
+    @Test
+    void loopBodyTests() {
+        closedFormTest(LOOP_BODY, 1 + 0x1234 * 3);
+    }
+
+    @Test
+    void fetchTests() {
+        final CPU cpu = cpu(true, LOOP);
+        cpu.execute(1 + 1000 + 1);
+        assertEquals((short) 0x0006, cpu.getReg().IP.getValue());
+        assertEquals(0, cpu.getReg().CX.getValue());
+        assertEquals(1002, cpu.instructionCount);
+        // MOV, the first two iterations (the first to cache LOOP, the second to find the loop) and the last.
+        assertTrue(fetches < 20, "fetches " + fetches);
+    }
+
+    // region FetchListener
+
+    @Override
+    public void fetched8(final byte value, final long instructionCount) {
+        fetches++;
+    }
+
+    @Override
+    public void fetched16(final short value, final long instructionCount) {
+        fetches++;
+    }
+
+    // endregion
+}
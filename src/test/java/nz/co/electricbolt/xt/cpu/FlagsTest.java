@@ -233,4 +233,42 @@ public class FlagsTest {
         flags.setOverflow(true);
         assertEquals((short) 0xF802, flags.getValue16());
     }
-}
\ No newline at end of file
+
+    @Test
+    void lazyFlagsTest() {
+        final Flags flags = new Flags();
+        final ALU alu = new ALU(flags);
+
+        // 0x7F + 0x01 = 0x80: OF SF AF.
+        assertEquals((byte) 0x80, alu.add8((byte) 0x7F, (byte) 0x01, false));
+        assertTrue(flags.isOverflow());
+        assertTrue(flags.isSignNegative());
+        assertTrue(flags.isAuxiliaryCarry());
+        assertFalse(flags.isCarry());
+        assertEquals("FLAGS=OF SF AF", flags.toString());
+        assertEquals((short) 0xF892, flags.getValue16());
+
+        // 0x0000 - 0x0001 = 0xFFFF: SF AF PF CF.
+        assertEquals((short) 0xFFFF, alu.sub16((short) 0x0000, (short) 0x0001, false));
+        assertEquals((short) 0xF097, flags.getValue16());
+
+        // Writing an individual flag keeps the others from the pending operation.
+        alu.xor8((short) 0x55, (short) 0x55);
+        flags.setCarry(true);
+        assertEquals((short) 0xF047, flags.getValue16());
+
+        // INC and DEC leave the carry flag unchanged.
+        alu.inc16((short) 0xFFFF);
+        assertTrue(flags.isCarry());
+        assertTrue(flags.isZero());
+        alu.sub8((byte) 0x00, (byte) 0x01, false);
+        alu.dec8((byte) 0x00);
+        assertTrue(flags.isCarry());
+        assertTrue(flags.isAuxiliaryCarry());
+
+        // Loading the register discards the pending operation.
+        alu.add16((short) 0xFFFF, (short) 0x0001, false);
+        flags.setValue16((short) 0x0000);
+        assertEquals((short) 0xF002, flags.getValue16());
+    }
+}
@@ -0,0 +1,93 @@
+// Group2InstructionsTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class Group2InstructionsTests {
+
+    /**
+     * Reference shift or rotate one bit at a time, returning the result in the low bits and CF in bit 16 (bit 17 for
+     * words).
+     */
+    private static int reference(final int op, final int value, final int count, final boolean carryIn, final int bits) {
+        final int sign = 1 << (bits - 1);
+        final int mask = (1 << bits) - 1;
+        int v = value & mask;
+        boolean carry = carryIn;
+        for (int i = 0; i < count; i++) {
+            final boolean high = (v & sign) != 0;
+            final boolean low = (v & 1) != 0;
+            v = switch (op) {
+                case 0 -> ((v << 1) | (high ? 1 : 0)) & mask;               // ROL
+                case 1 -> (v >> 1) | (low ? sign : 0);                      // ROR
+                case 2 -> ((v << 1) | (carry ? 1 : 0)) & mask;              // RCL
+                case 3 -> (v >> 1) | (carry ? sign : 0);                    // RCR
+                case 4 -> (v << 1) & mask;                                  // SHL
+                case 5 -> v >> 1;                                           // SHR
+                default -> (v >> 1) | (v & sign);                           // SAR
+            };
+            carry = op == 0 || op == 2 || op == 4 ? high : low;
+        }
+        return v | (carry ? mask + 1 : 0);
+    }
+
+    private static int execute(final Group2Instructions group2, final int op, final int value, final int count,
+                               final int bits) {
+        return bits == 8 ? switch (op) {
+            case 0 -> group2.rotateLeft8((byte) value, count);
+            case 1 -> group2.rotateRight8((byte) value, count);
+            case 2 -> group2.rotateLeft9((byte) value, count);
+            case 3 -> group2.rotateRight9((byte) value, count);
+            case 4 -> group2.shiftLeft8((byte) value, count);
+            case 5 -> group2.shiftRight8((byte) value, count, false);
+            default -> group2.shiftRight8((byte) value, count, true);
+        } & 0xFF : switch (op) {
+            case 0 -> group2.rotateLeft16((short) value, count);
+            case 1 -> group2.rotateRight16((short) value, count);
+            case 2 -> group2.rotateLeft17((short) value, count);
+            case 3 -> group2.rotateRight17((short) value, count);
+            case 4 -> group2.shiftLeft16((short) value, count);
+            case 5 -> group2.shiftRight16((short) value, count, false);
+            default -> group2.shiftRight16((short) value, count, true);
+        } & 0xFFFF;
+    }
+
+    private static void closedFormTest(final int bits, final int step) {
+        final CPU cpu = new CPU(null);
+        final Flags flags = cpu.reg.flags;
+        final int mask = (1 << bits) - 1;
+        for (int op = 0; op <= 6; op++) {
+            for (int value = 0; value <= mask; value += step) {
+                for (int count = 0; count <= 40; count++) {
+                    for (int carry = 0; carry <= 1; carry++) {
+                        flags.setCarry(carry == 1);
+                        final int expected = reference(op, value, count, carry == 1, bits);
+                        final int result = execute(cpu.group2, op, value, count, bits);
+                        final String message = "op=" + op + " value=" + value + " count=" + count + " carry=" + carry;
+                        assertEquals(expected & mask, result, message);
+                        assertEquals((expected & (mask + 1)) != 0, flags.isCarry(), message);
+                        if (op >= 4) {
+                            assertEquals(Flags.szp8(result) & Flags.PARITY, flags.isParityEven() ? Flags.PARITY : 0,
+                                    message);
+                            assertEquals(result == 0, flags.isZero(), message);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void closedForm8Tests() {
+        closedFormTest(8, 1);
+    }
+
+    @Test
+    void closedForm16Tests() {
+        closedFormTest(16, 0x0107);
+    }
+}
@@ -0,0 +1,71 @@
+// InstructionCacheTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class InstructionCacheTests extends StubCPUDelegate {
+
+    @Test
+    void invalidateTests() {
+        final InstructionCache cache = new InstructionCache();
+        final DecodedInstruction nop = new DecodedInstruction(new byte[] {(byte) 0x90}, 0, 0, 0x90, null,
+                CPU.NO_SEGMENT_OVERRIDE, false, null);
+        final DecodedInstruction mov = new DecodedInstruction(new byte[] {(byte) 0xB8, 0x34, 0x12}, 0b10, 0, 0xB8,
+                null, CPU.NO_SEGMENT_OVERRIDE, false, null);
+
+        cache.put(0x10FE, nop);
+        cache.put(0x10FF, mov); // Extends into the next page.
+        cache.put(0x1200, nop);
+        assertEquals(nop, cache.get(0x10FE));
+        assertEquals(mov, cache.get(0x10FF));
+        assertNull(cache.get(0x1100));
+
+        // Writing a page without instructions leaves the cache intact.
+        cache.written(0x1380);
+        assertEquals(mov, cache.get(0x10FF));
+
+        // Writing the page an instruction extends into discards the page the instruction starts on.
+        cache.written(0x1101);
+        assertNull(cache.get(0x10FE));
+        assertNull(cache.get(0x10FF));
+        assertEquals(nop, cache.get(0x1200));
+
+        cache.written(0x1000, 0x1300);
+        assertNull(cache.get(0x1200));
+
+        cache.put(0xFFFFF, nop);
+        cache.clear();
+        assertNull(cache.get(0xFFFFF));
+    }
+
+    @Test
+    void selfModifyingCodeTests() {
+        final CPU cpu = cpu(new byte[] {
+                0x40,                                       // 0000 INC AX
+                (byte) 0xC6, 0x06, 0x00, 0x00, 0x48,        // 0001 MOV BYTE [0000],48h (DEC AX)
+                (byte) 0xEB, (byte) 0xF8                    // 0006 JMP 0000
+        });
+        cpu.getReg().DS.setValue((short) 0x0100);
+
+        cpu.execute(3);
+        assertEquals((short) 0x0001, cpu.getReg().AX.getValue());
+        assertNotNull(cpu.getMemory().instructionCache.get(0x1006));
+
+        // INC AX was cached and has been overwritten by DEC AX.
+        cpu.execute(1);
+        assertEquals((short) 0x0000, cpu.getReg().AX.getValue());
+
+        // Rewriting the page discards the instructions cached on it.
+        cpu.execute(1);
+        assertNull(cpu.getMemory().instructionCache.get(0x1006));
+        cpu.execute(2);
+        assertEquals((short) 0xFFFF, cpu.getReg().AX.getValue());
+        assertEquals(7, cpu.instructionCount);
+    }
+}
@@ -0,0 +1,86 @@
+// InterruptRequestTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class InterruptRequestTests extends StubCPUDelegate {
+
+    private static final byte[] PROGRAM = {
+            (byte) 0xFB,                                    // 0000 STI
+            0x40,                                           // 0001 INC AX
+            (byte) 0xEB, (byte) 0xFD,                       // 0002 JMP 0001
+    };
+
+    private static final byte[] HANDLER = {
+            0x43,                                           // 0000 INC BX
+            (byte) 0xCF                                     // 0001 IRET
+    };
+
+    private final List<Integer> interrupts = new ArrayList<>();
+
+    private CPU cpu(final byte first) {
+        final CPU cpu = cpu(PROGRAM);
+        cpu.getReg().SS.setValue((short) 0x0200);
+        cpu.getReg().SP.setValue((short) 0x0100);
+        cpu.getMemory().setLinearByte(0x1000, first);
+        cpu.getMemory().putLinearData(0x3000, HANDLER, 0, HANDLER.length);
+        for (int vector = 0x08; vector <= 0x0F; vector++) {
+            cpu.getMemory().setWord(new SegOfs((short) 0, (short) (vector * 4)), (short) 0x0000);
+            cpu.getMemory().setWord(new SegOfs((short) 0, (short) (vector * 4 + 2)), (short) 0x0300);
+        }
+        return cpu;
+    }
+
+    @Test
+    void timerTests() {
+        final CPU cpu = cpu((byte) 0xFB);
+        cpu.setTimerInterval(100);
+        cpu.execute(1000);
+        // A tick is delivered at the first taken branch at or after every 100 instructions.
+        assertEquals(9, interrupts.size());
+        assertEquals(0x08, interrupts.get(0));
+        assertEquals(9, cpu.getReg().BX.getValue());
+        assertEquals(1000, cpu.instructionCount);
+    }
+
+    @Test
+    void interruptsDisabledTests() {
+        final CPU cpu = cpu((byte) 0xFA);                  // CLI
+        cpu.setTimerInterval(100);
+        cpu.requestInterrupt(1);
+        cpu.execute(1000);
+        assertEquals(0, cpu.getReg().BX.getValue());
+        assertEquals(0, interrupts.size());
+
+        // Delivered as soon as interrupts are enabled: IRQ 0 first, then IRQ 1 after the IRET.
+        cpu.getReg().flags.setInterruptEnabled(true);
+        cpu.execute(3 + 3);
+        assertEquals(List.of(0x08, 0x09), interrupts);
+        assertEquals(2, cpu.getReg().BX.getValue());
+    }
+
+    @Test
+    void requestTests() {
+        final CPU cpu = cpu((byte) 0xFB);
+        cpu.execute(1 + 2 * 4);
+        assertEquals(0, interrupts.size());
+        cpu.requestInterrupt(7);
+        cpu.execute(1);                                     // INC AX, not a branch.
+        assertEquals(0, interrupts.size());
+        cpu.execute(1);                                     // JMP 0001
+        assertEquals(List.of(0x0F), interrupts);
+        assertEquals((short) 0x0300, cpu.getReg().CS.getValue());
+        assertEquals((short) 0x0000, cpu.getReg().IP.getValue());
+    }
+
+    @Override
+    public void interrupt(final byte value) {
+        interrupts.add(value & 0xFF);
+    }
+}
@@ -3,9 +3,17 @@
 
 package nz.co.electricbolt.xt.cpu;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.BitSet;
 import org.junit.jupiter.api.Test;
 
 class MemoryTests {
@@ -32,16 +40,16 @@ class MemoryTests {
 //        });
 
         memory.putLinearData(3, new byte[] {0x13, 0x24, 0x35, 0x7E, 0x7F, (byte) 0x80, (byte) 0xFE, (byte) 0xFF}, 0, 8);
-        assertEquals((byte) 0, memory.buf[1]);
-        assertEquals((byte) 0x13, memory.buf[3]);
-        assertEquals((byte) 0x24, memory.buf[4]);
-        assertEquals((byte) 0x35, memory.buf[5]);
-        assertEquals((byte) 0x7E, memory.buf[6]);
-        assertEquals((byte) 0x7F, memory.buf[7]);
-        assertEquals((byte) 0x80, memory.buf[8]);
-        assertEquals((byte) 0xFE, memory.buf[9]);
-        assertEquals((byte) 0xFF, memory.buf[10]);
-        assertEquals((byte) 0, memory.buf[11]);
+        assertEquals((byte) 0, memory.getLinearByte(1));
+        assertEquals((byte) 0x13, memory.getLinearByte(3));
+        assertEquals((byte) 0x24, memory.getLinearByte(4));
+        assertEquals((byte) 0x35, memory.getLinearByte(5));
+        assertEquals((byte) 0x7E, memory.getLinearByte(6));
+        assertEquals((byte) 0x7F, memory.getLinearByte(7));
+        assertEquals((byte) 0x80, memory.getLinearByte(8));
+        assertEquals((byte) 0xFE, memory.getLinearByte(9));
+        assertEquals((byte) 0xFF, memory.getLinearByte(10));
+        assertEquals((byte) 0, memory.getLinearByte(11));
     }
 
     @Test
@@ -50,29 +58,29 @@ class MemoryTests {
         final Memory memory = new Memory(cpu);
 
         memory.putLinearData(3, new byte[] {0x13, 0x24, 0x35, 0x7E}, 0, 4);
-        assertEquals((byte) 0x13, memory.buf[3]);
-        assertEquals((byte) 0x24, memory.buf[4]);
-        assertEquals((byte) 0x35, memory.buf[5]);
-        assertEquals((byte) 0x7E, memory.buf[6]);
+        assertEquals((byte) 0x13, memory.getLinearByte(3));
+        assertEquals((byte) 0x24, memory.getLinearByte(4));
+        assertEquals((byte) 0x35, memory.getLinearByte(5));
+        assertEquals((byte) 0x7E, memory.getLinearByte(6));
 
         final SegOfs _0000_0000 = new SegOfs((short) 0x0000, (short) 0x0000); // 0 first byte of addressable memory.
         memory.writeByte(_0000_0000, (byte) 0x69);
-        assertEquals((byte) 0x69, memory.buf[0]);
+        assertEquals((byte) 0x69, memory.getLinearByte(0));
         assertEquals((byte) 0x69, memory.readByte(_0000_0000));
 
         final SegOfs _B800_F319 = new SegOfs((short) 0xB800, (short) 0xF319);
         memory.writeByte(_B800_F319, (byte) 0x89);
-        assertEquals((byte) 0x89, memory.buf[815897]);
+        assertEquals((byte) 0x89, memory.getLinearByte(815897));
         assertEquals((byte) 0x89, memory.readByte(_B800_F319));
 
         final SegOfs _FFFF_000F = new SegOfs((short) 0xFFFF, (short) 0x000F); // 1048575 last byte of addressable memory.
         memory.writeByte(_FFFF_000F, (byte) 0xFE);
-        assertEquals((byte) 0xFE, memory.buf[1048575]);
+        assertEquals((byte) 0xFE, memory.getLinearByte(1048575));
         assertEquals((byte) 0xFE, memory.readByte(_FFFF_000F));
 
         final SegOfs _FFFF_0010 = new SegOfs((short) 0xFFFF, (short) 0x0010); // 1048576 -> 0 wraps around to first byte of addressable memory.
         memory.writeByte(_FFFF_0010, (byte) 0x9E);
-        assertEquals((byte) 0x9E, memory.buf[0]);
+        assertEquals((byte) 0x9E, memory.getLinearByte(0));
         assertEquals((byte) 0x9E, memory.readByte(_FFFF_0010));
     }
 
@@ -82,29 +90,208 @@ class MemoryTests {
         final Memory memory = new Memory(cpu);
 
         memory.putLinearData(3, new byte[] {0x13, 0x24, 0x35, 0x7E}, 0, 4);
-        assertEquals((byte) 0x13, memory.buf[3]);
-        assertEquals((byte) 0x24, memory.buf[4]);
-        assertEquals((byte) 0x35, memory.buf[5]);
-        assertEquals((byte) 0x7E, memory.buf[6]);
+        assertEquals((byte) 0x13, memory.getLinearByte(3));
+        assertEquals((byte) 0x24, memory.getLinearByte(4));
+        assertEquals((byte) 0x35, memory.getLinearByte(5));
+        assertEquals((byte) 0x7E, memory.getLinearByte(6));
         assertEquals((short) 0x2413, memory.readWord(new SegOfs((short) 0x0000, (short) 0x0003)));
         assertEquals((short) 0x7E35, memory.readWord(new SegOfs((short) 0x0000, (short) 0x0005)));
 
         final SegOfs _0000_593C = new SegOfs((short) 0x0000, (short) 0x593C);
         memory.writeWord(_0000_593C, (short) 0x593C);
-        assertEquals((byte) 0x3C, memory.buf[22844]);
-        assertEquals((byte) 0x59, memory.buf[22845]);
+        assertEquals((byte) 0x3C, memory.getLinearByte(22844));
+        assertEquals((byte) 0x59, memory.getLinearByte(22845));
         assertEquals((short) 0x593C, memory.readWord(_0000_593C));
 
         final SegOfs _C800_4FE1 = new SegOfs((short) 0xC800, (short) 0x4FE1);
         memory.writeWord(_C800_4FE1, (short) 0xFE0A);
-        assertEquals((byte) 0x0A, memory.buf[839649]);
-        assertEquals((byte) 0xFE, memory.buf[839650]);
+        assertEquals((byte) 0x0A, memory.getLinearByte(839649));
+        assertEquals((byte) 0xFE, memory.getLinearByte(839650));
         assertEquals((short) 0xFE0A, memory.readWord(_C800_4FE1));
 
         final SegOfs _FFFF_000F = new SegOfs((short) 0xFFFF, (short) 0x000F); // 1048575 last byte of addressable memory.
         memory.writeWord(_FFFF_000F, (short) 0x5533);
-        assertEquals((byte) 0x33, memory.buf[1048575]);
-        assertEquals((byte) 0x55, memory.buf[0]);
+        assertEquals((byte) 0x33, memory.getLinearByte(1048575));
+        assertEquals((byte) 0x55, memory.getLinearByte(0));
         assertEquals((short) 0x5533, memory.readWord(_FFFF_000F));
     }
-}
\ No newline at end of file
+
+    @Test
+    void segmentBaseTests() {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+
+        memory.writeByte(0xB8000, 0xF319, (byte) 0x89);
+        assertEquals((byte) 0x89, memory.getLinearByte(815897));
+        assertEquals((byte) 0x89, memory.readByte(0xB8000, 0xF319));
+
+        memory.writeByte(0xFFFF0, 0x0010, (byte) 0x9E); // 1048576 -> 0 wraps around to first byte of addressable memory.
+        assertEquals((byte) 0x9E, memory.getLinearByte(0));
+        assertEquals((byte) 0x9E, memory.readByte(0xFFFF0, 0x0010));
+
+        memory.writeWord(0xC8000, 0x4FE1, (short) 0xFE0A);
+        assertEquals((byte) 0x0A, memory.getLinearByte(839649));
+        assertEquals((byte) 0xFE, memory.getLinearByte(839650));
+        assertEquals((short) 0xFE0A, memory.readWord(0xC8000, 0x4FE1));
+
+        memory.writeWord(0x10000, 0xFFFF, (short) 0x1234); // High byte wraps to offset 0x0000 of the same segment.
+        assertEquals((byte) 0x34, memory.getLinearByte(0x1FFFF));
+        assertEquals((byte) 0x12, memory.getLinearByte(0x10000));
+        assertEquals((short) 0x1234, memory.readWord(0x10000, 0xFFFF));
+        assertEquals((short) 0x1234, memory.readWord(new SegOfs((short) 0x1000, (short) 0xFFFF)));
+    }
+
+    @Test
+    void fetchTests() {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+
+        memory.writeWord(0xC8000, 0x4FE1, (short) 0xFE0A);
+        assertEquals((byte) 0x0A, memory.fetchByte(0xC8000, 0x4FE1));
+        assertEquals((short) 0xFE0A, memory.fetchWord(0xC8000, 0x4FE1));
+
+        memory.writeWord(0x10000, 0xFFFF, (short) 0x1234); // High byte wraps to offset 0x0000 of the same segment.
+        assertEquals((short) 0x1234, memory.fetchWord(0x10000, 0xFFFF));
+        assertEquals((short) 0x1234, memory.fetchWord(new SegOfs((short) 0x1000, (short) 0xFFFF)));
+
+        memory.writeWord(0xFFFF0, 0x000F, (short) 0x5533); // High byte wraps to the first byte of addressable memory.
+        assertEquals((short) 0x5533, memory.fetchWord(0xFFFF0, 0x000F));
+        assertEquals((byte) 0x55, memory.fetchByte(0xFFFF0, 0x0010));
+    }
+
+    @Test
+    void permissionTests() {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+
+        // Only pages entirely within the range lose the permission.
+        memory.removePermission(0x0A00, 0x1234, Memory.PERMISSION_EXECUTE);
+        assertTrue(memory.isPermitted(0x09FF, Memory.PERMISSION_EXECUTE));
+        assertFalse(memory.isPermitted(0x0A00, Memory.PERMISSION_EXECUTE));
+        assertFalse(memory.isPermitted(0x1BFF, Memory.PERMISSION_EXECUTE));
+        assertTrue(memory.isPermitted(0x1C00, Memory.PERMISSION_EXECUTE));
+        assertTrue(memory.isPermitted(0x0A00, Memory.PERMISSION_READ));
+
+        // Pages partially within the range gain the permission.
+        memory.applyPermission(0x0AFF, 2, Memory.PERMISSION_EXECUTE);
+        assertTrue(memory.isPermitted(0x0A00, Memory.PERMISSION_EXECUTE));
+        assertTrue(memory.isPermitted(0x0BFF, Memory.PERMISSION_EXECUTE));
+        assertFalse(memory.isPermitted(0x0C00, Memory.PERMISSION_EXECUTE));
+
+        // Reset permits everything again, and restoring a snapshot brings back the removed permissions.
+        final byte[][] frames = memory.snapshotFrames();
+        final byte[] permissions = memory.permissions.clone();
+        memory.reset();
+        assertTrue(memory.isPermitted(0x0C00, Memory.PERMISSION_EXECUTE));
+        memory.restoreFrames(frames, permissions);
+        assertFalse(memory.isPermitted(0x0C00, Memory.PERMISSION_EXECUTE));
+
+        final Memory unprotected = new UnprotectedMemory(cpu);
+        unprotected.removePermission(0, Memory.MEMORY_SIZE, Memory.PERMISSION_READ);
+        assertTrue(unprotected.isPermitted(0x0000, Memory.PERMISSION_READ));
+    }
+
+    @Test
+    void frameTests() {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+        assertEquals(0, memory.getPrivateFrameCount());
+
+        // Word written across the boundary between two frames.
+        memory.writeWord(0x0000, 0x0FFF, (short) 0x1234);
+        assertEquals((byte) 0x34, memory.getLinearByte(0x0FFF));
+        assertEquals((byte) 0x12, memory.getLinearByte(0x1000));
+        assertEquals((short) 0x1234, memory.readWord(0x0000, 0x0FFF));
+        assertEquals(2, memory.getPrivateFrameCount());
+
+        // Overlapping copy across frames, as if through a temporary buffer.
+        for (int i = 0; i < 0x2000; i++) {
+            memory.setLinearByte(0x3000 + i, (byte) i);
+        }
+        assertTrue(memory.copyLinear(0x3000, 0x3800, 0x2000));
+        assertEquals((byte) 0x00, memory.getLinearByte(0x3800));
+        assertEquals((byte) 0xFF, memory.getLinearByte(0x57FF));
+        assertEquals(-1, memory.compareLinear(0x3800, 0x3000, 0x800, 1, false));
+        memory.setLinearByte(0x4100, (byte) 0x55);
+        assertEquals(0x900, memory.compareLinear(0x3800, 0x3000, 0x1000, 1, false));
+
+        // Word fill across frames.
+        assertTrue(memory.fillLinear(0x6FFD, 6, 0xAABB, 2));
+        assertEquals((short) 0xAABB, memory.readWord(0x0000, 0x6FFD));
+        assertEquals((short) 0xAABB, memory.readWord(0x0000, 0x6FFF));
+        assertEquals((short) 0xAABB, memory.readWord(0x0000, 0x7001));
+    }
+
+    @Test
+    void shareTests() {
+        final byte[] image = new byte[0x2100];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) (i * 7);
+        }
+        final Memory first = new Memory(new CPU(null));
+        final Memory second = new Memory(new CPU(null));
+        first.putLinearData(0x0A00, image, 0, image.length);
+        second.putLinearData(0x0A00, image, 0, image.length);
+        first.share(0x0A00, 0x0A00 + image.length);
+        second.share(0x0A00, 0x0A00 + image.length);
+        assertEquals(0, first.getPrivateFrameCount());
+        assertEquals(0, second.getPrivateFrameCount());
+
+        // A write copies the frame, and isn't seen by the other instance.
+        second.writeByte(0x0000, 0x1000, (byte) 0x99);
+        assertEquals(1, second.getPrivateFrameCount());
+        assertEquals((byte) 0x99, second.getLinearByte(0x1000));
+        assertEquals(image[0x1000 - 0x0A00], first.getLinearByte(0x1000));
+        assertEquals(image[0x1001 - 0x0A00], second.getLinearByte(0x1001));
+    }
+
+    @Test
+    void dirtyTests() {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+        memory.putLinearData(0x0FFE, new byte[] {1, 2, 3, 4}, 0, 4);
+        assertEquals(BitSet.valueOf(new long[] {0b11}), memory.getDirtyFrames());
+
+        final int generation = memory.clearDirtyFrames();
+        assertTrue(memory.getDirtyFrames().isEmpty());
+        memory.writeWord(0x0000, 0x1000, (short) 0x1234);
+        assertTrue(memory.fillLinear(0x5000, 0x10, 0, 1));
+        memory.setByte(new SegOfs((short) 0x0F00, (short) 0x0000), (byte) 1);
+        assertEquals(BitSet.valueOf(new long[] {0x8022}), memory.getDirtyFrames());
+
+        // Frames written before a generation are reported only for earlier generations.
+        memory.clearDirtyFrames();
+        memory.setLinearByte(0x0000, (byte) 1);
+        assertEquals(BitSet.valueOf(new long[] {0b1}), memory.getDirtyFrames());
+        assertEquals(BitSet.valueOf(new long[] {0x8023}), memory.getDirtyFrames(generation));
+        assertEquals((byte) 0x34, memory.getLinearByte(0x1000));
+        assertEquals(2, memory.getWriteGeneration());
+    }
+
+    @Test
+    void channelTests() throws IOException {
+        final CPU cpu = new CPU(null);
+        final Memory memory = new Memory(cpu);
+        final byte[] data = new byte[0x2000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 3);
+        }
+
+        // Across a frame boundary, and wrapping from offset 0xFFFF to 0x0000.
+        final SegOfs address = new SegOfs((short) 0x1000, (short) 0xF800);
+        assertEquals(data.length, memory.readFrom(Channels.newChannel(new ByteArrayInputStream(data)), address,
+                data.length));
+        assertEquals(data[0], memory.getLinearByte(0x1F800));
+        assertEquals(data[0x7FF], memory.getLinearByte(0x1FFFF));
+        assertEquals(data[0x800], memory.getLinearByte(0x10000));
+        assertEquals(data[0x1FFF], memory.getLinearByte(0x117FF));
+
+        // Short read at the end of the channel.
+        assertEquals(4, memory.readFrom(Channels.newChannel(new ByteArrayInputStream(new byte[] {1, 2, 3, 4})),
+                new SegOfs((short) 0x2000, (short) 0x0000), 16));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memory.writeTo(Channels.newChannel(out), address, data.length);
+        assertArrayEquals(data, out.toByteArray());
+    }
+}
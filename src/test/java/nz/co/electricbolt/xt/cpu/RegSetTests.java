@@ -30,4 +30,28 @@ public class RegSetTests {
         reg.IP.setValue((short) 0x7766);
         assertEquals("CS=9988 IP=7766 FLAGS=OF DF IF TF SF ZF AF PF CF AX=1234 BX=5678 CX=9ABC DX=DEF0 DS=4321 SI=8765 ES=CBA9 DI=0FED SS=1020 SP=3040 BP=5060", reg.toString());
     }
+
+    @Test
+    void registerFileTests() {
+        final RegSet reg = new RegSet();
+        assertEquals(0xF0000, reg.getSegBase(RegSet.CS_SEGMENT));
+
+        reg.DS.setValue((short) 0xB800);
+        assertEquals(0xB800, reg.getSeg(RegSet.DS_SEGMENT));
+        assertEquals(0xB8000, reg.getSegBase(RegSet.DS_SEGMENT));
+        reg.setSeg(RegSet.ES_SEGMENT, 0x1FFFF);
+        assertEquals((short) 0xFFFF, reg.ES.getValue());
+        assertEquals(0xFFFF0, reg.getSegBase(RegSet.ES_SEGMENT));
+
+        reg.AX.setValue((short) 0x1234);
+        assertEquals(0x34, reg.get8(0));    // AL
+        assertEquals(0x12, reg.get8(4));    // AH
+        reg.set8(4, 0x1FE);                 // AH
+        assertEquals((short) 0xFE34, reg.AX.getValue());
+        reg.set8(3, 0xAB);                  // BL
+        assertEquals((byte) 0xAB, reg.BL.getValue());
+        reg.set16(RegSet.SP_INDEX, -2);
+        assertEquals(0xFFFE, reg.get16(RegSet.SP_INDEX));
+        assertEquals((short) 0xFFFE, reg.SP.getValue());
+    }
 }
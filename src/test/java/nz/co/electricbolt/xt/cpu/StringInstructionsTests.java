@@ -0,0 +1,111 @@
+// StringInstructionsTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StringInstructionsTests extends StubCPUDelegate {
+
+    @Test
+    void repMoveTests() {
+        final CPU cpu = cpu((byte) 0xF3, (byte) 0xA4);          // REP MOVSB
+        cpu.getReg().DS.setValue((short) 0x0200);
+        cpu.getReg().ES.setValue((short) 0x0300);
+        cpu.getReg().DI.setValue((short) 0x0010);
+        cpu.getReg().CX.setValue((short) 5);
+        cpu.getMemory().putLinearData(0x2000, new byte[] {1, 2, 3, 4, 5, 6}, 0, 6);
+        cpu.execute(1);
+        assertArrayEquals(new byte[] {1, 2, 3, 4, 5, 0}, cpu.getMemory().getLinearData(0x3010, 6));
+        assertEquals((short) 0x0005, cpu.getReg().SI.getValue());
+        assertEquals((short) 0x0015, cpu.getReg().DI.getValue());
+        assertEquals((short) 0x0000, cpu.getReg().CX.getValue());
+        assertEquals(2, cpu.instructionCount);
+    }
+
+    @Test
+    void repMoveOverlapTests() {
+        // The destination is one byte ahead of the source, so the first byte is repeated.
+        final CPU cpu = cpu((byte) 0xF3, (byte) 0xA4);          // REP MOVSB
+        cpu.getReg().DS.setValue((short) 0x0200);
+        cpu.getReg().ES.setValue((short) 0x0200);
+        cpu.getReg().DI.setValue((short) 0x0001);
+        cpu.getReg().CX.setValue((short) 4);
+        cpu.getMemory().putLinearData(0x2000, new byte[] {0x7A, 1, 2, 3, 4, 5}, 0, 6);
+        cpu.execute(1);
+        assertArrayEquals(new byte[] {0x7A, 0x7A, 0x7A, 0x7A, 0x7A, 5}, cpu.getMemory().getLinearData(0x2000, 6));
+        assertEquals((short) 0x0004, cpu.getReg().SI.getValue());
+        assertEquals((short) 0x0005, cpu.getReg().DI.getValue());
+    }
+
+    @Test
+    void repStoreTests() {
+        final CPU cpu = cpu((byte) 0xFD, (byte) 0xF3, (byte) 0xAB); // STD; REP STOSW
+        cpu.getReg().ES.setValue((short) 0x0300);
+        cpu.getReg().DI.setValue((short) 0x0004);
+        cpu.getReg().CX.setValue((short) 3);
+        cpu.getReg().AX.setValue((short) 0x1234);
+        cpu.execute(2);
+        assertArrayEquals(new byte[] {0x34, 0x12, 0x34, 0x12, 0x34, 0x12, 0}, cpu.getMemory().getLinearData(0x3000, 7));
+        assertEquals((short) 0xFFFE, cpu.getReg().DI.getValue());
+        assertEquals((short) 0x0000, cpu.getReg().CX.getValue());
+    }
+
+    @Test
+    void repStoreWrapTests() {
+        // DI wraps around to the beginning of the segment.
+        final CPU cpu = cpu((byte) 0xF3, (byte) 0xAA);          // REP STOSB
+        cpu.getReg().ES.setValue((short) 0x0300);
+        cpu.getReg().DI.setValue((short) 0xFFFE);
+        cpu.getReg().CX.setValue((short) 4);
+        cpu.getReg().AX.setValue((short) 0x0055);
+        cpu.execute(1);
+        assertArrayEquals(new byte[] {0x55, 0x55}, cpu.getMemory().getLinearData(0x12FFE, 2));
+        assertArrayEquals(new byte[] {0x55, 0x55, 0}, cpu.getMemory().getLinearData(0x3000, 3));
+        assertEquals((short) 0x0002, cpu.getReg().DI.getValue());
+    }
+
+    @Test
+    void repneScanTests() {
+        final CPU cpu = cpu((byte) 0xF2, (byte) 0xAE);          // REPNE SCASB
+        cpu.getReg().ES.setValue((short) 0x0300);
+        cpu.getReg().CX.setValue((short) 0xFFFF);
+        cpu.getMemory().putLinearData(0x3000, new byte[] {'a', 'b', 'c', 0}, 0, 4);
+        cpu.execute(1);
+        assertEquals((short) 0x0004, cpu.getReg().DI.getValue());
+        assertEquals((short) 0xFFFB, cpu.getReg().CX.getValue());
+        assertTrue(cpu.getReg().flags.isZero());
+
+        // Not found; the flags are set by the last comparison.
+        cpu.getReg().IP.setValue((short) 0x0000);
+        cpu.getReg().DI.setValue((short) 0x0000);
+        cpu.getReg().CX.setValue((short) 3);
+        cpu.getReg().AX.setValue((short) 0x0064);
+        cpu.execute(1);
+        assertEquals((short) 0x0003, cpu.getReg().DI.getValue());
+        assertEquals((short) 0x0000, cpu.getReg().CX.getValue());
+        assertFalse(cpu.getReg().flags.isZero());
+        assertFalse(cpu.getReg().flags.isCarry());
+    }
+
+    @Test
+    void repeCompareTests() {
+        final CPU cpu = cpu((byte) 0xF3, (byte) 0xA6);          // REPE CMPSB
+        cpu.getReg().DS.setValue((short) 0x0200);
+        cpu.getReg().ES.setValue((short) 0x0300);
+        cpu.getReg().CX.setValue((short) 5);
+        cpu.getMemory().putLinearData(0x2000, new byte[] {'a', 'b', 'c', 'd', 'e'}, 0, 5);
+        cpu.getMemory().putLinearData(0x3000, new byte[] {'a', 'b', 'x', 'd', 'e'}, 0, 5);
+        cpu.execute(1);
+        assertEquals((short) 0x0003, cpu.getReg().SI.getValue());
+        assertEquals((short) 0x0003, cpu.getReg().DI.getValue());
+        assertEquals((short) 0x0002, cpu.getReg().CX.getValue());
+        assertFalse(cpu.getReg().flags.isZero());
+        assertTrue(cpu.getReg().flags.isCarry()); // 'c' < 'x'
+    }
+}
@@ -0,0 +1,75 @@
+// StubCPUDelegate.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Delegate which ignores every callback, for tests that only execute code. Tests extend it, overriding the callbacks
+ * they observe.
+ */
+public class StubCPUDelegate implements CPUDelegate {
+
+    /**
+     * Loads code at 0100:0000 and points CS:IP at it.
+     */
+    public static void load(final CPU cpu, final byte[] code) {
+        cpu.getReg().CS.setValue((short) 0x0100);
+        cpu.getReg().IP.setValue((short) 0x0000);
+        cpu.getMemory().putLinearData(0x1000, code, 0, code.length);
+    }
+
+    /**
+     * Returns a new CPU, delegating to this, with code loaded at 0100:0000.
+     */
+    protected CPU cpu(final byte... code) {
+        final CPU cpu = new CPU(this);
+        load(cpu, code);
+        return cpu;
+    }
+
+    /**
+     * Asserts that actual has the same registers, flags and instruction count as expected, typically its interpreted
+     * twin.
+     */
+    public static void assertSameState(final CPU expected, final CPU actual) {
+        assertEquals(expected.getReg().toString(), actual.getReg().toString());
+        assertEquals(expected.getReg().flags, actual.getReg().flags);
+        assertEquals(expected.instructionCount, actual.instructionCount);
+    }
+
+    @Override
+    public void interrupt(final byte value) {
+    }
+
+    @Override
+    public void halt() {
+    }
+
+    @Override
+    public byte portRead8(final short address) {
+        return 0;
+    }
+
+    @Override
+    public void portWrite8(final short address, final byte value) {
+    }
+
+    @Override
+    public short portRead16(final short address) {
+        return 0;
+    }
+
+    @Override
+    public void portWrite16(final short address, final short value) {
+    }
+
+    @Override
+    public void invalidMemoryAccess(final SegOfs memoryAddress, final byte permissionMask) {
+    }
+
+    @Override
+    public void invalidOpcode(final String message) {
+    }
+}
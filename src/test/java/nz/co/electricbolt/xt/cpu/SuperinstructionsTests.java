@@ -0,0 +1,95 @@
+// SuperinstructionsTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.cpu;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SuperinstructionsTests extends StubCPUDelegate {
+
+    private static final byte[] ROUTINE = {
+            0x55,                                           // 0000 PUSH BP
+            (byte) 0x8B, (byte) 0xEC,                       // 0001 MOV BP,SP
+            0x31, (byte) 0xC0,                              // 0003 XOR AX,AX
+            (byte) 0xB9, 0x10, 0x00,                        // 0005 MOV CX,0010
+            (byte) 0xAC,                                    // 0008 LODSB
+            (byte) 0xAA,                                    // 0009 STOSB
+            0x3C, 0x40,                                     // 000A CMP AL,40
+            0x72, 0x01,                                     // 000C JB 000F
+            0x40,                                           // 000E INC AX
+            0x49,                                           // 000F DEC CX
+            0x75, (byte) 0xF6,                              // 0010 JNZ 0008
+            (byte) 0x8B, (byte) 0xE5,                       // 0012 MOV SP,BP
+            0x5D,                                           // 0014 POP BP
+            (byte) 0xC3,                                    // 0015 RET
+            (byte) 0xF4                                     // 0016 HLT
+    };
+
+    private CPU cpu(final boolean superinstructions) {
+        final CPU cpu = cpu(ROUTINE);
+        cpu.setSuperinstructions(superinstructions);
+        cpu.getReg().DS.setValue((short) 0x0200);
+        cpu.getReg().ES.setValue((short) 0x0200);
+        cpu.getReg().SS.setValue((short) 0x0300);
+        cpu.getReg().SP.setValue((short) 0x0100);
+        cpu.getReg().BP.setValue((short) 0x1234);
+        cpu.getReg().DI.setValue((short) 0x0100);
+        for (int i = 0; i < 16; i++) {
+            cpu.getMemory().setLinearByte(0x2000 + i, (byte) (i * 8));
+        }
+        cpu.push16((short) 0x0016);
+        return cpu;
+    }
+
+    @Test
+    void idiomTests() {
+        final CPU interpreted = cpu(false);
+        final CPU fused = cpu(true);
+        final int steps = 4 + 16 * 6 + 8 + 3;
+        interpreted.execute(steps);
+        fused.execute(steps);
+
+        assertEquals((short) 0x0016, fused.getReg().IP.getValue());
+        assertSameState(interpreted, fused);
+        assertArrayEquals(interpreted.getMemory().getLinearData(0x2100, 16), fused.getMemory().getLinearData(0x2100, 16));
+
+        // The loop body is cached on the first iteration and fused on the remaining 15.
+        final Map<String, Long> counts = fused.getSuperinstructionCounts();
+        assertEquals(15, counts.get("CMP/TEST+Jcc"));
+        assertEquals(15, counts.get("INC/DEC+JNZ"));
+        assertEquals(15, counts.get("LODSB+STOSB"));
+        assertEquals(Map.of(), interpreted.getSuperinstructionCounts());
+    }
+
+    @Test
+    void maxStepsTests() {
+        final CPU interpreted = cpu(false);
+        final CPU fused = cpu(true);
+        for (int i = 0; i < 60; i++) {
+            interpreted.execute(1 + i % 2);
+            fused.execute(1 + i % 2);
+            assertSameState(interpreted, fused);
+        }
+    }
+
+    @Test
+    void conditionTests() {
+        final CPU cpu = new CPU(this);
+        for (int a = 0; a < 256; a++) {
+            for (int b = 0; b < 256; b++) {
+                for (int cc = 0; cc < 16; cc++) {
+                    cpu.alu.sub8((byte) a, (byte) b, false);
+                    assertEquals(cpu.controlTransfer.condition(cc), Superinstructions.compareCondition(cc, a, b,
+                            a - b, 0x80), "CMP " + a + "," + b + " cc=" + cc);
+                    cpu.alu.and8((short) a, (short) b);
+                    assertEquals(cpu.controlTransfer.condition(cc), Superinstructions.testCondition(cc, a & b, 0x80),
+                            "TEST " + a + "," + b + " cc=" + cc);
+                }
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class Tests implements CPUDelegate {
     private ArrayList<TestDTO> testDTOs;
     private final short excludeFlags;
     private int interrupted;
+    private CPU cpu;                                    // Reused by each test, after being reset.
 
     public Tests(final String opcode) {
         this(opcode, (short) 0);
@@ -74,7 +75,11 @@ public class Tests implements CPUDelegate {
                 assertEquals(testDTO.index, index, "Opcode " + opcode + " test " + index + " does not match file index " + testDTO.index);
             }
 
-            final CPU cpu = new CPU(this);
+            if (cpu == null) {
+                cpu = new CPU(this);
+            } else {
+                cpu.reset();
+            }
             final RegSet reg = cpu.getReg();
             final Memory memory = cpu.getMemory();
 
@@ -158,14 +163,6 @@ public class Tests implements CPUDelegate {
         }
     }
 
-    @Override
-    public void fetched8(final byte value, final long instructionCount) {
-    }
-
-    @Override
-    public void fetched16(final short value, final long instructionCount) {
-    }
-
     @Override
     public void interrupt(final byte value) {
         interrupted = value;
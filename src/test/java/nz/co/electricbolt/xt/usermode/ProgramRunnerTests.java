@@ -0,0 +1,141 @@
+// ProgramRunnerTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.usermode;
+
+import nz.co.electricbolt.xt.cpu.SegOfs;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ProgramRunnerTests {
+
+    private static final byte[] PROGRAM = {
+            (byte) 0xBA, 0x30, 0x01,                        // 0100 MOV DX,0130
+            (byte) 0xB8, 0x00, 0x3D,                        // 0103 MOV AX,3D00
+            (byte) 0xCD, 0x21,                              // 0106 INT 21          Open DATA.TXT.
+            (byte) 0x89, (byte) 0xC3,                       // 0108 MOV BX,AX
+            (byte) 0xB9, 0x03, 0x00,                        // 010A MOV CX,0003
+            (byte) 0xBA, 0x3F, 0x01,                        // 010D MOV DX,013F
+            (byte) 0xB4, 0x3F,                              // 0110 MOV AH,3F
+            (byte) 0xCD, 0x21,                              // 0112 INT 21          Read 3 bytes.
+            (byte) 0xBA, 0x39, 0x01,                        // 0114 MOV DX,0139
+            (byte) 0xB9, 0x00, 0x00,                        // 0117 MOV CX,0000
+            (byte) 0xB4, 0x4E,                              // 011A MOV AH,4E
+            (byte) 0xCD, 0x21,                              // 011C INT 21          Find first *.DAT.
+            (byte) 0xB9, 0x03, 0x00,                        // 011E MOV CX,0003
+            (byte) 0xBA, 0x42, 0x01,                        // 0121 MOV DX,0142
+            (byte) 0xB4, 0x3F,                              // 0124 MOV AH,3F
+            (byte) 0xCD, 0x21,                              // 0126 INT 21          Read 3 bytes.
+            (byte) 0xBA, 0x39, 0x01,                        // 0128 MOV DX,0139
+            (byte) 0xB4, 0x4E,                              // 012B MOV AH,4E
+            (byte) 0xCD, 0x21,                              // 012D INT 21          Find first *.DAT again.
+            (byte) 0xF4,                                    // 012F HLT
+            'D', 'A', 'T', 'A', '.', 'T', 'X', 'T', 0,      // 0130
+            '*', '.', 'D', 'A', 'T', 0,                     // 0139
+            0, 0, 0,                                        // 013F
+            0, 0, 0                                         // 0142
+    };
+
+    private static final int SNAPSHOT_STEPS = 12;
+    private static final int RESUME_STEPS = 7;
+    private static final int BUF2 = 0x0900 + 0x0142;
+    private static final int DTA = 0x0900 + 0x0080;
+    private static final int DTA_FILENAME = DTA + 0x1E;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Files.write(directory.resolve("PROG.COM"), PROGRAM);
+        Files.writeString(directory.resolve("DATA.TXT"), "0123456789");
+        Files.writeString(directory.resolve("A.DAT"), "A");
+        Files.writeString(directory.resolve("B.DAT"), "B");
+    }
+
+    private ProgramRunner runner() {
+        return new ProgramRunner("PROG.COM", "", directory.toString() + File.separator, false, false, "", false, "");
+    }
+
+    private String string(final ProgramRunner runner, final int address, final int length) {
+        return new String(runner.getCPU().getMemory().getLinearData(address, length), StandardCharsets.US_ASCII);
+    }
+
+    private int internalId(final ProgramRunner runner) {
+        return runner.getCPU().getMemory().getWord(new SegOfs((short) 0x0090, (short) 0x0080));
+    }
+
+    @Test
+    public void restoreTests() {
+        final ProgramRunner first = runner();
+        first.load();
+        first.execute(SNAPSHOT_STEPS);
+        final ProgramRunner.Snapshot snapshot = first.snapshot();
+        final String found = string(first, DTA_FILENAME, 5);
+        assertEquals(0, internalId(first));
+
+        // Moves the file position on from the snapshot, and starts a second search.
+        first.execute(RESUME_STEPS);
+        assertEquals("345", string(first, BUF2, 3));
+        assertEquals(1, internalId(first));
+
+        // The second runner resumes from the snapshot's file position, with its search still held, so the next search
+        // is the second.
+        final ProgramRunner second = runner();
+        second.restore(snapshot);
+        assertEquals(found, string(second, DTA_FILENAME, 5));
+        assertEquals(0, internalId(second));
+        second.execute(RESUME_STEPS);
+        assertEquals("345", string(second, BUF2, 3));
+        assertFalse(second.getCPU().getReg().flags.isCarry());
+        assertEquals(1, internalId(second));
+        assertEquals(found, string(second, DTA_FILENAME, 5));
+
+        // The snapshot is unchanged by either runner.
+        first.restore(snapshot);
+        first.execute(RESUME_STEPS);
+        assertEquals("345", string(first, BUF2, 3));
+        assertEquals(1, internalId(first));
+    }
+
+    @Test
+    public void commandLineTests() {
+        final ProgramRunner first = runner();
+        first.load();
+        final ProgramRunner.Snapshot snapshot = first.snapshot();
+
+        final ProgramRunner second = runner();
+        second.restore(snapshot, "INPUT.TXT");
+        final byte[] commandLine = second.getCPU().getMemory().getLinearData(0x0980, 12);
+        assertEquals(10, commandLine[0]);
+        assertEquals(" INPUT.TXT\r", new String(commandLine, 1, 11, StandardCharsets.US_ASCII));
+        assertEquals("INPUT   TXT", string(second, 0x095D, 11));
+    }
+
+    @Test
+    public void deletedFileTests() throws IOException {
+        final ProgramRunner first = runner();
+        first.load();
+        first.execute(SNAPSHOT_STEPS);
+        final ProgramRunner.Snapshot snapshot = first.snapshot();
+        Files.delete(directory.resolve("DATA.TXT"));
+
+        // Nothing is restored, so the runner continues from where it was.
+        final ProgramRunner second = runner();
+        second.load();
+        assertThrows(IllegalStateException.class, () -> second.restore(snapshot));
+        assertEquals(0, second.getCPU().getInstructionCount());
+        assertEquals((short) 0x0100, second.getCPU().getReg().IP.getValue());
+    }
+}
@@ -0,0 +1,98 @@
+// ProgrammableIntervalTimerTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.usermode;
+
+import nz.co.electricbolt.xt.cpu.CPU;
+import nz.co.electricbolt.xt.cpu.StubCPUDelegate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ProgrammableIntervalTimerTests extends StubCPUDelegate {
+
+    private CPU cpu;
+    private ProgrammableIntervalTimer pit;
+
+    @BeforeEach
+    public void setUp() {
+        cpu = new CPU(this);
+        cpu.getReg().CS.setValue((short) 0x1000);
+        cpu.getReg().IP.setValue((short) 0x0000);
+        for (int address = 0x10000; address < 0x11000; address++) {
+            cpu.getMemory().setLinearByte(address, (byte) 0x90);      // NOP
+        }
+        pit = new ProgrammableIntervalTimer(cpu, ProgrammableIntervalTimer.DEFAULT_CLOCKS_PER_INSTRUCTION);
+        pit.install();
+    }
+
+    private int readCount(final int port) {
+        return pit.portRead8(port) | pit.portRead8(port) << 8;
+    }
+
+    @Test
+    public void latchTests() {
+        cpu.execute(100);
+        pit.portWrite8(0x43, 0x00);                                     // Latch channel 0.
+        cpu.execute(100);
+        // Mode 3 counts down by 2 from 65536.
+        assertEquals(0x10000 - 2 * 400, readCount(0x40));
+        assertEquals(0x10000 - 2 * 800, readCount(0x40));
+    }
+
+    @Test
+    public void mode2Tests() {
+        pit.portWrite8(0x43, 0x34);                                     // Channel 0, LSB then MSB, mode 2.
+        pit.portWrite8(0x40, 1000 & 0xFF);
+        pit.portWrite8(0x40, 1000 >> 8);
+        cpu.execute(300);
+        assertEquals(1000 - 1200 % 1000, readCount(0x40));
+
+        pit.portWrite8(0x43, 0x14);                                     // Channel 0, LSB only, mode 2.
+        pit.portWrite8(0x40, 100);
+        cpu.execute(30);
+        assertEquals(100 - 120 % 100, pit.portRead8(0x40));
+    }
+
+    @Test
+    public void readBackTests() {
+        pit.portWrite8(0x43, 0xE8);                                     // Read-back status of channel 2.
+        assertEquals(0xB6, pit.portRead8(0x42));                        // Output high, LSB then MSB, mode 3.
+        pit.portWrite8(0x43, 0xD8);                                     // Read-back count of channel 2.
+        assertEquals(0x0533, readCount(0x42));
+    }
+
+    @Test
+    public void gateTests() {
+        cpu.execute(100);
+        // Channel 2 doesn't count while its gate is low.
+        assertEquals(0x0533, readCount(0x42));
+        pit.portWrite8(0x61, 0x01);
+        cpu.execute(100);
+        assertEquals(0x0533 - 2 * 400, readCount(0x42));
+        assertEquals(0x21, pit.portRead8(0x61));                        // Output high for the first half.
+        cpu.execute(100);
+        assertEquals(0x01, pit.portRead8(0x61));
+        pit.portWrite8(0x61, 0x00);
+        cpu.execute(100);
+        assertEquals(0x0533 - 2 * (800 % 666), readCount(0x42));
+    }
+
+    @Test
+    public void snapshotTests() {
+        pit.portWrite8(0x61, 0x01);
+        cpu.execute(100);
+        pit.portWrite8(0x43, 0x80);                                     // Latch channel 2.
+        final ProgrammableIntervalTimer.State state = pit.snapshot();
+        assertEquals((0x0533 - 2 * 400) & 0xFF, pit.portRead8(0x42));
+        pit.portWrite8(0x61, 0x00);
+
+        // The latch and gate are restored, and the latched LSB is read first again.
+        pit.restore(state);
+        assertEquals(0x0533 - 2 * 400, readCount(0x42));
+        assertEquals(0x01, pit.portRead8(0x61) & 0x01);
+        pit.restore(state);
+        assertEquals(0x0533 - 2 * 400, readCount(0x42));
+    }
+}
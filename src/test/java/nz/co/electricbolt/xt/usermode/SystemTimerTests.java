@@ -0,0 +1,89 @@
+// SystemTimerTests.java
+// XT Copyright © 2025; Electric Bolt Limited.
+
+package nz.co.electricbolt.xt.usermode;
+
+import nz.co.electricbolt.xt.cpu.CPU;
+import nz.co.electricbolt.xt.cpu.SegOfs;
+import nz.co.electricbolt.xt.cpu.StubCPUDelegate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SystemTimerTests extends StubCPUDelegate {
+
+    private static final SegOfs TICK_COUNT = new SegOfs((short) 0x0040, (short) 0x006C);
+    private static final SegOfs MIDNIGHT_FLAG = new SegOfs((short) 0x0040, (short) 0x0070);
+
+    private CPU cpu;
+    private SystemTimer timer;
+    private int ticks;
+
+    @BeforeEach
+    public void setUp() {
+        cpu = cpu(
+                (byte) 0xFB,                                            // 0000 STI
+                (byte) 0xEB, (byte) 0xFE                                // 0001 JMP 0001
+        );
+        cpu.getReg().SS.setValue((short) 0x0200);
+        cpu.getReg().SP.setValue((short) 0x0100);
+        cpu.getMemory().setLinearByte(0x3000, (byte) 0xCF);            // 0300:0000 IRET
+        timer = new SystemTimer(cpu);
+        timer.install();
+    }
+
+    /**
+     * Runs with IRQ 0 every 100 instructions, then lets the last handler finish.
+     */
+    private void run() {
+        cpu.setTimerInterval(100);
+        cpu.execute(2000);
+        cpu.setTimerInterval(0);
+        cpu.execute(100);
+    }
+
+    private int tickCount() {
+        return (cpu.getMemory().getWord(TICK_COUNT) & 0xFFFF)
+                | cpu.getMemory().getWord(new SegOfs((short) 0x0040, (short) 0x006E)) << 16;
+    }
+
+    @Test
+    public void tickTests() {
+        run();
+        assertTrue(ticks > 1);
+        assertEquals(ticks, tickCount());
+        assertEquals(0, cpu.getMemory().getByte(MIDNIGHT_FLAG));
+    }
+
+    @Test
+    public void replacedHandlerTests() {
+        // A handler that doesn't chain to the default handler stops the tick count.
+        cpu.getMemory().setWord(new SegOfs((short) 0, (short) (4 * 0x08)), (short) 0x0000);
+        cpu.getMemory().setWord(new SegOfs((short) 0, (short) (4 * 0x08 + 2)), (short) 0x0300);
+        run();
+        assertTrue(ticks > 1);
+        assertEquals(0, tickCount());
+    }
+
+    @Test
+    public void midnightTests() {
+        cpu.getMemory().setDoubleWord(TICK_COUNT, 0x1800B0 - 1);
+        cpu.setTimerInterval(100);
+        cpu.execute(150);
+        cpu.setTimerInterval(0);
+        cpu.execute(100);
+        assertEquals(1, ticks);
+        assertEquals(0, tickCount());
+        assertEquals(1, cpu.getMemory().getByte(MIDNIGHT_FLAG));
+    }
+
+    @Override
+    public void interrupt(final byte value) {
+        assertTrue(timer.interrupt(value));
+        if (value == 0x08) {
+            ticks++;
+        }
+    }
+}
@@ -96,14 +96,6 @@ public class TraceTests implements CPUDelegate {
         assertEquals("24651        AB CS=F000 IP=FFF0 FLAGS= AX=0000 BX=0000 CX=0000 DX=0000 DS=0000 SI=0000 ES=0000 DI=0000 SS=0000 SP=0000 BP=0000", br.readLine());
     }
 
-    @Override
-    public void fetched8(final byte value, final long instructionCount) {
-    }
-
-    @Override
-    public void fetched16(final short value, final long instructionCount) {
-    }
-
     @Override
     public void interrupt(final byte value) {
     }